@@ -48,6 +48,7 @@ def _graal_js_gate_runner(args, tasks):
     with Task('UnitTests', tasks, tags=[GraalJsDefaultTags.default, GraalJsDefaultTags.all]) as t:
         if t:
             unittest(['-Dtruffle.js.NashornJavaInterop=true', '--enable-timing', '--very-verbose', 'com.oracle.truffle.js.scriptengine.test'])
+            unittest(['--enable-timing', '--very-verbose', 'com.oracle.truffle.js.test.runtime', 'com.oracle.truffle.js.test.builtins'])
 
     gateTestConfigs = {
         GraalJsDefaultTags.default: ['gate'],
@@ -387,6 +387,21 @@ suite = {
       "testProject" : True,
     },
 
+    "com.oracle.truffle.js.test" : {
+      "subDir" : "src",
+      "sourceDirs" : ["src"],
+      "dependencies" : [
+        "mx:JUNIT",
+        "sdk:GRAAL_SDK",
+        "com.oracle.truffle.js.parser",
+        "com.oracle.truffle.js.snapshot",
+      ],
+      "checkstyle" : "com.oracle.truffle.js.runtime",
+      "javaCompliance" : "1.8",
+      "workingSets" : "Truffle,JavaScript",
+      "testProject" : True,
+    },
+
     "com.oracle.truffle.js.scriptengine" : {
       "subDir" : "src",
       "sourceDirs" : ["src"],
@@ -555,7 +570,7 @@ suite = {
     },
 
     "TRUFFLE_JS_TESTS" : {
-      "dependencies" : ["com.oracle.truffle.js.test.external", "com.oracle.truffle.js.test.instrumentation"],
+      "dependencies" : ["com.oracle.truffle.js.test.external", "com.oracle.truffle.js.test.instrumentation", "com.oracle.truffle.js.test"],
       "exclude" : [
         "mx:HAMCREST",
         "mx:JUNIT",
@@ -564,7 +579,7 @@ suite = {
         "JACKSON_DATABIND",
         "NASHORN_INTERNAL_TESTS",
       ],
-      "distDependencies" : ["GRAALJS"],
+      "distDependencies" : ["GRAALJS", "TRUFFLE_JS_SNAPSHOT_TOOL"],
       "maven" : False,
     },
 
@@ -124,6 +124,7 @@ import com.oracle.truffle.js.nodes.access.WriteElementNode;
 import com.oracle.truffle.js.nodes.access.WritePropertyNode;
 import com.oracle.truffle.js.nodes.binary.JSIdenticalNode;
 import com.oracle.truffle.js.nodes.cast.JSToBooleanNode;
+import com.oracle.truffle.js.nodes.cast.JSToDoubleNode;
 import com.oracle.truffle.js.nodes.cast.JSToIntegerNode;
 import com.oracle.truffle.js.nodes.cast.JSToIntegerSpecialNode;
 import com.oracle.truffle.js.nodes.cast.JSToObjectArrayNode;
@@ -2331,6 +2332,12 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
         private final BranchProfile arrayIsDefaultBranch = BranchProfile.create();
         private final BranchProfile hasCompareFnBranch = BranchProfile.create();
         private final BranchProfile noCompareFnBranch = BranchProfile.create();
+        private final BranchProfile packedIntArrayBranch = BranchProfile.create();
+        @Child private JSFunctionCallNode compareCallNode;
+        @Child private JSToDoubleNode compareResultToDoubleNode;
+
+        /** Runs shorter than this are sorted by insertion sort before merging. */
+        private static final int INSERTION_SORT_RUN = 8;
 
         public JSArraySortNode(JSContext context, JSBuiltin builtin, boolean isTypedArrayImplementation) {
             super(context, builtin, isTypedArrayImplementation);
@@ -2345,6 +2352,12 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             ScriptArray scriptArray = classProfile.profile(arrayGetArrayType(thisObj));
             long len = getLength(thisObj);
 
+            if (compare == Undefined.instance && isPackedIntArray(thisObj, scriptArray, len)) {
+                packedIntArrayBranch.enter();
+                sortPackedIntArray(thisObj, (AbstractIntArray) scriptArray, (int) len);
+                return thisObj;
+            }
+
             if (scriptArray instanceof SparseArray) {
                 arrayIsSparseBranch.enter();
                 array = getArraySparse(thisObj, scriptArray, len);
@@ -2360,7 +2373,7 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
                 array = arrayToObjectArrayNode.executeObjectArray(thisObj);
             }
 
-            sortIntl(getComparator(thisObj, compare), array);
+            sortElements(thisObj, compare, array);
             for (int i = 0; i < array.length; i++) {
                 write(thisObj, i, array[i]);
             }
@@ -2394,6 +2407,9 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
                         @Cached("createBinaryProfile()") ConditionProfile isJSObject) {
             checkCompareFunction(comparefn);
             TruffleObject thisJSObj = toObject(thisObj);
+            if (isTypedArrayImplementation && JSArrayBufferView.isJSArrayBufferView(thisJSObj)) {
+                return sortTypedArray((DynamicObject) thisJSObj, comparefn);
+            }
             if (isJSObject.profile(JSObject.isJSObject(thisJSObj))) {
                 return sortJSObject(comparefn, (DynamicObject) thisJSObj);
             } else {
@@ -2410,8 +2426,7 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             Iterable<Object> keys = getKeys(thisJSObj);
             Object[] array = objectToArray(thisJSObj, len, keys);
 
-            Comparator<Object> comparator = getComparator(thisJSObj, comparefn);
-            sortIntl(comparator, array);
+            sortElements(thisJSObj, comparefn, array);
 
             for (int i = 0; i < array.length; i++) {
                 write(thisJSObj, i, array[i]);
@@ -2425,8 +2440,7 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             long len = getLength(thisObj);
             Object[] array = truffleobjectToArray(thisObj, len);
 
-            Comparator<Object> comparator = getComparator(thisObj, comparefn);
-            sortIntl(comparator, array);
+            sortElements(thisObj, comparefn, array);
 
             for (int i = 0; i < array.length; i++) {
                 write(thisObj, i, array[i]);
@@ -2441,14 +2455,14 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             }
         }
 
-        private Comparator<Object> getComparator(final TruffleObject thisObj, final Object compare) {
+        private void sortElements(final TruffleObject thisObj, final Object compare, Object[] array) {
             if (isCallable(compare)) {
                 hasCompareFnBranch.enter();
                 DynamicObject arrayBufferObj = isTypedArrayImplementation && JSArrayBufferView.isJSArrayBufferView(thisObj) ? JSArrayBufferView.getArrayBuffer((DynamicObject) thisObj) : null;
-                return new SortComparator(compare, arrayBufferObj);
+                mergeSort(array, compare, arrayBufferObj);
             } else {
                 noCompareFnBranch.enter();
-                return getDefaultComparator(thisObj);
+                sortIntl(getDefaultComparator(thisObj), array);
             }
         }
 
@@ -2517,44 +2531,231 @@ public final class ArrayPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum
             }
         }
 
-        private class SortComparator implements Comparator<Object> {
-            private final Object compFnObj;
-            private final DynamicObject arrayBufferObj;
-            private final boolean isFunction;
-
-            SortComparator(Object compFnObj, DynamicObject arrayBufferObj) {
-                this.compFnObj = compFnObj;
-                this.arrayBufferObj = arrayBufferObj;
-                this.isFunction = JSFunction.isJSFunction(compFnObj);
+        /**
+         * Stable bottom-up merge sort for a user-provided compare function. Unlike
+         * {@link Arrays#sort}, this is not behind a boundary, so the compare function is called via
+         * a direct call node and can be inlined.
+         */
+        private void mergeSort(Object[] array, Object compareFn, DynamicObject arrayBufferObj) {
+            int n = array.length;
+            for (int lo = 0; lo < n; lo += INSERTION_SORT_RUN) {
+                insertionSort(array, lo, Math.min(lo + INSERTION_SORT_RUN, n), compareFn, arrayBufferObj);
+            }
+            if (n <= INSERTION_SORT_RUN) {
+                return;
+            }
+            Object[] src = array;
+            Object[] dst = new Object[n];
+            for (int width = INSERTION_SORT_RUN; width < n; width <<= 1) {
+                for (int lo = 0; lo < n; lo += width << 1) {
+                    int mid = Math.min(lo + width, n);
+                    int hi = Math.min(mid + width, n);
+                    merge(src, dst, lo, mid, hi, compareFn, arrayBufferObj);
+                }
+                Object[] tmp = src;
+                src = dst;
+                dst = tmp;
+            }
+            if (src != array) {
+                System.arraycopy(src, 0, array, 0, n);
             }
+        }
 
-            @Override
-            public int compare(Object arg0, Object arg1) {
-                if (arg0 == Undefined.instance) {
-                    if (arg1 == Undefined.instance) {
-                        return 0;
-                    }
-                    return 1;
-                } else if (arg1 == Undefined.instance) {
-                    return -1;
+        private void insertionSort(Object[] array, int from, int to, Object compareFn, DynamicObject arrayBufferObj) {
+            for (int i = from + 1; i < to; i++) {
+                Object value = array[i];
+                int j = i - 1;
+                while (j >= from && compare(array[j], value, compareFn, arrayBufferObj) > 0) {
+                    array[j + 1] = array[j];
+                    j--;
                 }
-                Object retObj;
-                if (isFunction) {
-                    retObj = JSFunction.call((DynamicObject) compFnObj, Undefined.instance, new Object[]{arg0, arg1});
+                array[j + 1] = value;
+            }
+        }
+
+        private void merge(Object[] src, Object[] dst, int lo, int mid, int hi, Object compareFn, DynamicObject arrayBufferObj) {
+            int i = lo;
+            int j = mid;
+            for (int k = lo; k < hi; k++) {
+                if (i < mid && (j >= hi || compare(src[i], src[j], compareFn, arrayBufferObj) <= 0)) {
+                    dst[k] = src[i++];
                 } else {
-                    retObj = JSRuntime.call(compFnObj, Undefined.instance, new Object[]{arg0, arg1});
+                    dst[k] = src[j++];
                 }
-                double d = JSRuntime.toDouble(retObj);
-                if (isTypedArrayImplementation) {
-                    if (!getContext().getTypedArrayNotDetachedAssumption().isValid() && JSArrayBuffer.isDetachedBuffer(arrayBufferObj)) {
-                        errorBranch.enter();
-                        throw Errors.createTypeErrorDetachedBuffer();
+            }
+        }
+
+        private int compare(Object arg0, Object arg1, Object compareFn, DynamicObject arrayBufferObj) {
+            if (arg0 == Undefined.instance) {
+                if (arg1 == Undefined.instance) {
+                    return 0;
+                }
+                return 1;
+            } else if (arg1 == Undefined.instance) {
+                return -1;
+            }
+            if (compareCallNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                compareCallNode = insert(JSFunctionCallNode.createCall());
+                compareResultToDoubleNode = insert(JSToDoubleNode.create());
+            }
+            Object retObj = compareCallNode.executeCall(JSArguments.create(Undefined.instance, compareFn, arg0, arg1));
+            double d = compareResultToDoubleNode.executeDouble(retObj);
+            if (isTypedArrayImplementation) {
+                if (!getContext().getTypedArrayNotDetachedAssumption().isValid() && JSArrayBuffer.isDetachedBuffer(arrayBufferObj)) {
+                    errorBranch.enter();
+                    throw Errors.createTypeErrorDetachedBuffer();
+                }
+            }
+            return d == 0 ? 0 : (d < 0 ? -1 : 1);
+        }
+
+        private static boolean isPackedIntArray(DynamicObject thisObj, ScriptArray scriptArray, long len) {
+            return scriptArray instanceof AbstractIntArray && !scriptArray.isFrozen() && !scriptArray.isHolesType() && len > 0 && len <= Integer.MAX_VALUE &&
+                            scriptArray.firstElementIndex(thisObj) == 0 && scriptArray.lastElementIndex(thisObj) == len - 1;
+        }
+
+        /**
+         * Default sort of a packed int array. Elements are sorted unboxed, in the order of their
+         * string representations, without converting them to strings.
+         */
+        private static void sortPackedIntArray(DynamicObject thisObj, AbstractIntArray intArray, int len) {
+            int[] values = new int[len];
+            for (int i = 0; i < len; i++) {
+                values[i] = intArray.getInBoundsFastInt(thisObj, i, false);
+            }
+            int[] src = values;
+            int[] dst = new int[len];
+            for (int width = 1; width < len; width <<= 1) {
+                for (int lo = 0; lo < len; lo += width << 1) {
+                    int mid = Math.min(lo + width, len);
+                    int hi = Math.min(mid + width, len);
+                    int i = lo;
+                    int j = mid;
+                    for (int k = lo; k < hi; k++) {
+                        if (i < mid && (j >= hi || compareIntsAsStrings(src[i], src[j]) <= 0)) {
+                            dst[k] = src[i++];
+                        } else {
+                            dst[k] = src[j++];
+                        }
                     }
                 }
-                return d == 0 ? 0 : (d < 0 ? -1 : 1);
+                int[] tmp = src;
+                src = dst;
+                dst = tmp;
+            }
+            for (int i = 0; i < len; i++) {
+                intArray.setInBoundsFast(thisObj, i, src[i], false);
             }
         }
 
+        private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L};
+
+        /**
+         * Compares two ints like {@link JSArray.DefaultJSArrayIntegerComparator}, i.e., by their
+         * string representations. The shorter decimal string is scaled up to the length of the
+         * longer one, so that the digits can be compared numerically.
+         */
+        static int compareIntsAsStrings(int a, int b) {
+            if (a == b) {
+                return 0;
+            }
+            if (a < 0) {
+                if (b >= 0) {
+                    return -1;
+                }
+                return compareDigits(-(long) a, -(long) b);
+            } else if (b < 0) {
+                return 1;
+            }
+            return compareDigits(a, b);
+        }
+
+        private static int compareDigits(long a, long b) {
+            int aDigits = decimalDigits(a);
+            int bDigits = decimalDigits(b);
+            long scaledA = a;
+            long scaledB = b;
+            if (aDigits < bDigits) {
+                scaledA *= POWERS_OF_TEN[bDigits - aDigits];
+            } else if (bDigits < aDigits) {
+                scaledB *= POWERS_OF_TEN[aDigits - bDigits];
+            }
+            if (scaledA != scaledB) {
+                return scaledA < scaledB ? -1 : 1;
+            }
+            // one is a prefix of the other
+            return Integer.compare(aDigits, bDigits);
+        }
+
+        private static int decimalDigits(long value) {
+            int digits = 1;
+            while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+                digits++;
+            }
+            return digits;
+        }
+
+        /**
+         * %TypedArray%.prototype.sort. With the default comparator, int and float typed arrays are
+         * sorted numerically in primitive arrays and written back in place.
+         */
+        private DynamicObject sortTypedArray(DynamicObject thisObj, Object compare) {
+            TypedArray typedArray = JSArrayBufferView.typedArrayGetArrayType(thisObj);
+            int len = (int) getLength(thisObj);
+            if (compare == Undefined.instance) {
+                noCompareFnBranch.enter();
+                if (typedArray instanceof TypedArray.TypedIntArray) {
+                    sortTypedIntArray(thisObj, (TypedArray.TypedIntArray<?>) typedArray, len);
+                    return thisObj;
+                } else if (typedArray instanceof TypedArray.TypedFloatArray) {
+                    sortTypedFloatArray(thisObj, (TypedArray.TypedFloatArray<?>) typedArray, len);
+                    return thisObj;
+                }
+            }
+            Object[] array = typedArray.toArray(thisObj);
+            sortElements(thisObj, compare, array);
+            for (int i = 0; i < array.length; i++) {
+                write(thisObj, i, array[i]);
+            }
+            return thisObj;
+        }
+
+        private static void sortTypedIntArray(DynamicObject thisObj, TypedArray.TypedIntArray<?> typedArray, int len) {
+            // flip the sign bit of unsigned values so that signed order matches unsigned order
+            int bias = typedArray instanceof TypedArray.AbstractUint32Array ? Integer.MIN_VALUE : 0;
+            int[] values = new int[len];
+            for (int i = 0; i < len; i++) {
+                values[i] = typedArray.getInt(thisObj, i, false) ^ bias;
+            }
+            sortInts(values);
+            for (int i = 0; i < len; i++) {
+                typedArray.setInt(thisObj, i, values[i] ^ bias, false);
+            }
+        }
+
+        private static void sortTypedFloatArray(DynamicObject thisObj, TypedArray.TypedFloatArray<?> typedArray, int len) {
+            double[] values = new double[len];
+            for (int i = 0; i < len; i++) {
+                values[i] = typedArray.getDouble(thisObj, i, false);
+            }
+            // Arrays.sort orders -0 before +0 and NaN last, as required by the spec
+            sortDoubles(values);
+            for (int i = 0; i < len; i++) {
+                typedArray.setDouble(thisObj, i, values[i], false);
+            }
+        }
+
+        @TruffleBoundary
+        private static void sortInts(int[] values) {
+            Arrays.sort(values);
+        }
+
+        @TruffleBoundary
+        private static void sortDoubles(double[] values) {
+            Arrays.sort(values);
+        }
+
         @TruffleBoundary
         private static Object[] objectToArray(DynamicObject thisObj, long len, Iterable<Object> keys) {
             ArrayList<Object> list = new ArrayList<>();
@@ -80,11 +80,13 @@ import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugInspectNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugIsHolesArrayNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugJSStackNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugLoadModuleNodeGen;
+import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugModuleLoaderStatisticsNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugNeverPartOfCompilationNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugObjectSizeHistogramNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugObjectSizeNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugPrintObjectNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugPrintSourceAttributionNodeGen;
+import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugPromiseJobStatisticsNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugShapeNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugStringCompareNodeGen;
 import com.oracle.truffle.js.builtins.DebugBuiltinsFactory.DebugSystemGCNodeGen;
@@ -123,6 +125,7 @@ import com.oracle.truffle.js.runtime.builtins.JSGlobalObject;
 import com.oracle.truffle.js.runtime.builtins.JSProxy;
 import com.oracle.truffle.js.runtime.builtins.JSUserObject;
 import com.oracle.truffle.js.runtime.objects.JSLazyString;
+import com.oracle.truffle.js.runtime.objects.DefaultModuleLoader;
 import com.oracle.truffle.js.runtime.objects.JSModuleLoader;
 import com.oracle.truffle.js.runtime.objects.JSModuleRecord;
 import com.oracle.truffle.js.runtime.objects.JSObject;
@@ -167,6 +170,8 @@ public final class DebugBuiltins extends JSBuiltinsContainer.SwitchEnum<DebugBui
         systemProperties(0),
         neverPartOfCompilation(0),
         dumpHeap(2),
+        promiseJobStatistics(0),
+        moduleLoaderStatistics(0),
 
         objectSize(1) {
             @Override
@@ -251,6 +256,10 @@ public final class DebugBuiltins extends JSBuiltinsContainer.SwitchEnum<DebugBui
 
             case dumpHeap:
                 return DebugHeapDumpNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
+            case promiseJobStatistics:
+                return DebugPromiseJobStatisticsNodeGen.create(context, builtin, args().createArgumentNodes(context));
+            case moduleLoaderStatistics:
+                return DebugModuleLoaderStatisticsNodeGen.create(context, builtin, args().createArgumentNodes(context));
             default:
                 if (!JSTruffleOptions.SubstrateVM) {
                     switch (builtinEnum) {
@@ -799,6 +808,54 @@ public final class DebugBuiltins extends JSBuiltinsContainer.SwitchEnum<DebugBui
         }
     }
 
+    /**
+     * Returns statistics about the promise job queue: number of jobs enqueued, maximum queue depth,
+     * and time spent draining the queue (in milliseconds).
+     */
+    public abstract static class DebugPromiseJobStatistics extends JSBuiltinNode {
+
+        public DebugPromiseJobStatistics(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @TruffleBoundary
+        @Specialization
+        protected Object promiseJobStatistics() {
+            JSContext context = getContext();
+            DynamicObject result = JSUserObject.create(context);
+            JSObject.set(result, "enqueued", (double) context.getPromiseJobsEnqueued());
+            JSObject.set(result, "maxQueueDepth", context.getPromiseJobsMaxQueueDepth());
+            JSObject.set(result, "drainTime", context.getPromiseJobsDrainTime() / (double) JSRealm.NANOSECONDS_PER_MILLISECOND);
+            return result;
+        }
+    }
+
+    public abstract static class DebugModuleLoaderStatistics extends JSBuiltinNode {
+
+        public DebugModuleLoaderStatistics(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @TruffleBoundary
+        @Specialization
+        protected Object moduleLoaderStatistics() {
+            JSContext context = getContext();
+            JSModuleLoader moduleLoader = context.getModuleLoader();
+            if (!(moduleLoader instanceof DefaultModuleLoader)) {
+                return Undefined.instance;
+            }
+            DefaultModuleLoader loader = (DefaultModuleLoader) moduleLoader;
+            DynamicObject result = JSUserObject.create(context);
+            JSObject.set(result, "modules", (double) loader.getLoadedModules());
+            JSObject.set(result, "prefetched", (double) loader.getPrefetchedModules());
+            JSObject.set(result, "readTime", loader.getReadTime() / (double) JSRealm.NANOSECONDS_PER_MILLISECOND);
+            JSObject.set(result, "parseTime", loader.getParseTime() / (double) JSRealm.NANOSECONDS_PER_MILLISECOND);
+            JSObject.set(result, "prefetchTime", loader.getPrefetchTime() / (double) JSRealm.NANOSECONDS_PER_MILLISECOND);
+            JSObject.set(result, "linkTime", loader.getLinkTime() / (double) JSRealm.NANOSECONDS_PER_MILLISECOND);
+            return result;
+        }
+    }
+
     public abstract static class DebugSystemProperty extends JSBuiltinNode {
 
         public DebugSystemProperty(JSContext context, JSBuiltin builtin) {
@@ -153,6 +153,7 @@ public class JSDefaultBuiltinLookup extends JSBuiltinLookup {
             defineBuiltins(new SharedArrayBufferPrototypeBuiltins());
             defineBuiltins(new SharedArrayBufferFunctionBuiltins());
             defineBuiltins(new AtomicsBuiltins());
+            defineBuiltins(new SharedChannelBuiltins());
         }
         if (JSTruffleOptions.MaxECMAScriptVersion >= 9) {
             defineBuiltins(new AsyncFromSyncIteratorPrototypeBuiltins());
@@ -40,7 +40,9 @@
  */
 package com.oracle.truffle.js.builtins;
 
+import java.io.Reader;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
@@ -84,11 +86,13 @@ import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaIsJavaObjectNodeGe
 import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaIsScriptFunctionNodeGen;
 import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaIsScriptObjectNodeGen;
 import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaIsTypeNodeGen;
+import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaParseJSONNodeGen;
 import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaSuperNodeGen;
 import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaSynchronizedNodeGen;
 import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaToNodeGen;
 import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaTypeNameNodeGen;
 import com.oracle.truffle.js.builtins.JavaBuiltinsFactory.JavaTypeNodeGen;
+import com.oracle.truffle.js.builtins.helper.TruffleJSONStreamParser;
 import com.oracle.truffle.js.nodes.access.RealmNode;
 import com.oracle.truffle.js.nodes.access.WriteElementNode;
 import com.oracle.truffle.js.nodes.cast.JSToObjectArrayNode;
@@ -110,6 +114,7 @@ import com.oracle.truffle.js.runtime.array.ScriptArray;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
 import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
 import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
 import com.oracle.truffle.js.runtime.builtins.JSFunction;
 import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
 import com.oracle.truffle.js.runtime.interop.Converters;
@@ -134,6 +139,7 @@ public final class JavaBuiltins extends JSBuiltinsContainer.SwitchEnum<JavaBuilt
         isType(1),
         typeName(1),
         synchronized_(2),
+        parseJSON(1),
 
         extend(1),
         super_(1),
@@ -182,6 +188,8 @@ public final class JavaBuiltins extends JSBuiltinsContainer.SwitchEnum<JavaBuilt
                 return JavaIsJavaObjectNodeGen.create(context, builtin, args().fixedArgs(1).createArgumentNodes(context));
             case synchronized_:
                 return JavaSynchronizedNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
+            case parseJSON:
+                return JavaParseJSONNodeGen.create(context, builtin, args().fixedArgs(1).createArgumentNodes(context));
             case asJSONCompatible:
                 return JavaAsJSONCompatibleNodeGen.create(context, builtin, args().fixedArgs(1).createArgumentNodes(context));
         }
@@ -896,6 +904,45 @@ public final class JavaBuiltins extends JSBuiltinsContainer.SwitchEnum<JavaBuilt
         }
     }
 
+    /**
+     * Parses JSON directly from an ArrayBuffer, a {@link ByteBuffer} or a {@link Reader}, without
+     * converting the whole input to a string first. Byte input must be UTF-8 encoded.
+     */
+    abstract static class JavaParseJSONNode extends JSBuiltinNode {
+        JavaParseJSONNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @TruffleBoundary
+        @Specialization
+        protected Object parseJSON(Object input) {
+            // the parser is stateful, so it is not shared between (possibly concurrent) calls
+            TruffleJSONStreamParser parser = new TruffleJSONStreamParser(getContext());
+            if (JSArrayBuffer.isJSHeapArrayBuffer(input)) {
+                DynamicObject arrayBuffer = (DynamicObject) input;
+                if (JSArrayBuffer.isDetachedBuffer(arrayBuffer)) {
+                    throw Errors.createTypeErrorDetachedBuffer();
+                }
+                return parser.parse(ByteBuffer.wrap(JSArrayBuffer.getByteArray(arrayBuffer)));
+            } else if (JSArrayBuffer.isJSDirectArrayBuffer(input)) {
+                DynamicObject arrayBuffer = (DynamicObject) input;
+                if (JSArrayBuffer.isDetachedBuffer(arrayBuffer)) {
+                    throw Errors.createTypeErrorDetachedBuffer();
+                }
+                return parser.parse(JSArrayBuffer.getDirectByteBuffer(arrayBuffer));
+            }
+            Object javaObject = JavaSynchronizedNode.unwrapJavaObject(input, getContext().getRealm().getEnv());
+            if (javaObject instanceof ByteBuffer) {
+                return parser.parse((ByteBuffer) javaObject);
+            } else if (javaObject instanceof byte[]) {
+                return parser.parse(ByteBuffer.wrap((byte[]) javaObject));
+            } else if (javaObject instanceof Reader) {
+                return parser.parse((Reader) javaObject);
+            }
+            throw Errors.createTypeError("ArrayBuffer, java.nio.ByteBuffer or java.io.Reader expected");
+        }
+    }
+
     abstract static class JavaAsJSONCompatibleNode extends JSBuiltinNode {
         JavaAsJSONCompatibleNode(JSContext context, JSBuiltin builtin) {
             super(context, builtin);
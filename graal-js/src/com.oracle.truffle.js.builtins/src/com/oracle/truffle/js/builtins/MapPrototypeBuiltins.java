@@ -173,6 +173,16 @@ public final class MapPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<M
             super(context, builtin);
         }
 
+        @Specialization(guards = "isJSMap(thisObj)")
+        protected static boolean deleteInt(DynamicObject thisObj, int key) {
+            return JSMap.getInternalMap(thisObj).remove(key);
+        }
+
+        @Specialization(guards = "isJSMap(thisObj)")
+        protected static boolean deleteString(DynamicObject thisObj, String key) {
+            return JSMap.getInternalMap(thisObj).remove(key);
+        }
+
         @Specialization(guards = "isJSMap(thisObj)")
         protected boolean delete(DynamicObject thisObj, Object key) {
             Object normalizedKey = normalize(key);
@@ -195,10 +205,23 @@ public final class MapPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<M
             super(context, builtin);
         }
 
+        @Specialization(guards = "isJSMap(thisObj)")
+        protected static Object getInt(DynamicObject thisObj, int key) {
+            return valueOrUndefined(JSMap.getInternalMap(thisObj).get(key));
+        }
+
+        @Specialization(guards = "isJSMap(thisObj)")
+        protected static Object getString(DynamicObject thisObj, String key) {
+            return valueOrUndefined(JSMap.getInternalMap(thisObj).get(key));
+        }
+
         @Specialization(guards = "isJSMap(thisObj)")
         protected Object get(DynamicObject thisObj, Object key) {
             Object normalizedKey = normalize(key);
-            Object value = JSMap.getInternalMap(thisObj).get(normalizedKey);
+            return valueOrUndefined(JSMap.getInternalMap(thisObj).get(normalizedKey));
+        }
+
+        private static Object valueOrUndefined(Object value) {
             if (value != null) {
                 return value;
             } else {
@@ -222,6 +245,18 @@ public final class MapPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<M
             super(context, builtin);
         }
 
+        @Specialization(guards = "isJSMap(thisObj)")
+        protected static DynamicObject setInt(DynamicObject thisObj, int key, Object value) {
+            JSMap.getInternalMap(thisObj).put(key, value);
+            return thisObj;
+        }
+
+        @Specialization(guards = "isJSMap(thisObj)")
+        protected static DynamicObject setString(DynamicObject thisObj, String key, Object value) {
+            JSMap.getInternalMap(thisObj).put(key, value);
+            return thisObj;
+        }
+
         @Specialization(guards = "isJSMap(thisObj)")
         protected DynamicObject set(DynamicObject thisObj, Object key, Object value) {
             Object normalizedKey = normalize(key);
@@ -245,6 +280,16 @@ public final class MapPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<M
             super(context, builtin);
         }
 
+        @Specialization(guards = "isJSMap(thisObj)")
+        protected static boolean hasInt(DynamicObject thisObj, int key) {
+            return JSMap.getInternalMap(thisObj).has(key);
+        }
+
+        @Specialization(guards = "isJSMap(thisObj)")
+        protected static boolean hasString(DynamicObject thisObj, String key) {
+            return JSMap.getInternalMap(thisObj).has(key);
+        }
+
         @Specialization(guards = "isJSMap(thisObj)")
         protected boolean has(DynamicObject thisObj, Object key) {
             Object normalizedKey = normalize(key);
@@ -43,11 +43,13 @@ package com.oracle.truffle.js.builtins;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.js.builtins.RealmFunctionBuiltinsFactory.RealmCloneNodeGen;
 import com.oracle.truffle.js.builtins.RealmFunctionBuiltinsFactory.RealmCreateNodeGen;
 import com.oracle.truffle.js.builtins.RealmFunctionBuiltinsFactory.RealmCurrentNodeGen;
 import com.oracle.truffle.js.builtins.RealmFunctionBuiltinsFactory.RealmDisposeNodeGen;
 import com.oracle.truffle.js.builtins.RealmFunctionBuiltinsFactory.RealmEvalNodeGen;
 import com.oracle.truffle.js.builtins.RealmFunctionBuiltinsFactory.RealmGlobalNodeGen;
+import com.oracle.truffle.js.builtins.helper.StructuredClone;
 import com.oracle.truffle.js.nodes.function.JSBuiltin;
 import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
 import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
@@ -73,7 +75,8 @@ public final class RealmFunctionBuiltins extends JSBuiltinsContainer.SwitchEnum<
         global(1),
         dispose(1),
         current(0),
-        eval(2);
+        eval(2),
+        clone(2);
 
         private final int length;
 
@@ -100,6 +103,8 @@ public final class RealmFunctionBuiltins extends JSBuiltinsContainer.SwitchEnum<
                 return RealmCurrentNodeGen.create(context, builtin, args().fixedArgs(0).createArgumentNodes(context));
             case eval:
                 return RealmEvalNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
+            case clone:
+                return RealmCloneNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
         }
         return null;
     }
@@ -190,4 +195,19 @@ public final class RealmFunctionBuiltins extends JSBuiltinsContainer.SwitchEnum<
             return jsrealm.getContext().getEvaluator().evaluate(jsrealm, this, source);
         }
     }
+
+    public abstract static class RealmCloneNode extends JSBuiltinNode {
+
+        public RealmCloneNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @TruffleBoundary
+        @Specialization
+        protected Object cloneValue(Object index, Object value) {
+            int realmIndex = toRealmIndexOrThrow(getContext(), index);
+            JSRealm jsrealm = getContext().getFromRealmList(realmIndex);
+            return StructuredClone.clone(value, jsrealm);
+        }
+    }
 }
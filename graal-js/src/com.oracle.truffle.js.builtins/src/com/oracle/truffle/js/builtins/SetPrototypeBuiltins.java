@@ -170,6 +170,16 @@ public final class SetPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<S
             super(context, builtin);
         }
 
+        @Specialization(guards = "isJSSet(thisObj)")
+        protected static boolean deleteInt(DynamicObject thisObj, int key) {
+            return JSSet.getInternalSet(thisObj).remove(key);
+        }
+
+        @Specialization(guards = "isJSSet(thisObj)")
+        protected static boolean deleteString(DynamicObject thisObj, String key) {
+            return JSSet.getInternalSet(thisObj).remove(key);
+        }
+
         @Specialization(guards = "isJSSet(thisObj)")
         protected boolean delete(DynamicObject thisObj, Object key) {
             Object normalizedKey = normalize(key);
@@ -192,6 +202,18 @@ public final class SetPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<S
             super(context, builtin);
         }
 
+        @Specialization(guards = "isJSSet(thisObj)")
+        protected static DynamicObject addInt(DynamicObject thisObj, int key) {
+            JSSet.getInternalSet(thisObj).put(key, PRESENT);
+            return thisObj;
+        }
+
+        @Specialization(guards = "isJSSet(thisObj)")
+        protected static DynamicObject addString(DynamicObject thisObj, String key) {
+            JSSet.getInternalSet(thisObj).put(key, PRESENT);
+            return thisObj;
+        }
+
         @Specialization(guards = "isJSSet(thisObj)")
         protected DynamicObject add(DynamicObject thisObj, Object key) {
             Object normalizedKey = normalize(key);
@@ -215,6 +237,16 @@ public final class SetPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnum<S
             super(context, builtin);
         }
 
+        @Specialization(guards = "isJSSet(thisObj)")
+        protected static boolean hasInt(DynamicObject thisObj, int key) {
+            return JSSet.getInternalSet(thisObj).has(key);
+        }
+
+        @Specialization(guards = "isJSSet(thisObj)")
+        protected static boolean hasString(DynamicObject thisObj, String key) {
+            return JSSet.getInternalSet(thisObj).has(key);
+        }
+
         @Specialization(guards = "isJSSet(thisObj)")
         protected boolean has(DynamicObject thisObj, Object key) {
             Object normalizedKey = normalize(key);
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.builtins.SharedChannelBuiltinsFactory.SharedChannelOpenNodeGen;
+import com.oracle.truffle.js.builtins.SharedChannelBuiltinsFactory.SharedChannelPostMessageNodeGen;
+import com.oracle.truffle.js.builtins.SharedChannelBuiltinsFactory.SharedChannelReceiveNodeGen;
+import com.oracle.truffle.js.builtins.SharedChannelBuiltinsFactory.SharedChannelSizeNodeGen;
+import com.oracle.truffle.js.builtins.helper.SharedMemorySync;
+import com.oracle.truffle.js.builtins.helper.SharedMessageCodec;
+import com.oracle.truffle.js.nodes.function.JSBuiltin;
+import com.oracle.truffle.js.nodes.function.JSBuiltinNode;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSAgentWaiterList;
+import com.oracle.truffle.js.runtime.JSAgentWaiterList.JSAgentWaiterListEntry;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.SharedMessageChannel;
+import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+
+/**
+ * Contains builtins for the SharedChannel object: message passing between agents through a
+ * {@link SharedMessageChannel} attached to a SharedArrayBuffer.
+ */
+public final class SharedChannelBuiltins extends JSBuiltinsContainer.SwitchEnum<SharedChannelBuiltins.SharedChannel> {
+
+    protected SharedChannelBuiltins() {
+        super(JSRealm.SHARED_CHANNEL_CLASS_NAME, SharedChannel.class);
+    }
+
+    public enum SharedChannel implements BuiltinEnum<SharedChannel> {
+        open(2),
+        postMessage(3),
+        receive(2),
+        size(1);
+
+        private final int length;
+
+        SharedChannel(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+    }
+
+    @Override
+    protected Object createNode(JSContext context, JSBuiltin builtin, boolean construct, boolean newTarget, SharedChannel builtinEnum) {
+        switch (builtinEnum) {
+            case open:
+                return SharedChannelOpenNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
+            case postMessage:
+                return SharedChannelPostMessageNodeGen.create(context, builtin, args().fixedArgs(3).createArgumentNodes(context));
+            case receive:
+                return SharedChannelReceiveNodeGen.create(context, builtin, args().fixedArgs(2).createArgumentNodes(context));
+            case size:
+                return SharedChannelSizeNodeGen.create(context, builtin, args().fixedArgs(1).createArgumentNodes(context));
+        }
+        return null;
+    }
+
+    protected static DynamicObject toSharedArrayBufferOrThrow(Object value) {
+        if (!JSSharedArrayBuffer.isJSSharedArrayBuffer(value)) {
+            throw Errors.createTypeError("SharedArrayBuffer expected");
+        }
+        return (DynamicObject) value;
+    }
+
+    protected static SharedMessageChannel getChannel(DynamicObject sharedBuffer) {
+        JSAgentWaiterList waiterList = JSSharedArrayBuffer.getWaiterList(sharedBuffer);
+        SharedMessageChannel channel = waiterList.getMessageChannel();
+        if (channel == null) {
+            channel = waiterList.openMessageChannel(SharedMessageChannel.DEFAULT_CAPACITY, true);
+        }
+        return channel;
+    }
+
+    /**
+     * SharedChannel.open(sab, {capacity, multiProducer}): attaches a channel to the buffer unless
+     * it already has one, and returns the capacity of the buffer's channel.
+     */
+    public abstract static class SharedChannelOpenNode extends JSBuiltinNode {
+
+        public SharedChannelOpenNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @TruffleBoundary
+        @Specialization
+        protected Object open(Object buffer, Object options) {
+            DynamicObject sharedBuffer = toSharedArrayBufferOrThrow(buffer);
+            int capacity = SharedMessageChannel.DEFAULT_CAPACITY;
+            boolean multiProducer = true;
+            if (JSRuntime.isObject(options)) {
+                Object capacityValue = JSObject.get((DynamicObject) options, "capacity");
+                if (capacityValue != Undefined.instance) {
+                    capacity = JSRuntime.toInt32(capacityValue);
+                }
+                Object multiProducerValue = JSObject.get((DynamicObject) options, "multiProducer");
+                if (multiProducerValue != Undefined.instance) {
+                    multiProducer = JSRuntime.toBoolean(multiProducerValue);
+                }
+            } else if (options != Undefined.instance) {
+                throw Errors.createTypeErrorNotAnObject(options);
+            }
+            return JSSharedArrayBuffer.getWaiterList(sharedBuffer).openMessageChannel(capacity, multiProducer).getCapacity();
+        }
+    }
+
+    /**
+     * SharedChannel.postMessage(sab, message, transfer): enqueues the message without blocking and
+     * returns false if the channel is full. Array buffers in the transfer list are detached. Only
+     * the first agent that posts to a single-producer channel may post to it.
+     */
+    public abstract static class SharedChannelPostMessageNode extends JSBuiltinNode {
+
+        public SharedChannelPostMessageNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @TruffleBoundary
+        @Specialization
+        protected Object postMessage(Object buffer, Object message, Object transferList) {
+            DynamicObject sharedBuffer = toSharedArrayBufferOrThrow(buffer);
+            SharedMessageChannel channel = getChannel(sharedBuffer);
+            if (!channel.claimProducer(getContext().getJSAgent().getSignifier())) {
+                throw Errors.createTypeError("Single-producer SharedChannel already has another producer agent");
+            }
+            Set<DynamicObject> transfer = toTransferSet(transferList);
+            Object encoded = SharedMessageCodec.encode(message, transfer);
+            if (!channel.offer(encoded)) {
+                return false;
+            }
+            // The sender cannot touch the buffers between the offer and this point.
+            for (DynamicObject transferred : transfer) {
+                JSArrayBuffer.detachArrayBuffer(transferred);
+            }
+            JSAgentWaiterListEntry wl = JSSharedArrayBuffer.getWaiterList(sharedBuffer).getListForIndex(SharedMessageChannel.WAITER_INDEX);
+            if (!wl.isEmpty()) {
+                JSContext context = getContext();
+                SharedMemorySync.enterCriticalSection(context, wl);
+                try {
+                    List<Integer> waiters = SharedMemorySync.removeWaiters(context, wl, 1);
+                    for (int waiter : waiters) {
+                        SharedMemorySync.wakeWaiter(context, waiter, wl);
+                    }
+                } finally {
+                    SharedMemorySync.leaveCriticalSection(context, wl);
+                }
+            }
+            return true;
+        }
+
+        private static Set<DynamicObject> toTransferSet(Object transferList) {
+            if (transferList == Undefined.instance) {
+                return Collections.emptySet();
+            }
+            if (!JSArray.isJSArray(transferList)) {
+                throw Errors.createTypeError("Transfer list must be an array");
+            }
+            DynamicObject array = (DynamicObject) transferList;
+            long length = JSAbstractArray.arrayGetLength(array);
+            Set<DynamicObject> transfer = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (long i = 0; i < length; i++) {
+                Object item = JSObject.get(array, i);
+                if (!JSArrayBuffer.isJSHeapArrayBuffer(item) && !JSArrayBuffer.isJSDirectArrayBuffer(item)) {
+                    throw Errors.createTypeError("Only ArrayBuffers can be transferred");
+                }
+                if (JSArrayBuffer.isDetachedBuffer((DynamicObject) item)) {
+                    throw Errors.createTypeErrorDetachedBuffer();
+                }
+                if (!transfer.add((DynamicObject) item)) {
+                    throw Errors.createTypeError("ArrayBuffer occurs more than once in the transfer list");
+                }
+            }
+            return transfer;
+        }
+    }
+
+    /**
+     * SharedChannel.receive(sab, timeout): dequeues the next message, waiting up to {@code timeout}
+     * milliseconds (indefinitely if undefined) for one to arrive. Returns undefined on timeout.
+     */
+    public abstract static class SharedChannelReceiveNode extends JSBuiltinNode {
+
+        public SharedChannelReceiveNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @TruffleBoundary
+        @Specialization
+        protected Object receive(Object buffer, Object timeout) {
+            DynamicObject sharedBuffer = toSharedArrayBufferOrThrow(buffer);
+            SharedMessageChannel channel = getChannel(sharedBuffer);
+            JSContext context = getContext();
+            int id = context.getJSAgent().getSignifier();
+            if (!channel.claimConsumer(id)) {
+                throw Errors.createTypeError("SharedChannel is already consumed by another agent");
+            }
+            Object message = channel.poll();
+            if (message == null) {
+                long millis = toTimeout(timeout);
+                if (millis > 0) {
+                    if (!SharedMemorySync.agentCanSuspend(context)) {
+                        throw Errors.createTypeError("Agent cannot suspend");
+                    }
+                    message = waitForMessage(context, channel, sharedBuffer, id, millis);
+                }
+            }
+            return message == null ? Undefined.instance : SharedMessageCodec.decode(context, message);
+        }
+
+        private static long toTimeout(Object timeout) {
+            if (timeout == Undefined.instance) {
+                return Long.MAX_VALUE;
+            }
+            double t = JSRuntime.toDouble(timeout);
+            return Double.isNaN(t) ? Long.MAX_VALUE : (long) Math.max(t, 0);
+        }
+
+        /**
+         * Registers the consumer in the waiter list before checking the queue again, so that a
+         * producer either sees the waiter or its message is seen here.
+         */
+        private static Object waitForMessage(JSContext context, SharedMessageChannel channel, DynamicObject sharedBuffer, int id, long millis) {
+            JSAgentWaiterListEntry wl = JSSharedArrayBuffer.getWaiterList(sharedBuffer).getListForIndex(SharedMessageChannel.WAITER_INDEX);
+            long deadline = millis == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            Object message = null;
+            while (message == null) {
+                long remaining = deadline == Long.MAX_VALUE ? Integer.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    break;
+                }
+                SharedMemorySync.enterCriticalSection(context, wl);
+                try {
+                    SharedMemorySync.addWaiter(context, wl, id);
+                    if (channel.isEmpty()) {
+                        SharedMemorySync.suspendAgent(context, wl, id, (int) Math.min(remaining, Integer.MAX_VALUE));
+                    }
+                    SharedMemorySync.removeWaiter(context, wl, id);
+                } finally {
+                    SharedMemorySync.leaveCriticalSection(context, wl);
+                }
+                message = channel.poll();
+            }
+            return message;
+        }
+    }
+
+    public abstract static class SharedChannelSizeNode extends JSBuiltinNode {
+
+        public SharedChannelSizeNode(JSContext context, JSBuiltin builtin) {
+            super(context, builtin);
+        }
+
+        @TruffleBoundary
+        @Specialization
+        protected Object size(Object buffer) {
+            return getChannel(toSharedArrayBufferOrThrow(buffer)).size();
+        }
+    }
+}
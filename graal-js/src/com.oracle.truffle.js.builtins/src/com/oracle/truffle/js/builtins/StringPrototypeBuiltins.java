@@ -529,6 +529,15 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             }
         }
 
+        @Specialization
+        protected String lazyStringCharAt(JSLazyString thisStr, int pos) {
+            if (indexOutOfBounds.profile(pos < 0 || pos >= thisStr.length())) {
+                return "";
+            } else {
+                return String.valueOf(thisStr.charAt(pos));
+            }
+        }
+
         @Specialization
         protected String charAt(Object thisObj, Object index) {
             requireObjectCoercible(thisObj);
@@ -579,13 +588,11 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
         }
 
         @Specialization
-        protected Object charCodeAtLazyString(JSLazyString thisStr, int index,
-                        @Cached("createBinaryProfile()") ConditionProfile flatten) {
+        protected Object charCodeAtLazyString(JSLazyString thisStr, int index) {
             if (indexOutOfBounds.profile(0 > index || index >= thisStr.length())) {
                 return Double.NaN;
             } else {
-                String s = thisStr.toString(flatten);
-                return Integer.valueOf(s.charAt(index));
+                return Integer.valueOf(thisStr.charAt(index));
             }
         }
 
@@ -668,6 +675,18 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             return substringIntl(thisStr, finalStart, finalEnd);
         }
 
+        @Specialization
+        protected String substringLazyString(JSLazyString thisStr, int start, int end) {
+            int len = thisStr.length();
+            int finalStart = within(start, 0, len);
+            int finalEnd = within(end, 0, len);
+            if (startLowerEnd.profile(finalStart <= finalEnd)) {
+                return thisStr.substring(finalStart, finalEnd);
+            } else {
+                return thisStr.substring(finalEnd, finalStart);
+            }
+        }
+
         private String substringIntl(String thisStr, int start, int end) {
             if (startLowerEnd.profile(start <= end)) {
                 return Boundaries.substring(thisStr, start, end);
@@ -2090,13 +2109,25 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             }
         }
 
-        @Specialization(replaces = "sliceString")
+        @Specialization
+        protected String sliceLazyString(JSLazyString str, int start, int end) {
+            int len = str.length();
+            int istart = JSRuntime.getOffset(start, len, offsetProfile1);
+            int iend = JSRuntime.getOffset(end, len, offsetProfile2);
+            if (canReturnEmpty.profile(iend > istart)) {
+                return str.substring(istart, iend);
+            } else {
+                return "";
+            }
+        }
+
+        @Specialization(replaces = {"sliceString", "sliceLazyString"})
         protected String sliceObject(Object thisObj, int start, int end) {
             requireObjectCoercible(thisObj);
             return sliceString(toString(thisObj), start, end);
         }
 
-        @Specialization(replaces = {"sliceString", "sliceObject"})
+        @Specialization(replaces = {"sliceString", "sliceLazyString", "sliceObject"})
         protected String slice(Object thisObj, Object start, Object end) {
             requireObjectCoercible(thisObj);
             String s = toString(thisObj);
@@ -2140,6 +2171,11 @@ public final class StringPrototypeBuiltins extends JSBuiltinsContainer.SwitchEnu
             return true;
         }
 
+        @Specialization(guards = "isUndefined(position)")
+        protected boolean startsWithLazyString(JSLazyString thisObj, String searchStr, @SuppressWarnings("unused") DynamicObject position) {
+            return thisObj.startsWith(searchStr);
+        }
+
         @Specialization
         protected boolean startsWith(Object thisObj, Object searchString, Object position,
                         @Cached("create()") JSToStringNode toString2Node,
@@ -51,6 +51,8 @@ import com.oracle.truffle.api.interop.Message;
 import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.js.nodes.JSGuards;
 import com.oracle.truffle.js.nodes.JavaScriptBaseNode;
@@ -70,7 +72,9 @@ import com.oracle.truffle.js.runtime.builtins.JSClass;
 import com.oracle.truffle.js.runtime.builtins.JSFunction;
 import com.oracle.truffle.js.runtime.builtins.JSNumber;
 import com.oracle.truffle.js.runtime.builtins.JSString;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.JSProperty;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.truffleinterop.JSInteropNodeUtil;
@@ -89,6 +93,10 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
     @Child private Node isBoxedNode;
     private final BranchProfile sbAppendProfile = BranchProfile.create();
 
+    private static final int PLAN_CACHE_SIZE = 8;
+    private final SerializationPlan[] planCache = new SerializationPlan[PLAN_CACHE_SIZE];
+    private int nextPlanIndex;
+
     protected JSONStringifyStringNode(JSContext context) {
         this.context = context;
     }
@@ -269,6 +277,21 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
         int stepback = data.getIndent();
         int indent = data.getIndent() + 1;
         data.setIndent(indent);
+        boolean hasContent;
+        SerializationPlan plan = getSerializationPlan(data, value);
+        concatStart(builder, '{');
+        if (plan != null) {
+            hasContent = jsonJOWithPlan(builder, data, (DynamicObject) value, plan, indent);
+        } else {
+            hasContent = jsonJOGeneric(builder, data, value, indent);
+        }
+        concatEnd(builder, data, stepback, '}', hasContent);
+
+        data.popStack();
+        data.setIndent(stepback);
+    }
+
+    private boolean jsonJOGeneric(DelimitedStringBuilder builder, JSONData data, TruffleObject value, int indent) {
         List<? extends Object> keys;
         if (data.getPropertyList() == null) {
             if (JSObject.isJSObject(value)) {
@@ -281,8 +304,6 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
         }
         boolean isFirst = true;
         boolean hasContent = false;
-
-        concatStart(builder, '{');
         for (Object key : keys) {
             String name = (String) key;
             Object strPPrepared = jsonStrPrepare(data, name, value);
@@ -302,11 +323,114 @@ public abstract class JSONStringifyStringNode extends JavaScriptBaseNode {
                 hasContent = true;
             }
         }
-        concatEnd(builder, data, stepback, '}', hasContent);
+        return hasContent;
+    }
 
-        data.popStack();
-        data.setIndent(stepback);
+    private boolean jsonJOWithPlan(DelimitedStringBuilder builder, JSONData data, DynamicObject value, SerializationPlan plan, int indent) {
+        boolean isFirst = true;
+        boolean hasContent = false;
+        for (int i = 0; i < plan.properties.length; i++) {
+            Object propertyValue;
+            if (value.getShape() == plan.shape) {
+                propertyValue = plan.properties[i].get(value, plan.shape);
+            } else {
+                // modified by a toJSON function, keep the key list but read the values generically
+                propertyValue = JSObject.get(value, plan.keys[i]);
+            }
+            Object strPPrepared;
+            if (isPrimitiveJSONValue(propertyValue)) {
+                // no toJSON lookup and no replacer function, the value is serialized as is
+                strPPrepared = propertyValue;
+            } else {
+                strPPrepared = jsonStrPreparePart2(data, plan.keys[i], value, propertyValue);
+            }
+            if (isStringifyable(strPPrepared)) {
+                if (isFirst) {
+                    concatFirstStep(builder, data);
+                    isFirst = false;
+                } else {
+                    appendSeparator(builder, data, indent);
+                }
+                builder.append(plan.quotedKeys[i], sbAppendProfile);
+                if (data.getGap().length() > 0) {
+                    builder.append(' ', sbAppendProfile);
+                }
+                jsonStrExecute(builder, data, strPPrepared);
+                hasContent = true;
+            }
+        }
+        return hasContent;
+    }
+
+    private static boolean isPrimitiveJSONValue(Object value) {
+        return value instanceof Integer || value instanceof Double || value instanceof Boolean || value == Null.instance || value == Undefined.instance || JSRuntime.isString(value);
+    }
+
+    /**
+     * Returns the cached serialization plan for the shape of the object, or {@code null} if the
+     * object has to be serialized generically (property list or replacer function given, exotic
+     * objects, accessor properties).
+     */
+    private SerializationPlan getSerializationPlan(JSONData data, TruffleObject value) {
+        if (data.getPropertyList() != null || data.getReplacerFnObj() != null || !JSObject.isJSObject(value)) {
+            return null;
+        }
+        DynamicObject obj = (DynamicObject) value;
+        if (JSObject.getJSClass(obj) != JSUserObject.INSTANCE) {
+            return null;
+        }
+        Shape shape = obj.getShape();
+        for (SerializationPlan plan : planCache) {
+            if (plan != null && plan.shape == shape) {
+                return plan;
+            }
+        }
+        SerializationPlan plan = createSerializationPlan(obj, shape);
+        if (plan != null) {
+            planCache[nextPlanIndex] = plan;
+            nextPlanIndex = (nextPlanIndex + 1) % PLAN_CACHE_SIZE;
+        }
+        return plan;
+    }
+
+    private SerializationPlan createSerializationPlan(DynamicObject obj, Shape shape) {
+        List<String> names = JSObject.enumerableOwnNames(obj);
+        int size = names.size();
+        Property[] properties = new Property[size];
+        String[] keys = new String[size];
+        String[] quotedKeys = new String[size];
+        for (int i = 0; i < size; i++) {
+            String key = names.get(i);
+            Property property = shape.getProperty(key);
+            if (property == null || !JSProperty.isData(property) || JSProperty.isProxy(property)) {
+                return null;
+            }
+            properties[i] = property;
+            keys[i] = key;
+            DelimitedStringBuilder quoted = new DelimitedStringBuilder(key.length() + 3);
+            jsonQuote(quoted, key);
+            quoted.append(':', sbAppendProfile);
+            quotedKeys[i] = quoted.toString();
+        }
+        return new SerializationPlan(shape, properties, keys, quotedKeys);
+    }
 
+    /**
+     * The enumerable own properties of objects of one shape, in serialization order, with their
+     * keys already quoted.
+     */
+    private static final class SerializationPlan {
+        final Shape shape;
+        final Property[] properties;
+        final String[] keys;
+        final String[] quotedKeys;
+
+        SerializationPlan(Shape shape, Property[] properties, String[] keys, String[] quotedKeys) {
+            this.shape = shape;
+            this.properties = properties;
+            this.keys = keys;
+            this.quotedKeys = quotedKeys;
+        }
     }
 
     @TruffleBoundary
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins.helper;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSAgentWaiterList;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.array.TypedArray;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
+import com.oracle.truffle.js.runtime.builtins.JSDataView;
+import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.util.DirectByteBufferHelper;
+
+/**
+ * Converts messages of the {@code SharedChannel} builtins into a context-independent form and
+ * back. Primitive values are passed as they are. Array buffers listed for transfer hand their
+ * backing store over to the receiver; other array buffers are copied when the message is posted.
+ * SharedArrayBuffers keep their memory and their waiter list, so {@code Atomics} operations of
+ * sender and receiver still synchronize with each other. An object that is referenced several
+ * times (including cyclically) is encoded once and decoded into a single object.
+ */
+public final class SharedMessageCodec {
+
+    private SharedMessageCodec() {
+    }
+
+    private static final class BufferData {
+        final Object store;
+        final boolean direct;
+        final JSAgentWaiterList waiterList;
+
+        BufferData(Object store, boolean direct, JSAgentWaiterList waiterList) {
+            this.store = store;
+            this.direct = direct;
+            this.waiterList = waiterList;
+        }
+    }
+
+    private static final class ViewData {
+        final BufferData buffer;
+        /** {@code null} for a DataView. */
+        final TypedArray arrayType;
+        final int offset;
+        final int length;
+
+        ViewData(BufferData buffer, TypedArray arrayType, int offset, int length) {
+            this.buffer = buffer;
+            this.arrayType = arrayType;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class ArrayData {
+        final Object[] elements;
+
+        ArrayData(Object[] elements) {
+            this.elements = elements;
+        }
+    }
+
+    private static final class ObjectData {
+        final String[] keys;
+        final Object[] values;
+
+        ObjectData(String[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Encodes {@code value}. Array buffers contained in {@code transfer} are not copied; the caller
+     * detaches them once the message has been posted.
+     */
+    @TruffleBoundary
+    public static Object encode(Object value, Set<DynamicObject> transfer) {
+        return encodeValue(value, transfer, new IdentityHashMap<>());
+    }
+
+    private static Object encodeValue(Object value, Set<DynamicObject> transfer, Map<DynamicObject, Object> memory) {
+        if (value instanceof Boolean || value instanceof Number || JSRuntime.isBigInt(value)) {
+            return value;
+        } else if (JSRuntime.isString(value)) {
+            return value.toString();
+        } else if (JSRuntime.isNullOrUndefined(value)) {
+            return value;
+        } else if (!JSObject.isDynamicObject(value)) {
+            throw cannotClone(value);
+        }
+        DynamicObject object = (DynamicObject) value;
+        Object encoded = memory.get(object);
+        if (encoded != null) {
+            return encoded;
+        }
+        // arrays and objects are remembered before their contents are encoded, so that cyclic
+        // references resolve to them; buffers and views cannot contain cycles
+        if (JSArrayBuffer.isJSAbstractBuffer(object)) {
+            encoded = encodeBuffer(object, transfer);
+        } else if (JSArrayBufferView.isJSArrayBufferView(object)) {
+            BufferData buffer = (BufferData) encodeValue(JSArrayBufferView.getArrayBuffer(object), transfer, memory);
+            encoded = new ViewData(buffer, JSArrayBufferView.typedArrayGetArrayType(object), JSArrayBufferView.typedArrayGetOffset(object), JSArrayBufferView.typedArrayGetLength(object));
+        } else if (JSDataView.isJSDataView(object)) {
+            BufferData buffer = (BufferData) encodeValue(JSDataView.getArrayBuffer(object), transfer, memory);
+            encoded = new ViewData(buffer, null, JSDataView.typedArrayGetOffset(object), JSDataView.typedArrayGetLength(object));
+        } else if (JSArray.isJSArray(object)) {
+            long length = JSAbstractArray.arrayGetLength(object);
+            if (length > Integer.MAX_VALUE) {
+                throw Errors.createRangeErrorInvalidArrayLength();
+            }
+            Object[] elements = new Object[(int) length];
+            ArrayData data = new ArrayData(elements);
+            memory.put(object, data);
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = encodeValue(JSObject.get(object, i), transfer, memory);
+            }
+            return data;
+        } else if (JSUserObject.isJSUserObject(object)) {
+            List<String> names = JSObject.enumerableOwnNames(object);
+            String[] keys = names.toArray(new String[names.size()]);
+            Object[] values = new Object[keys.length];
+            ObjectData data = new ObjectData(keys, values);
+            memory.put(object, data);
+            for (int i = 0; i < keys.length; i++) {
+                values[i] = encodeValue(JSObject.get(object, keys[i]), transfer, memory);
+            }
+            return data;
+        } else {
+            throw cannotClone(object);
+        }
+        memory.put(object, encoded);
+        return encoded;
+    }
+
+    private static BufferData encodeBuffer(DynamicObject buffer, Set<DynamicObject> transfer) {
+        if (JSSharedArrayBuffer.isJSSharedArrayBuffer(buffer)) {
+            return new BufferData(JSSharedArrayBuffer.getDirectByteBuffer(buffer), true, JSSharedArrayBuffer.getWaiterList(buffer));
+        }
+        if (JSArrayBuffer.isDetachedBuffer(buffer)) {
+            throw Errors.createTypeErrorDetachedBuffer();
+        }
+        boolean transferred = transfer.contains(buffer);
+        if (JSArrayBuffer.isJSDirectArrayBuffer(buffer)) {
+            ByteBuffer store = JSArrayBuffer.getDirectByteBuffer(buffer);
+            if (!transferred) {
+                ByteBuffer source = store.duplicate();
+                source.clear();
+                store = DirectByteBufferHelper.allocateDirect(source.capacity());
+                store.put(source).clear();
+            }
+            return new BufferData(store, true, null);
+        } else {
+            byte[] store = JSArrayBuffer.getByteArray(buffer);
+            return new BufferData(transferred ? store : store.clone(), false, null);
+        }
+    }
+
+    /**
+     * Creates the objects of an encoded message in the current realm of {@code context}.
+     */
+    @TruffleBoundary
+    public static Object decode(JSContext context, Object encoded) {
+        return decodeValue(context, encoded, new IdentityHashMap<>());
+    }
+
+    private static Object decodeValue(JSContext context, Object encoded, Map<Object, DynamicObject> memory) {
+        if (!(encoded instanceof BufferData || encoded instanceof ViewData || encoded instanceof ArrayData || encoded instanceof ObjectData)) {
+            return encoded;
+        }
+        DynamicObject object = memory.get(encoded);
+        if (object != null) {
+            return object;
+        }
+        if (encoded instanceof BufferData) {
+            BufferData buffer = (BufferData) encoded;
+            if (buffer.waiterList != null) {
+                object = JSSharedArrayBuffer.createSharedArrayBuffer(context, (ByteBuffer) buffer.store);
+                JSSharedArrayBuffer.setWaiterList(object, buffer.waiterList);
+            } else if (buffer.direct) {
+                object = JSArrayBuffer.createDirectArrayBuffer(context, (ByteBuffer) buffer.store);
+            } else {
+                object = JSArrayBuffer.createArrayBuffer(context, (byte[]) buffer.store);
+            }
+        } else if (encoded instanceof ViewData) {
+            ViewData view = (ViewData) encoded;
+            DynamicObject buffer = (DynamicObject) decodeValue(context, view.buffer, memory);
+            if (view.arrayType == null) {
+                object = JSDataView.createDataView(context, buffer, view.offset, view.length);
+            } else {
+                object = JSArrayBufferView.createArrayBufferView(context, buffer, view.arrayType, view.offset, view.length);
+            }
+        } else if (encoded instanceof ArrayData) {
+            Object[] elements = ((ArrayData) encoded).elements;
+            object = JSArray.createEmptyZeroLength(context);
+            memory.put(encoded, object);
+            for (int i = 0; i < elements.length; i++) {
+                JSObject.set(object, i, decodeValue(context, elements[i], memory));
+            }
+            return object;
+        } else {
+            ObjectData data = (ObjectData) encoded;
+            object = JSUserObject.create(context);
+            memory.put(encoded, object);
+            for (int i = 0; i < data.keys.length; i++) {
+                JSRuntime.createDataPropertyOrThrow(object, data.keys[i], decodeValue(context, data.values[i], memory));
+            }
+            return object;
+        }
+        memory.put(encoded, object);
+        return object;
+    }
+
+    private static RuntimeException cannotClone(Object value) {
+        return Errors.createTypeError(JSRuntime.safeToString(value) + " could not be cloned");
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins.helper;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.JSTruffleOptions;
+import com.oracle.truffle.js.runtime.array.ScriptArray;
+import com.oracle.truffle.js.runtime.array.TypedArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractConstantArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractDoubleArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractIntArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractJSObjectArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractObjectArray;
+import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBufferView;
+import com.oracle.truffle.js.runtime.builtins.JSBigInt;
+import com.oracle.truffle.js.runtime.builtins.JSBoolean;
+import com.oracle.truffle.js.runtime.builtins.JSDataView;
+import com.oracle.truffle.js.runtime.builtins.JSDate;
+import com.oracle.truffle.js.runtime.builtins.JSMap;
+import com.oracle.truffle.js.runtime.builtins.JSNumber;
+import com.oracle.truffle.js.runtime.builtins.JSRegExp;
+import com.oracle.truffle.js.runtime.builtins.JSSet;
+import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
+import com.oracle.truffle.js.runtime.builtins.JSString;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.JSShape;
+import com.oracle.truffle.js.runtime.util.DirectByteBufferHelper;
+import com.oracle.truffle.js.runtime.util.JSHashMap;
+
+/**
+ * In-memory implementation of the structured clone algorithm for copying object graphs between
+ * realms of the same {@link JSContext}. Unlike a round trip through the value serializer, no
+ * intermediate byte representation is produced: primitive values are shared, the backing arrays
+ * of fast arrays and array buffers are copied in bulk, and the property names of plain objects
+ * are taken from the key list cached in their shape, so that all clones of one shape follow the
+ * same shape transitions in the target realm.
+ */
+public final class StructuredClone {
+
+    private final JSContext context;
+    private final JSRealm targetRealm;
+    private final Map<DynamicObject, DynamicObject> memory = new IdentityHashMap<>();
+
+    private StructuredClone(JSRealm targetRealm) {
+        this.context = targetRealm.getContext();
+        this.targetRealm = targetRealm;
+    }
+
+    /**
+     * Copies {@code value} into {@code targetRealm}. Objects reachable from {@code value} are
+     * copied at most once, so cycles and shared references are preserved in the copy.
+     */
+    @TruffleBoundary
+    public static Object clone(Object value, JSRealm targetRealm) {
+        if (!JSObject.isDynamicObject(value)) {
+            return new StructuredClone(targetRealm).cloneValue(value);
+        }
+        Object prev = targetRealm.getTruffleContext().enter();
+        try {
+            return new StructuredClone(targetRealm).cloneValue(value);
+        } finally {
+            targetRealm.getTruffleContext().leave(prev);
+        }
+    }
+
+    private Object cloneValue(Object value) {
+        if (JSObject.isDynamicObject(value)) {
+            if (JSRuntime.isObject(value)) {
+                return cloneObject((DynamicObject) value);
+            }
+            return value; // undefined, null
+        } else if (value instanceof Boolean || value instanceof Number || JSRuntime.isString(value) || JSRuntime.isBigInt(value)) {
+            return value;
+        }
+        throw cannotClone(value);
+    }
+
+    private DynamicObject cloneObject(DynamicObject object) {
+        DynamicObject copy = memory.get(object);
+        if (copy != null) {
+            return copy;
+        }
+        if (JSArray.isJSArray(object)) {
+            return cloneArray(object);
+        } else if (JSUserObject.isJSUserObject(object)) {
+            copy = register(object, JSUserObject.create(context, targetRealm));
+            copyProperties(object, copy, JSObject.enumerableOwnNames(object));
+            return copy;
+        } else if (JSDate.isJSDate(object)) {
+            return register(object, JSDate.create(context, JSDate.getTimeMillisField(object)));
+        } else if (JSBoolean.isJSBoolean(object)) {
+            return register(object, JSBoolean.create(context, JSBoolean.valueOf(object)));
+        } else if (JSNumber.isJSNumber(object)) {
+            return register(object, JSNumber.create(context, JSNumber.valueOf(object)));
+        } else if (JSString.isJSString(object)) {
+            return register(object, JSString.create(context, JSString.getCharSequence(object)));
+        } else if (JSBigInt.isJSBigInt(object)) {
+            return register(object, JSBigInt.create(context, JSBigInt.valueOf(object)));
+        } else if (JSRegExp.isJSRegExp(object)) {
+            return register(object, JSRegExp.create(context, JSRegExp.getCompiledRegex(object)));
+        } else if (JSMap.isJSMap(object)) {
+            return cloneMap(object);
+        } else if (JSSet.isJSSet(object)) {
+            return cloneSet(object);
+        } else if (JSArrayBuffer.isJSAbstractBuffer(object)) {
+            return cloneArrayBuffer(object);
+        } else if (JSArrayBufferView.isJSArrayBufferView(object)) {
+            DynamicObject buffer = cloneArrayBuffer(JSArrayBufferView.getArrayBuffer(object));
+            TypedArray arrayType = JSArrayBufferView.typedArrayGetArrayType(object);
+            int offset = JSArrayBufferView.typedArrayGetOffset(object);
+            int length = JSArrayBufferView.typedArrayGetLength(object);
+            return register(object, JSArrayBufferView.createArrayBufferView(context, buffer, arrayType, offset, length));
+        } else if (JSDataView.isJSDataView(object)) {
+            DynamicObject buffer = cloneArrayBuffer(JSDataView.getArrayBuffer(object));
+            int offset = JSDataView.typedArrayGetOffset(object);
+            int length = JSDataView.typedArrayGetLength(object);
+            return register(object, JSDataView.createDataView(context, buffer, offset, length));
+        }
+        throw cannotClone(object);
+    }
+
+    private DynamicObject register(DynamicObject original, DynamicObject copy) {
+        memory.put(original, copy);
+        return copy;
+    }
+
+    private DynamicObject cloneArray(DynamicObject array) {
+        if (JSArray.isJSFastArray(array)) {
+            ScriptArray arrayType = JSAbstractArray.arrayGetArrayType(array);
+            if (!arrayType.isSealed() && !arrayType.isLengthNotWritable()) {
+                DynamicObject copy = cloneArrayStorage(array, arrayType);
+                if (copy != null) {
+                    copyProperties(array, copy, getEnumerableNonIndexNames(array));
+                    return copy;
+                }
+            }
+        }
+        DynamicObject copy = register(array, JSArray.createEmptyChecked(context, JSAbstractArray.arrayGetLength(array)));
+        copyProperties(array, copy, JSObject.enumerableOwnNames(array));
+        return copy;
+    }
+
+    /**
+     * Copies the backing array of a fast array in one step and creates the clone with the same
+     * (realm-independent) array type. Elements of object arrays are cloned in place afterwards.
+     */
+    private DynamicObject cloneArrayStorage(DynamicObject array, ScriptArray arrayType) {
+        Object storage = JSAbstractArray.arrayGetArray(array);
+        Object storageCopy;
+        boolean objectElements = false;
+        if (storage instanceof int[] && (arrayType instanceof AbstractIntArray || arrayType instanceof AbstractConstantArray)) {
+            storageCopy = ((int[]) storage).clone();
+        } else if (storage instanceof double[] && (arrayType instanceof AbstractDoubleArray || arrayType instanceof AbstractConstantArray)) {
+            storageCopy = ((double[]) storage).clone();
+        } else if (storage instanceof byte[] && arrayType instanceof AbstractConstantArray) {
+            storageCopy = ((byte[]) storage).clone();
+        } else if (storage instanceof Object[] && (arrayType instanceof AbstractObjectArray || arrayType instanceof AbstractJSObjectArray || arrayType instanceof AbstractConstantArray)) {
+            storageCopy = ((Object[]) storage).clone();
+            objectElements = true;
+        } else {
+            return null;
+        }
+        DynamicObject copy = register(array, JSArray.create(context, arrayType, storageCopy, JSAbstractArray.arrayGetLength(array), JSAbstractArray.arrayGetUsedLength(array),
+                        (int) JSAbstractArray.arrayGetIndexOffset(array), JSAbstractArray.arrayGetArrayOffset(array), JSAbstractArray.arrayGetHoleCount(array)));
+        if (objectElements) {
+            Object[] elements = (Object[]) storageCopy;
+            for (int i = 0; i < elements.length; i++) {
+                Object element = elements[i];
+                if (element != null) {
+                    elements[i] = cloneValue(element);
+                }
+            }
+        }
+        return copy;
+    }
+
+    private DynamicObject cloneMap(DynamicObject map) {
+        DynamicObject copy = register(map, JSMap.create(context));
+        JSHashMap target = JSMap.getInternalMap(copy);
+        JSHashMap.Cursor cursor = JSMap.getInternalMap(map).getEntries();
+        while (cursor.advance()) {
+            target.put(cloneValue(cursor.getKey()), cloneValue(cursor.getValue()));
+        }
+        return copy;
+    }
+
+    private DynamicObject cloneSet(DynamicObject set) {
+        DynamicObject copy = register(set, JSSet.create(context));
+        JSHashMap target = JSSet.getInternalSet(copy);
+        JSHashMap.Cursor cursor = JSSet.getInternalSet(set).getEntries();
+        while (cursor.advance()) {
+            Object key = cloneValue(cursor.getKey());
+            target.put(key, key);
+        }
+        return copy;
+    }
+
+    private DynamicObject cloneArrayBuffer(DynamicObject buffer) {
+        DynamicObject copy = memory.get(buffer);
+        if (copy != null) {
+            return copy;
+        }
+        if (JSSharedArrayBuffer.isJSSharedArrayBuffer(buffer)) {
+            // shared memory is shared with the target realm, not copied
+            return register(buffer, JSSharedArrayBuffer.createSharedArrayBuffer(context, JSSharedArrayBuffer.getDirectByteBuffer(buffer)));
+        } else if (JSArrayBuffer.isDetachedBuffer(buffer)) {
+            throw Errors.createTypeError("An ArrayBuffer is detached and could not be cloned");
+        } else if (JSArrayBuffer.isJSDirectArrayBuffer(buffer)) {
+            ByteBuffer source = JSArrayBuffer.getDirectByteBuffer(buffer).duplicate();
+            source.clear();
+            ByteBuffer target = DirectByteBufferHelper.allocateDirect(source.capacity());
+            target.put(source).clear();
+            return register(buffer, JSArrayBuffer.createDirectArrayBuffer(context, target));
+        } else {
+            return register(buffer, JSArrayBuffer.createArrayBuffer(context, JSArrayBuffer.getByteArray(buffer).clone()));
+        }
+    }
+
+    private static List<String> getEnumerableNonIndexNames(DynamicObject array) {
+        if (JSTruffleOptions.FastOwnKeys) {
+            // elements of fast arrays are not part of the shape
+            return JSShape.getEnumerablePropertyNames(array.getShape());
+        }
+        List<String> names = JSObject.enumerableOwnNames(array);
+        names.removeIf(JSRuntime::isArrayIndex);
+        return names;
+    }
+
+    private void copyProperties(DynamicObject source, DynamicObject target, List<String> names) {
+        for (String name : names) {
+            JSRuntime.createDataPropertyOrThrow(target, name, cloneValue(JSObject.get(source, name)));
+        }
+    }
+
+    /**
+     * There is no DOMException in the engine, so DataCloneErrors are reported as TypeErrors.
+     */
+    private static RuntimeException cannotClone(Object value) {
+        return Errors.createTypeError(JSRuntime.safeToString(value) + " could not be cloned");
+    }
+}
@@ -40,16 +40,21 @@
  */
 package com.oracle.truffle.js.builtins.helper;
 
+import java.util.Arrays;
+
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSException;
 import com.oracle.truffle.js.runtime.JSRuntime;
-import com.oracle.truffle.js.runtime.array.ScriptArray;
-import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
 import com.oracle.truffle.js.runtime.builtins.JSArray;
 import com.oracle.truffle.js.runtime.builtins.JSUserObject;
+import com.oracle.truffle.js.runtime.objects.JSAttributes;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
 import com.oracle.truffle.js.runtime.objects.Null;
 
 public class TruffleJSONParser {
@@ -59,21 +64,50 @@ public class TruffleJSONParser {
     protected int len;
     protected String parseStr;
     protected int parseDepth;
+    /**
+     * Start of the string or number token being scanned, or -1. Input before this position (and
+     * before {@link #pos}) is not accessed again.
+     */
+    protected int tokenStart;
 
     protected static final char[] NullLiteral = new char[]{'n', 'u', 'l', 'l'};
     protected static final char[] BooleanTrueLiteral = new char[]{'t', 'r', 'u', 'e'};
     protected static final char[] BooleanFalseLiteral = new char[]{'f', 'a', 'l', 's', 'e'};
     protected static final int MAX_PARSE_DEPTH = 100000;
 
+    private static final int SHAPE_CACHE_MAX_DEPTH = 8;
+    private static final int SHAPE_CACHE_MAX_MEMBERS = 32;
+
+    /**
+     * Shapes reached while parsing the most recent object at each nesting depth:
+     * {@code memberShapes[depth - 1][i]} is the shape after adding the i-th member. Objects with
+     * the same keys in the same order (e.g. a list of records) then move directly from one shape to
+     * the next, without a transition lookup. Kept across parses.
+     */
+    private final Shape[][] memberShapes = new Shape[SHAPE_CACHE_MAX_DEPTH][];
+
     public TruffleJSONParser(JSContext context) {
         this.context = context;
     }
 
     public Object parse(String value) {
-        this.pos = 0;
-        this.parseDepth = 0;
         this.parseStr = value;
         this.len = parseStr.length();
+        try {
+            return parseInput();
+        } finally {
+            parseStr = null;
+        }
+    }
+
+    /**
+     * Parses the whole input, which is accessed only through {@link #get(int)},
+     * {@link #isValidPos(int)} and {@link #substring(int, int)}.
+     */
+    protected final Object parseInput() {
+        this.pos = 0;
+        this.parseDepth = 0;
+        this.tokenStart = -1;
         try {
             skipWhitespace();
             Object result = parseJSONText();
@@ -90,8 +124,6 @@ public class TruffleJSONParser {
             throwSyntaxError(unexpectedEndOfInputMessage());
         } catch (Exception ex) {
             throwSyntaxError(null);
-        } finally {
-            parseStr = null;
         }
         return null;
     }
@@ -155,12 +187,51 @@ public class TruffleJSONParser {
     }
 
     private void parseJSONMemberList(DynamicObject object) {
+        Shape[] shapes = getMemberShapes();
+        int index = 0;
         Member member = parseJSONMember();
-        JSRuntime.createDataProperty(object, member.getKey(), member.getValue());
+        addMember(object, member, shapes, index++);
         while (get() == ',') {
             read();
             member = parseJSONMember();
-            JSRuntime.createDataProperty(object, member.getKey(), member.getValue());
+            addMember(object, member, shapes, index++);
+        }
+    }
+
+    private Shape[] getMemberShapes() {
+        if (parseDepth > SHAPE_CACHE_MAX_DEPTH) {
+            return null;
+        }
+        Shape[] shapes = memberShapes[parseDepth - 1];
+        if (shapes == null) {
+            shapes = new Shape[SHAPE_CACHE_MAX_MEMBERS];
+            memberShapes[parseDepth - 1] = shapes;
+        }
+        return shapes;
+    }
+
+    private void addMember(DynamicObject object, Member member, Shape[] shapes, int index) {
+        String key = member.getKey();
+        Object value = member.getValue();
+        if (shapes == null || index >= shapes.length) {
+            JSRuntime.createDataProperty(object, key, value);
+            return;
+        }
+        Shape oldShape = object.getShape();
+        Shape newShape = shapes[index];
+        if (newShape != null && newShape.getParent() == oldShape && newShape.isValid()) {
+            Property property = newShape.getLastProperty();
+            if (property.getKey().equals(key) && property.getLocation().canStore(value)) {
+                property.setSafe(object, value, oldShape, newShape);
+                return;
+            }
+        }
+        if (oldShape.hasProperty(key)) {
+            // duplicate key, the last value wins
+            JSRuntime.createDataProperty(object, key, value);
+        } else {
+            JSObjectUtil.putDataProperty(context, object, key, value, JSAttributes.getDefault());
+            shapes[index] = object.getShape();
         }
     }
 
@@ -175,12 +246,14 @@ public class TruffleJSONParser {
         assert isArray(get());
         incDepth();
         read(); // parseJSONValue ensures this is a "["
-        DynamicObject array = JSArray.createEmptyZeroLength(context);
+        DynamicObject array;
         if (get() != ']') {
-            parseJSONElementList(array);
+            array = parseJSONElementList();
             if (get() != ']') {
                 error("closing quote ] expected");
             }
+        } else {
+            array = JSArray.createEmptyZeroLength(context);
         }
         read(']');
         decDepth();
@@ -206,17 +279,14 @@ public class TruffleJSONParser {
         this.parseDepth--;
     }
 
-    protected ScriptArray parseJSONElementList(DynamicObject arrayObject) {
-        int index = 0;
-        ScriptArray scriptArray = JSAbstractArray.arrayGetArrayType(arrayObject);
-        scriptArray = scriptArray.setElement(arrayObject, index, parseJSONValue(), false);
+    protected DynamicObject parseJSONElementList() {
+        ElementList elements = new ElementList();
+        elements.add(parseJSONValue());
         while (get() == ',') {
             read();
-            index++;
-            scriptArray = scriptArray.setElement(arrayObject, index, parseJSONValue(), false);
+            elements.add(parseJSONValue());
         }
-        JSAbstractArray.arraySetArrayType(arrayObject, scriptArray);
-        return scriptArray;
+        return elements.toArray(context);
     }
 
     protected String parseJSONString() {
@@ -238,6 +308,7 @@ public class TruffleJSONParser {
 
     protected String parseJSONStringCharacters() {
         int startPos = pos;
+        tokenStart = startPos;
         boolean hasEscapes = false;
         boolean curIsEscaped = false;
         char c = get();
@@ -253,7 +324,8 @@ public class TruffleJSONParser {
             pos++; // don't skip whitespace here
             c = get();
         }
-        String s = parseStr.substring(startPos, pos);
+        String s = substring(startPos, pos);
+        tokenStart = -1;
         if (hasEscapes) {
             return unquoteJSON(s);
         } else {
@@ -343,6 +415,7 @@ public class TruffleJSONParser {
             error("malformed number");
         }
         int startPos = pos;
+        tokenStart = startPos;
         int fractionPos = -1;
         boolean firstPosIsZero = false;
         char c = get();
@@ -365,7 +438,7 @@ public class TruffleJSONParser {
             error("Expected number but found ident");
         } else if (firstPosIsZero) {
             // "0" should be parsable, but "08" not
-            if ((startPos + 1) < len) {
+            if (isValidPos(startPos + 1)) {
                 c = get(startPos + 1);
                 if (c == 'x' || c == 'X' || JSRuntime.isAsciiDigit(c)) {
                     error("octal and hexadecimal not allowed");
@@ -384,7 +457,8 @@ public class TruffleJSONParser {
             pos++; // reads the "E" without skipping whitespace
             exponent = readDigits();
         }
-        valueStr = parseStr.substring(startPos, pos);
+        valueStr = substring(startPos, pos);
+        tokenStart = -1;
         skipWhitespace(); // after the number
 
         if (fractionPos >= 0) {
@@ -442,7 +516,7 @@ public class TruffleJSONParser {
         if (pos == startPos) {
             error("Expected number but found ident");
         }
-        return sign * Integer.parseInt(parseStr.substring(startPos, pos));
+        return sign * Integer.parseInt(substring(startPos, pos));
     }
 
     protected boolean isExponentPart() {
@@ -503,15 +577,19 @@ public class TruffleJSONParser {
         return parseStr.charAt(posParam);
     }
 
+    protected String substring(int beginPos, int endPos) {
+        return parseStr.substring(beginPos, endPos);
+    }
+
     protected void read() {
-        assert len > pos;
+        assert isValidPos(pos);
         pos++;
         skipWhitespace();
     }
 
     protected void read(String expected) {
-        assert len >= pos + expected.length();
-        assert parseStr.substring(pos, pos + expected.length()).equals(expected);
+        assert isValidPos(pos + expected.length() - 1);
+        assert substring(pos, pos + expected.length()).equals(expected);
         pos += expected.length();
         skipWhitespace();
     }
@@ -531,11 +609,15 @@ public class TruffleJSONParser {
     }
 
     protected boolean posValid() {
-        return pos < len;
+        return isValidPos(pos);
+    }
+
+    protected boolean isValidPos(int posParam) {
+        return posParam < len;
     }
 
     protected boolean isLiteral(char[] literal) {
-        if (len < pos + literal.length) {
+        if (!isValidPos(pos + literal.length - 1)) {
             return false;
         }
         // fastpath for the cached current character
@@ -550,6 +632,74 @@ public class TruffleJSONParser {
         return true;
     }
 
+    /**
+     * Collects array elements in the most specific representation seen so far (int, double, object
+     * or JS object), so that the array is created directly with its final array type.
+     */
+    private static final class ElementList {
+        private int[] ints = new int[8];
+        private double[] doubles;
+        private Object[] objects;
+        private boolean allJSObjects;
+        private int size;
+
+        void add(Object value) {
+            if (ints != null) {
+                if (value instanceof Integer) {
+                    if (size == ints.length) {
+                        ints = Arrays.copyOf(ints, size * 2);
+                    }
+                    ints[size++] = (Integer) value;
+                    return;
+                } else if (value instanceof Double) {
+                    doubles = new double[ints.length];
+                    for (int i = 0; i < size; i++) {
+                        doubles[i] = ints[i];
+                    }
+                } else {
+                    objects = new Object[ints.length];
+                    for (int i = 0; i < size; i++) {
+                        objects[i] = ints[i];
+                    }
+                    allJSObjects = size == 0;
+                }
+                ints = null;
+            }
+            if (doubles != null) {
+                if (value instanceof Integer || value instanceof Double) {
+                    if (size == doubles.length) {
+                        doubles = Arrays.copyOf(doubles, size * 2);
+                    }
+                    doubles[size++] = ((Number) value).doubleValue();
+                    return;
+                }
+                objects = new Object[doubles.length];
+                for (int i = 0; i < size; i++) {
+                    objects[i] = doubles[i];
+                }
+                allJSObjects = false;
+                doubles = null;
+            }
+            if (size == objects.length) {
+                objects = Arrays.copyOf(objects, size * 2);
+            }
+            allJSObjects = allJSObjects && JSObject.isDynamicObject(value);
+            objects[size++] = value;
+        }
+
+        DynamicObject toArray(JSContext context) {
+            if (ints != null) {
+                return JSArray.createZeroBasedIntArray(context, Arrays.copyOf(ints, size));
+            } else if (doubles != null) {
+                return JSArray.createZeroBasedDoubleArray(context, Arrays.copyOf(doubles, size));
+            } else if (allJSObjects) {
+                return JSArray.createZeroBasedJSObjectArray(context, Arrays.copyOf(objects, size, DynamicObject[].class));
+            } else {
+                return JSArray.createZeroBasedObjectArray(context, Arrays.copyOf(objects, size));
+            }
+        }
+    }
+
     protected final class Member {
         private final String key;
         private final Object value;
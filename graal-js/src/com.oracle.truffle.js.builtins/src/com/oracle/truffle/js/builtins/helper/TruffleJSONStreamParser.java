@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.builtins.helper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+
+/**
+ * {@link TruffleJSONParser} that consumes its input incrementally from a {@link Reader} or from
+ * UTF-8 encoded bytes, so that large inputs never have to be materialized as a {@link String}.
+ * Only the input from the start of the current token on is kept in memory.
+ */
+public class TruffleJSONStreamParser extends TruffleJSONParser {
+
+    private static final int BUFFER_SIZE = 8192;
+    /** Minimum free space for a read, so that a surrogate pair always fits. */
+    private static final int MIN_READ = 2;
+
+    private Reader reader;
+    private char[] buffer;
+    /** Input position of {@code buffer[0]}. */
+    private int bufferStart;
+    /** Input position after the last character read into the buffer. */
+    private int bufferEnd;
+    private boolean endOfInput;
+
+    public TruffleJSONStreamParser(JSContext context) {
+        super(context);
+    }
+
+    /**
+     * Parses UTF-8 encoded JSON text between the position and the limit of the buffer. The
+     * position of the buffer is not modified.
+     */
+    @TruffleBoundary
+    public Object parse(ByteBuffer utf8) {
+        return parse(new UTF8ByteBufferReader(utf8.duplicate()));
+    }
+
+    @TruffleBoundary
+    public Object parse(Reader input) {
+        this.reader = input;
+        this.buffer = new char[BUFFER_SIZE];
+        this.bufferStart = 0;
+        this.bufferEnd = 0;
+        this.endOfInput = false;
+        try {
+            return parseInput();
+        } finally {
+            reader = null;
+            buffer = null;
+        }
+    }
+
+    @Override
+    protected char get(int posParam) {
+        if (posParam >= bufferEnd && !fill(posParam)) {
+            throw new StringIndexOutOfBoundsException(posParam);
+        }
+        return buffer[posParam - bufferStart];
+    }
+
+    @Override
+    protected String substring(int beginPos, int endPos) {
+        if (endPos > bufferEnd && !fill(endPos - 1)) {
+            throw new StringIndexOutOfBoundsException(endPos);
+        }
+        return new String(buffer, beginPos - bufferStart, endPos - beginPos);
+    }
+
+    @Override
+    protected boolean isValidPos(int posParam) {
+        return posParam < bufferEnd || fill(posParam);
+    }
+
+    @Override
+    protected Object error(String message) {
+        // the input cannot be re-parsed for a better message
+        throw Errors.createSyntaxError("Invalid JSON: " + message + " at position " + pos);
+    }
+
+    /**
+     * Reads input until the character at {@code posParam} is buffered. Input before the current
+     * token is dropped from the buffer first.
+     */
+    private boolean fill(int posParam) {
+        while (posParam >= bufferEnd) {
+            if (endOfInput) {
+                return false;
+            }
+            int keep = tokenStart >= 0 ? Math.min(tokenStart, pos) : pos;
+            if (keep > bufferStart) {
+                System.arraycopy(buffer, keep - bufferStart, buffer, 0, bufferEnd - keep);
+                bufferStart = keep;
+            }
+            int used = bufferEnd - bufferStart;
+            if (buffer.length - used < MIN_READ) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int count;
+            try {
+                count = reader.read(buffer, used, buffer.length - used);
+            } catch (CharacterCodingException ex) {
+                throw Errors.createSyntaxError("Invalid UTF-8 in JSON input");
+            } catch (IOException ex) {
+                throw Errors.createError("Cannot read JSON input: " + ex.getMessage());
+            }
+            if (count < 0) {
+                endOfInput = true;
+            } else {
+                bufferEnd += count;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes UTF-8 bytes from a {@link ByteBuffer} on demand.
+     */
+    private static final class UTF8ByteBufferReader extends Reader {
+        private final ByteBuffer in;
+        private final CharsetDecoder decoder;
+        private boolean flushed;
+        /** Low surrogate of a pair that did not fit into the previous read, or 0. */
+        private char pendingLowSurrogate;
+
+        UTF8ByteBufferReader(ByteBuffer in) {
+            this.in = in;
+            this.decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int count = 0;
+            if (pendingLowSurrogate != 0) {
+                cbuf[off] = pendingLowSurrogate;
+                pendingLowSurrogate = 0;
+                count = 1;
+            }
+            if (count < len && !flushed) {
+                CharBuffer out = CharBuffer.wrap(cbuf, off + count, len - count);
+                decode(out);
+                count = out.position() - off;
+                if (count == 0 && !flushed) {
+                    // a single free char cannot hold a surrogate pair: return its first half
+                    CharBuffer pair = CharBuffer.allocate(2);
+                    decode(pair);
+                    pair.flip();
+                    if (pair.hasRemaining()) {
+                        cbuf[off] = pair.get();
+                        count = 1;
+                        if (pair.hasRemaining()) {
+                            pendingLowSurrogate = pair.get();
+                        }
+                    }
+                }
+            }
+            // only report the end of input once all bytes have been decoded
+            return count == 0 && flushed ? -1 : count;
+        }
+
+        private void decode(CharBuffer out) throws CharacterCodingException {
+            CoderResult result = decoder.decode(in, out, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (!in.hasRemaining()) {
+                result = decoder.flush(out);
+                if (!result.isOverflow()) {
+                    flushed = true;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -288,14 +288,16 @@ public class JSNodeDecoder {
                     }
                     JSFunctionData functionData = (JSFunctionData) state.getObject();
                     final Object[] arguments = getObjectArray(state);
+                    // the function body is only decoded on first call; until then, we only keep
+                    // its offset into the (possibly memory-mapped) snapshot buffer.
+                    final ByteBuffer snapshot = state.getBuffer();
                     functionData.setLazyInit(new JSFunctionData.Initializer() {
-                        private final ByteBuffer buffer = ((ByteBuffer) state.getBuffer().duplicate().position(position));
-
                         @Override
                         public void initializeRoot(JSFunctionData fd) {
                             if (VERBOSE) {
                                 System.out.println("Decoding: " + fd.getName());
                             }
+                            ByteBuffer buffer = (ByteBuffer) snapshot.duplicate().position(position);
                             NodeDecoder.DecoderState extracted = new NodeDecoder.DecoderState(new BinaryDecoder(buffer), arguments);
                             decodeNode(extracted, nodeFactory, context, source);
                         }
@@ -66,6 +66,7 @@ import com.oracle.truffle.js.runtime.interop.JavaImporter;
 import com.oracle.truffle.js.runtime.interop.JavaMember;
 import com.oracle.truffle.js.runtime.interop.JavaPackage;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.PropertyLookupCache;
 import com.oracle.truffle.js.runtime.truffleinterop.JSInteropNodeUtil;
 import com.oracle.truffle.js.runtime.util.JSClassProfile;
 
@@ -77,7 +78,7 @@ public abstract class HasPropertyCacheNode extends PropertyCacheNode<HasProperty
         if (JSTruffleOptions.PropertyCacheLimit > 0) {
             return new UninitializedHasPropertyCacheNode(key, context, hasOwnProperty);
         } else {
-            return createGeneric(key, hasOwnProperty);
+            return createGeneric(key, context, hasOwnProperty);
         }
     }
 
@@ -275,18 +276,23 @@ public abstract class HasPropertyCacheNode extends PropertyCacheNode<HasProperty
     public static final class GenericHasPropertyCacheNode extends TerminalPropertyGetNode {
         private final JSClassProfile jsclassProfile = JSClassProfile.create();
         private final boolean hasOwnProperty;
+        private final PropertyLookupCache lookupCache;
 
-        public GenericHasPropertyCacheNode(Object key, boolean hasOwnProperty) {
+        public GenericHasPropertyCacheNode(Object key, JSContext context, boolean hasOwnProperty) {
             super(key);
             this.hasOwnProperty = hasOwnProperty;
+            this.lookupCache = context.getPropertyLookupCache();
         }
 
         @Override
         public boolean hasProperty(Object thisObj) {
-            if (hasOwnProperty) {
-                return JSObject.hasOwnProperty((DynamicObject) thisObj, key, jsclassProfile);
+            DynamicObject thisJSObj = (DynamicObject) thisObj;
+            if (lookupCache != null && PropertyLookupCache.isCacheableClass(jsclassProfile.getJSClass(thisJSObj))) {
+                return lookupCache.hasProperty(thisJSObj, key, hasOwnProperty);
+            } else if (hasOwnProperty) {
+                return JSObject.hasOwnProperty(thisJSObj, key, jsclassProfile);
             } else {
-                return JSObject.hasProperty((DynamicObject) thisObj, key, jsclassProfile);
+                return JSObject.hasProperty(thisJSObj, key, jsclassProfile);
             }
         }
 
@@ -491,11 +497,11 @@ public abstract class HasPropertyCacheNode extends PropertyCacheNode<HasProperty
      */
     @Override
     protected HasPropertyCacheNode createGenericPropertyNode(JSContext context) {
-        return createGeneric(key, isOwnProperty());
+        return createGeneric(key, context, isOwnProperty());
     }
 
-    private static HasPropertyCacheNode createGeneric(Object key, boolean hasOwnProperty) {
-        return new GenericHasPropertyCacheNode(key, hasOwnProperty);
+    private static HasPropertyCacheNode createGeneric(Object key, JSContext context, boolean hasOwnProperty) {
+        return new GenericHasPropertyCacheNode(key, context, hasOwnProperty);
     }
 
     protected boolean isMethod() {
@@ -122,6 +122,7 @@ import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSProperty;
 import com.oracle.truffle.js.runtime.objects.JSShape;
 import com.oracle.truffle.js.runtime.objects.Null;
+import com.oracle.truffle.js.runtime.objects.PropertyLookupCache;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.TRegexUtil;
 import com.oracle.truffle.js.runtime.util.TRegexUtil.TRegexMaterializeResultNode;
@@ -1449,7 +1450,13 @@ public abstract class PropertyGetNode extends PropertyCacheNode<PropertyGetNode>
             }
 
             // 1. try to get a JS property
-            Object value = isMethod ? jsclass.getMethodHelper(object, receiver, key) : jsclass.getHelper(object, receiver, key);
+            Object value;
+            PropertyLookupCache lookupCache = context.getPropertyLookupCache();
+            if (lookupCache != null && PropertyLookupCache.isCacheableClass(jsclass)) {
+                value = lookupCache.getHelper(object, receiver, key, isMethod);
+            } else {
+                value = isMethod ? jsclass.getMethodHelper(object, receiver, key) : jsclass.getHelper(object, receiver, key);
+            }
             if (value != null) {
                 return value;
             }
@@ -105,6 +105,7 @@ import com.oracle.truffle.js.runtime.objects.JSProperty;
 import com.oracle.truffle.js.runtime.objects.JSShape;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
+import com.oracle.truffle.js.runtime.objects.PropertyLookupCache;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.JSClassProfile;
 
@@ -1020,10 +1021,18 @@ public abstract class PropertySetNode extends PropertyCacheNode<PropertySetNode>
                 globalPropertySetInStrictMode(thisObj);
             } else if (isOwnProperty()) {
                 JSObject.defineOwnProperty(thisJSObj, key, PropertyDescriptor.createData(value, getAttributeFlags()), isStrict());
-            } else {
+            } else if (!setCachedOwnDataProperty(thisJSObj, value, receiver)) {
                 JSObject.setWithReceiver(thisJSObj, key, value, receiver, isStrict(), jsclassProfile);
             }
         }
+
+        private boolean setCachedOwnDataProperty(DynamicObject thisJSObj, Object value, Object receiver) {
+            PropertyLookupCache lookupCache = context.getPropertyLookupCache();
+            if (lookupCache != null && receiver == thisJSObj && PropertyLookupCache.isCacheableClass(jsclassProfile.getJSClass(thisJSObj))) {
+                return lookupCache.setOwnDataProperty(thisJSObj, key, value);
+            }
+            return false;
+        }
     }
 
     public static final class ForeignPropertySetNode extends LinkedPropertySetNode {
@@ -40,7 +40,12 @@
  */
 package com.oracle.truffle.js.parser;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.js.codec.BinaryDecoder;
@@ -48,7 +53,15 @@ import com.oracle.truffle.js.codec.NodeDecoder;
 import com.oracle.truffle.js.nodes.JSNodeDecoder;
 import com.oracle.truffle.js.nodes.NodeFactory;
 import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
 
+/**
+ * Decodes an AST from a binary snapshot.
+ *
+ * Only the top-level script is decoded eagerly. Each function body is recorded together with its
+ * offset into the snapshot and is decoded on first call (see {@link JSFunctionData#setLazyInit}),
+ * so functions that are never called are never materialized.
+ */
 public class BinarySnapshotProvider implements SnapshotProvider {
     public static final int MAGIC = 0x314e4942;
     private final ByteBuffer buffer;
@@ -70,10 +83,44 @@ public class BinarySnapshotProvider implements SnapshotProvider {
         return true;
     }
 
+    /**
+     * Checks the header of the snapshot against the current format and the given source, without
+     * throwing on a mismatch.
+     */
+    public static boolean isValid(ByteBuffer buffer, Source source) {
+        if (buffer.remaining() < 16) {
+            return false;
+        }
+        BinaryDecoder decoder = new BinaryDecoder(buffer);
+        if (decoder.getInt32() != MAGIC || decoder.getInt32() != JSNodeDecoder.getChecksum()) {
+            return false;
+        }
+        CharSequence code = source.getCharacters();
+        return decoder.getInt32() == code.length() && decoder.getInt32() == code.hashCode();
+    }
+
     public BinarySnapshotProvider(byte[] bytes) {
         this(ByteBuffer.wrap(bytes));
     }
 
+    /**
+     * Creates a snapshot provider backed by a read-only memory mapping of the given file. Lazily
+     * decoded functions read directly from the mapping, and the file contents are shared between
+     * processes via the page cache.
+     */
+    public static BinarySnapshotProvider fromFile(Path file) throws IOException {
+        return new BinarySnapshotProvider(map(file));
+    }
+
+    /**
+     * Maps the given snapshot file read-only.
+     */
+    public static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
     @Override
     public Object apply(NodeFactory nodeFactory, JSContext context, Source source) {
         BinaryDecoder decoder = new BinaryDecoder(buffer);
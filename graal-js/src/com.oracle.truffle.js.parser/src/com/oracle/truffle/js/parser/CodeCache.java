@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.js.nodes.JSNodeDecoder;
+import com.oracle.truffle.js.nodes.NodeFactory;
+import com.oracle.truffle.js.nodes.ScriptNode;
+import com.oracle.truffle.js.nodes.function.FunctionRootNode;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSTruffleOptions;
+
+/**
+ * Persistent cache of binary AST snapshots of scripts, enabled with option
+ * {@code js.code-cache-dir}.
+ *
+ * Cache entries are keyed by a hash of the source code, the parser options, and the snapshot format
+ * checksum. On a hit, the entry is memory-mapped and decoded with a {@link BinarySnapshotProvider}
+ * instead of parsing and translating the source. Entries that fail validation are discarded and
+ * the source is parsed as usual.
+ *
+ * Entries are written on a miss if the snapshot recorder ({@value #RECORDER_CLASS_NAME}, part of
+ * the snapshot tool) is on the class path; otherwise the cache is read-only and can be populated
+ * ahead of time using {@code SnapshotTool --codecache}.
+ */
+public final class CodeCache {
+    public static final String FILE_SUFFIX = ".jsc";
+    private static final String RECORDER_CLASS_NAME = "com.oracle.truffle.js.snapshot.CodeCacheRecorder";
+
+    /**
+     * Translates a script and writes a binary snapshot of the resulting AST.
+     */
+    public interface Recorder {
+        void record(JSContext context, Source source, boolean isStrict, OutputStream out) throws IOException;
+    }
+
+    private static volatile Recorder recorder;
+    private static volatile boolean recorderLookedUp;
+
+    private final Path directory;
+
+    private CodeCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the code cache configured for this context, or {@code null} if it is disabled.
+     */
+    public static CodeCache forContext(JSContext context) {
+        String dir = context.getCodeCacheDirectory();
+        if (dir == null || dir.isEmpty() || JSTruffleOptions.SubstrateVM || JSTruffleOptions.LazyTranslation) {
+            return null;
+        }
+        return new CodeCache(Paths.get(dir));
+    }
+
+    /**
+     * Returns the translated script, either decoded from the cache or freshly parsed (and, if
+     * possible, added to the cache).
+     */
+    public ScriptNode parseScriptNode(JSContext context, Source source, boolean isStrict) {
+        CompilerAsserts.neverPartOfCompilation();
+        Path file = directory.resolve(computeKey(context, source, isStrict) + FILE_SUFFIX);
+        ScriptNode cached = load(context, source, file);
+        if (cached != null) {
+            return cached;
+        }
+        Recorder rec = getRecorder();
+        if (rec == null) {
+            return JavaScriptTranslator.translateScript(NodeFactory.getInstance(context), context, source, isStrict);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            rec.record(context, source, isStrict, out);
+        } catch (IOException | RuntimeException e) {
+            return JavaScriptTranslator.translateScript(NodeFactory.getInstance(context), context, source, isStrict);
+        }
+        byte[] bytes = out.toByteArray();
+        store(file, bytes);
+        // use the decoded snapshot, so that the first run takes the same path as later runs
+        try {
+            return decode(context, source, ByteBuffer.wrap(bytes));
+        } catch (RuntimeException e) {
+            // the recorded snapshot cannot be decoded; do not keep it
+            discard(file);
+            return JavaScriptTranslator.translateScript(NodeFactory.getInstance(context), context, source, isStrict);
+        }
+    }
+
+    private static ScriptNode decode(JSContext context, Source source, ByteBuffer buffer) {
+        BinarySnapshotProvider snapshot = new BinarySnapshotProvider(buffer);
+        return ScriptNode.fromFunctionRoot(context, (FunctionRootNode) snapshot.apply(NodeFactory.getInstance(context), context, source));
+    }
+
+    private static ScriptNode load(JSContext context, Source source, Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = BinarySnapshotProvider.map(file);
+            if (!BinarySnapshotProvider.isValid(buffer, source)) {
+                discard(file);
+                return null;
+            }
+            return decode(context, source, buffer);
+        } catch (IOException | RuntimeException e) {
+            // corrupt or incompatible entry; fall back to parsing
+            discard(file);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the entry to a temporary file first and then moves it into place, so that concurrent
+     * processes never observe a partially written entry.
+     */
+    private void store(Path file, byte[] bytes) {
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tmp, bytes);
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            // the cache is best-effort
+        }
+    }
+
+    private static void discard(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static Recorder getRecorder() {
+        if (!recorderLookedUp) {
+            try {
+                recorder = (Recorder) Class.forName(RECORDER_CLASS_NAME).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                recorder = null;
+            }
+            recorderLookedUp = true;
+        }
+        return recorder;
+    }
+
+    /**
+     * Computes the cache key (a hex string) for the given source and the context's parser options.
+     */
+    public static String computeKey(JSContext context, Source source, boolean isStrict) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        CharSequence code = source.getCharacters();
+        byte[] chunk = new byte[8192];
+        int pos = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char ch = code.charAt(i);
+            chunk[pos++] = (byte) ch;
+            chunk[pos++] = (byte) (ch >>> 8);
+            if (pos == chunk.length) {
+                digest.update(chunk, 0, pos);
+                pos = 0;
+            }
+        }
+        digest.update(chunk, 0, pos);
+        ByteBuffer trailer = ByteBuffer.allocate(12);
+        trailer.putInt(JSNodeDecoder.getChecksum());
+        trailer.putInt(context.getParserOptions().hashCode());
+        trailer.putInt(isStrict ? 1 : 0);
+        digest.update(trailer.array());
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -92,6 +92,7 @@ import com.oracle.truffle.js.runtime.builtins.JSFunction;
 import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
 import com.oracle.truffle.js.runtime.builtins.JSModuleNamespace;
 import com.oracle.truffle.js.runtime.objects.ExportResolution;
+import com.oracle.truffle.js.runtime.objects.DefaultModuleLoader;
 import com.oracle.truffle.js.runtime.objects.JSModuleLoader;
 import com.oracle.truffle.js.runtime.objects.JSModuleRecord;
 import com.oracle.truffle.js.runtime.objects.Undefined;
@@ -178,10 +179,31 @@ public final class GraalJSEvaluator implements JSParser {
     @TruffleBoundary
     private static Object doEvaluate(JSRealm realm, Node lastNode, Environment env, Object thisObj, MaterializedFrame materializedFrame, Source source, boolean isStrict) {
         JSContext context = realm.getContext();
-        ScriptNode scriptNode = parseEval(context, lastNode, env, source, isStrict);
+        ScriptNode scriptNode;
+        if (env == null && context.isSharedRealmCode()) {
+            scriptNode = parseEvalShared(context, lastNode, source, isStrict);
+        } else {
+            scriptNode = parseEval(context, lastNode, env, source, isStrict);
+        }
         return runParsed(scriptNode, realm, thisObj, materializedFrame);
     }
 
+    /**
+     * Global code does not depend on the realm it is evaluated in, so its function data (and with
+     * it the call targets and property caches of all nested functions) is shared by all realms.
+     */
+    private static ScriptNode parseEvalShared(JSContext context, Node lastNode, Source source, boolean isStrict) {
+        JSFunctionData functionData = context.getSharedScript(source);
+        if (functionData == null) {
+            ScriptNode scriptNode = parseEval(context, lastNode, null, source, isStrict);
+            functionData = context.putSharedScript(source, scriptNode.getFunctionData());
+            if (functionData == scriptNode.getFunctionData()) {
+                return scriptNode;
+            }
+        }
+        return ScriptNode.fromFunctionData(context, functionData);
+    }
+
     private static Object runParsed(ScriptNode scriptNode, JSRealm realm, Object thisObj, MaterializedFrame materializedFrame) {
         DynamicObject functionObj = JSFunction.create(realm, scriptNode.getFunctionData(), materializedFrame);
         return scriptNode.run(JSArguments.createZeroArg(thisObj, functionObj));
@@ -247,6 +269,10 @@ public final class GraalJSEvaluator implements JSParser {
         if (source.getName().startsWith(MODULE_SOURCE_NAME_PREFIX) || source.getName().endsWith(MODULE_SOURCE_NAME_SUFFIX)) {
             return fakeScriptForModule(context, source);
         }
+        CodeCache codeCache = CodeCache.forContext(context);
+        if (codeCache != null) {
+            return codeCache.parseScriptNode(context, source, po.isStrict());
+        }
         return JavaScriptTranslator.translateScript(NodeFactory.getInstance(context), context, source, po.isStrict());
     }
 
@@ -260,8 +286,13 @@ public final class GraalJSEvaluator implements JSParser {
 
             @TruffleBoundary
             private Object evalModule(JSRealm realm) {
-                JSModuleRecord moduleRecord = context.getModuleLoader().loadModule(source);
+                JSModuleLoader moduleLoader = context.getModuleLoader();
+                JSModuleRecord moduleRecord = moduleLoader.loadModule(source);
+                long startTime = System.nanoTime();
                 moduleDeclarationInstantiation(moduleRecord);
+                if (moduleLoader instanceof DefaultModuleLoader) {
+                    ((DefaultModuleLoader) moduleLoader).addLinkTime(System.nanoTime() - startTime);
+                }
                 return moduleEvaluation(realm, moduleRecord);
             }
         };
@@ -308,11 +339,31 @@ public final class GraalJSEvaluator implements JSParser {
         }
     }
 
+    @Override
+    public Object preparseModule(JSContext context, Source source) {
+        return JavaScriptTranslator.parseModule(context, source);
+    }
+
+    @Override
+    public List<String> getPreparsedRequestedModules(Object preparsedModule) {
+        return ((com.oracle.js.parser.ir.FunctionNode) preparsedModule).getModule().getRequestedModules();
+    }
+
+    @Override
+    public JSModuleRecord translateModule(JSContext context, Source source, JSModuleLoader moduleLoader, Object preparsedModule) {
+        return JavaScriptTranslator.translateModule(NodeFactory.getInstance(context), context, source, moduleLoader, (com.oracle.js.parser.ir.FunctionNode) preparsedModule);
+    }
+
     @Override
     public JSModuleRecord hostResolveImportedModule(JSModuleRecord referencingModule, String specifier) {
         return referencingModule.getModuleLoader().resolveImportedModule(referencingModule, specifier);
     }
 
+    @Override
+    public List<String> getRequestedModules(JSModuleRecord moduleRecord) {
+        return ((Module) moduleRecord.getModule()).getRequestedModules();
+    }
+
     Collection<String> getExportedNames(JSModuleRecord moduleRecord) {
         return getExportedNames(moduleRecord, new HashSet<>());
     }
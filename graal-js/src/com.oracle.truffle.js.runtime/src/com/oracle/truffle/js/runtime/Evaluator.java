@@ -40,6 +40,8 @@
  */
 package com.oracle.truffle.js.runtime;
 
+import java.util.List;
+
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.source.Source;
@@ -81,8 +83,32 @@ public interface Evaluator {
 
     JSModuleRecord parseModule(JSContext context, Source source, JSModuleLoader moduleLoader);
 
+    /**
+     * Parses a module without translating it. Does not need an entered context, so it may be called
+     * on any thread. Parse errors are thrown as unspecified runtime exceptions; they are reported
+     * properly when the module is parsed again by {@link #parseModule}.
+     */
+    Object preparseModule(JSContext context, Source source);
+
+    /**
+     * Returns the specifiers of the modules requested by a module returned by
+     * {@link #preparseModule}, in source order.
+     */
+    List<String> getPreparsedRequestedModules(Object preparsedModule);
+
+    /**
+     * Creates the module record of a module returned by {@link #preparseModule}.
+     */
+    JSModuleRecord translateModule(JSContext context, Source source, JSModuleLoader moduleLoader, Object preparsedModule);
+
     JSModuleRecord hostResolveImportedModule(JSModuleRecord referencingModule, String specifier);
 
+    /**
+     * Returns the specifiers of the modules imported or re-exported by the given module, in source
+     * order.
+     */
+    List<String> getRequestedModules(JSModuleRecord moduleRecord);
+
     void moduleDeclarationInstantiation(JSModuleRecord moduleRecord);
 
     Object moduleEvaluation(JSRealm realm, JSModuleRecord moduleRecord);
@@ -56,6 +56,8 @@ public class JSAgentWaiterList {
 
     private final Lock globalMonitor;
 
+    private volatile SharedMessageChannel messageChannel;
+
     @TruffleBoundary
     public JSAgentWaiterList() {
         this.waiters = new ConcurrentHashMap<>();
@@ -79,6 +81,36 @@ public class JSAgentWaiterList {
         globalMonitor.unlock();
     }
 
+    /**
+     * Returns the message channel attached to this SharedArrayBuffer, or {@code null} if none has
+     * been opened yet.
+     */
+    public SharedMessageChannel getMessageChannel() {
+        return messageChannel;
+    }
+
+    /**
+     * Returns the message channel attached to this SharedArrayBuffer, creating it with the given
+     * parameters if none has been opened yet.
+     */
+    @TruffleBoundary
+    public SharedMessageChannel openMessageChannel(int capacity, boolean multiProducer) {
+        SharedMessageChannel channel = messageChannel;
+        if (channel == null) {
+            lock();
+            try {
+                channel = messageChannel;
+                if (channel == null) {
+                    channel = new SharedMessageChannel(capacity, multiProducer);
+                    messageChannel = channel;
+                }
+            } finally {
+                unlock();
+            }
+        }
+        return channel;
+    }
+
     public static final class JSAgentWaiterListEntry extends ConcurrentLinkedQueue<Integer> {
 
         private static final long serialVersionUID = 2655886588267252886L;
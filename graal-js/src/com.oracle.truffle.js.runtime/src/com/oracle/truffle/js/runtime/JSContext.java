@@ -40,14 +40,12 @@
  */
 package com.oracle.truffle.js.runtime;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Paths;
 import java.time.ZoneId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -63,7 +61,6 @@ import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.Truffle;
-import com.oracle.truffle.api.TruffleFile;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.TruffleLanguage.ContextReference;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -126,13 +123,14 @@ import com.oracle.truffle.js.runtime.interop.JavaImporter;
 import com.oracle.truffle.js.runtime.interop.JavaPackage;
 import com.oracle.truffle.js.runtime.java.adapter.JavaAdapterFactory;
 import com.oracle.truffle.js.runtime.joni.JoniRegexCompiler;
+import com.oracle.truffle.js.runtime.objects.DefaultModuleLoader;
 import com.oracle.truffle.js.runtime.objects.JSModuleLoader;
-import com.oracle.truffle.js.runtime.objects.JSModuleRecord;
 import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSPrototypeData;
 import com.oracle.truffle.js.runtime.objects.JSShape;
 import com.oracle.truffle.js.runtime.objects.JSShapeData;
 import com.oracle.truffle.js.runtime.objects.Null;
+import com.oracle.truffle.js.runtime.objects.PropertyLookupCache;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.CompilableBiFunction;
 import com.oracle.truffle.js.runtime.util.CompilableFunction;
@@ -189,6 +187,14 @@ public class JSContext {
      */
     private final Deque<DynamicObject> promiseJobsQueue;
     private final Assumption promiseJobsQueueNotUsedAssumption;
+    /** Number of jobs enqueued so far. */
+    private long promiseJobsEnqueued;
+    /** Maximum length the job queue has reached so far. */
+    private int promiseJobsMaxQueueDepth;
+    /** Total time spent in outermost drains of the job queue, in nanoseconds. */
+    private long promiseJobsDrainTime;
+    /** Nesting depth of drains of the job queue; only the outermost drain is timed. */
+    private int promiseJobsDrainDepth;
 
     private final Object nodeFactory;
 
@@ -200,6 +206,11 @@ public class JSContext {
 
     /** The RegExp engine, as obtained from RegexLanguage. */
     private TruffleObject regexEngine;
+    /** Scripts shared by all realms of this context, if enabled by {@code js.shared-realm-code}. */
+    private final Map<Source, JSFunctionData> sharedScriptCache;
+    /** Maximum number of scripts in the shared script cache; the least recently used are evicted. */
+    public static final int SHARED_SCRIPT_CACHE_SIZE = 512;
+    private final PropertyLookupCache propertyLookupCache;
 
     private JSModuleLoader moduleLoader;
 
@@ -398,7 +409,7 @@ public class JSContext {
 
         this.moduleNamespaceFactory = JSObjectFactory.createBound(this, Null.instance, JSModuleNamespace.makeInitialShape(this).createFactory());
 
-        this.promiseJobsQueue = new LinkedList<>();
+        this.promiseJobsQueue = new ArrayDeque<>();
         this.promiseJobsQueueNotUsedAssumption = Truffle.getRuntime().createAssumption("promiseJobsQueueNotUsedAssumption");
 
         this.promiseHookNotUsedAssumption = Truffle.getRuntime().createAssumption("promiseHookNotUsedAssumption");
@@ -429,7 +440,10 @@ public class JSContext {
         this.protoGetterFunctionData = annexB ? protoGetterFunction() : null;
         this.protoSetterFunctionData = annexB ? protoSetterFunction() : null;
 
-        this.isMultiContext = lang != null && lang.isMultiContext();
+        // Sharing code among realms requires realm-independent shapes, as in multi-context mode.
+        this.isMultiContext = (lang != null && lang.isMultiContext()) || contextOptions.isSharedRealmCode();
+        this.sharedScriptCache = contextOptions.isSharedRealmCode() ? createSharedScriptCache() : null;
+        this.propertyLookupCache = JSTruffleOptions.MegamorphicPropertyCacheSize > 0 ? new PropertyLookupCache(JSTruffleOptions.MegamorphicPropertyCacheSize) : null;
 
         // shapes and factories
         PrototypeSupplier objectPrototypeSupplier = JSUserObject.INSTANCE;
@@ -664,7 +678,9 @@ public class JSContext {
 
     @TruffleBoundary
     private void promiseJobQueueAdd(DynamicObject newTarget) {
-        promiseJobsQueue.push(newTarget);
+        promiseJobsQueue.addLast(newTarget);
+        promiseJobsEnqueued++;
+        promiseJobsMaxQueueDepth = Math.max(promiseJobsMaxQueueDepth, promiseJobsQueue.size());
     }
 
     private void invalidatePromiseQueueNotUsedAssumption() {
@@ -682,31 +698,76 @@ public class JSContext {
 
     @TruffleBoundary
     private void processAllPromises() {
-        boolean queueContainsJobs;
-        do {
-            queueContainsJobs = false;
-            Object thisArg = Undefined.instance;
-            while (promiseJobsQueue.size() > 0) {
-                DynamicObject nextJob = promiseJobsQueue.pollLast();
+        long startTime = promiseJobsDrainDepth++ == 0 ? System.nanoTime() : 0;
+        try {
+            boolean queueContainsJobs;
+            do {
+                queueContainsJobs = drainPromiseJobsQueue();
+
+                // In node.js-mode, tasks are processed by the uv loop.
+                if (shouldProcessJavaInteropAsyncTasks) {
+                    queueContainsJobs = processJavaInteropAsyncTasks();
+                }
+
+                // If a job was executed, it might have scheduled other tasks.
+            } while (queueContainsJobs);
+        } finally {
+            if (--promiseJobsDrainDepth == 0) {
+                promiseJobsDrainTime += System.nanoTime() - startTime;
+            }
+        }
+    }
+
+    /**
+     * Runs jobs until the queue is empty. Consecutive jobs of the same realm are run without leaving
+     * and re-entering the realm's context in between. Jobs are invoked directly through their call
+     * target; jobs created by the same built-in (e.g. PromiseReactionJob) share one.
+     *
+     * @return {@code true} if at least one job was executed.
+     */
+    private boolean drainPromiseJobsQueue() {
+        boolean executed = false;
+        JSRealm enteredRealm = null;
+        Object prev = null;
+        try {
+            DynamicObject nextJob;
+            while ((nextJob = promiseJobsQueue.pollFirst()) != null) {
                 if (JSFunction.isJSFunction(nextJob)) {
                     JSRealm functionRealm = JSFunction.getRealm(nextJob);
-                    Object prev = functionRealm.getTruffleContext().enter();
-                    try {
-                        JSFunction.call(nextJob, thisArg, JSArguments.EMPTY_ARGUMENTS_ARRAY);
-                    } finally {
-                        functionRealm.getTruffleContext().leave(prev);
+                    if (functionRealm != enteredRealm) {
+                        if (enteredRealm != null) {
+                            enteredRealm.getTruffleContext().leave(prev);
+                            enteredRealm = null;
+                        }
+                        prev = functionRealm.getTruffleContext().enter();
+                        enteredRealm = functionRealm;
                     }
-                    queueContainsJobs = true;
+                    JSFunction.getCallTarget(nextJob).call(JSArguments.createZeroArg(Undefined.instance, nextJob));
+                    executed = true;
                 }
             }
-
-            // In node.js-mode, tasks are processed by the uv loop.
-            if (shouldProcessJavaInteropAsyncTasks) {
-                queueContainsJobs = processJavaInteropAsyncTasks();
+        } finally {
+            if (enteredRealm != null) {
+                enteredRealm.getTruffleContext().leave(prev);
             }
+        }
+        return executed;
+    }
 
-            // If a job was executed, it might have scheduled other tasks.
-        } while (queueContainsJobs);
+    public final long getPromiseJobsEnqueued() {
+        return promiseJobsEnqueued;
+    }
+
+    public final int getPromiseJobsMaxQueueDepth() {
+        return promiseJobsMaxQueueDepth;
+    }
+
+    /**
+     * Total time spent processing pending promise jobs, in nanoseconds. Drains nested in another
+     * drain are only counted once.
+     */
+    public final long getPromiseJobsDrainTime() {
+        return promiseJobsDrainTime;
     }
 
     public void interopBoundaryEnter() {
@@ -947,6 +1008,50 @@ public class JSContext {
         return regexEngine;
     }
 
+    private static Map<Source, JSFunctionData> createSharedScriptCache() {
+        return new LinkedHashMap<Source, JSFunctionData>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Source, JSFunctionData> eldest) {
+                return size() > SHARED_SCRIPT_CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Returns {@code true} if scripts evaluated in any realm of this context are shared with the
+     * other realms, so that a new realm runs already compiled code for a previously seen source.
+     */
+    public boolean isSharedRealmCode() {
+        return sharedScriptCache != null;
+    }
+
+    /**
+     * Returns the function data of a script previously evaluated from the given source in any realm
+     * of this context, or {@code null}.
+     */
+    @TruffleBoundary
+    public JSFunctionData getSharedScript(Source source) {
+        assert isSharedRealmCode();
+        synchronized (sharedScriptCache) {
+            return sharedScriptCache.get(source);
+        }
+    }
+
+    /**
+     * Records the function data of a script so that other realms can run it without parsing.
+     * Returns the function data that is actually cached for the source.
+     */
+    @TruffleBoundary
+    public JSFunctionData putSharedScript(Source source, JSFunctionData script) {
+        assert isSharedRealmCode();
+        synchronized (sharedScriptCache) {
+            JSFunctionData existing = sharedScriptCache.putIfAbsent(source, script);
+            return existing == null ? script : existing;
+        }
+    }
+
     public JSModuleLoader getModuleLoader() {
         if (moduleLoader == null) {
             createModuleLoader();
@@ -957,50 +1062,7 @@ public class JSContext {
     @TruffleBoundary
     private synchronized void createModuleLoader() {
         if (moduleLoader == null) {
-            moduleLoader = new JSModuleLoader() {
-                private final Map<String, JSModuleRecord> moduleMap = new HashMap<>();
-
-                @Override
-                public JSModuleRecord resolveImportedModule(JSModuleRecord referencingModule, String specifier) {
-                    try {
-                        String path = getPath(referencingModule.getSource());
-                        File moduleFile = Paths.get(path).resolveSibling(specifier).toFile();
-                        String canonicalPath = moduleFile.getCanonicalPath();
-                        JSModuleRecord existingModule = moduleMap.get(canonicalPath);
-                        if (existingModule != null) {
-                            return existingModule;
-                        }
-                        TruffleFile truffleFile = getRealm().getEnv().getTruffleFile(moduleFile.getPath());
-                        Source source = Source.newBuilder(AbstractJavaScriptLanguage.ID, truffleFile).name(specifier).build();
-                        JSModuleRecord newModule = getEvaluator().parseModule(JSContext.this, source, this);
-                        moduleMap.put(canonicalPath, newModule);
-                        return newModule;
-                    } catch (IOException e) {
-                        throw Errors.createError(e.getMessage());
-                    }
-                }
-
-                String getPath(Source source) {
-                    String path = source.getPath();
-                    if (path == null) {
-                        path = source.getName();
-                        if (path.startsWith("module:")) {
-                            path = path.substring("module:".length());
-                        }
-                    }
-                    try {
-                        return Paths.get(path).toFile().getCanonicalPath();
-                    } catch (IOException e) {
-                        throw Errors.createError(e.getMessage());
-                    }
-                }
-
-                @Override
-                public JSModuleRecord loadModule(Source source) {
-                    String path = getPath(source);
-                    return moduleMap.computeIfAbsent(path, (key) -> getEvaluator().parseModule(JSContext.this, source, this));
-                }
-            };
+            moduleLoader = new DefaultModuleLoader(this, contextOptions.getModuleLoaderThreads());
         }
     }
 
@@ -1255,6 +1317,10 @@ public class JSContext {
         return contextOptions.isAtomics();
     }
 
+    public boolean isOptionSharedChannel() {
+        return contextOptions.isSharedChannel();
+    }
+
     public boolean isOptionV8CompatibilityMode() {
         return contextOptions.isV8CompatibilityMode();
     }
@@ -1283,6 +1349,10 @@ public class JSContext {
         return contextOptions.canAgentBlock();
     }
 
+    public String getCodeCacheDirectory() {
+        return contextOptions.getCodeCacheDirectory();
+    }
+
     public void initializeJavaInteropWorkers(EcmaAgent workerMain, EcmaAgent.Factory workerFactory) {
         assert mainWorker == null && javaInteropWorkersFactory == null;
         mainWorker = workerMain;
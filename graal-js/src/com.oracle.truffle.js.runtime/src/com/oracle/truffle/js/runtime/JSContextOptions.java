@@ -150,6 +150,26 @@ public final class JSContextOptions {
     public static final OptionKey<Boolean> GLOBAL_THIS = new OptionKey<>(true);
     private static final String GLOBAL_THIS_HELP = helpWithDefault("provide 'global' global property.", GLOBAL_THIS);
 
+    public static final String CODE_CACHE_DIR_NAME = JS_OPTION_PREFIX + "code-cache-dir";
+    public static final OptionKey<String> CODE_CACHE_DIR = new OptionKey<>("");
+    private static final String CODE_CACHE_DIR_HELP = helpWithDefault("Directory in which binary snapshots of parsed scripts are cached across runs (disabled if empty).", CODE_CACHE_DIR);
+    @CompilationFinal private String codeCacheDir;
+
+    public static final String SHARED_REALM_CODE_NAME = JS_OPTION_PREFIX + "shared-realm-code";
+    private static final OptionKey<Boolean> SHARED_REALM_CODE = new OptionKey<>(false);
+    private static final String SHARED_REALM_CODE_HELP = helpWithDefault("Share parsed scripts, compiled code and object shapes among all realms of a context.", SHARED_REALM_CODE);
+    @CompilationFinal private boolean sharedRealmCode;
+
+    public static final String MODULE_LOADER_THREADS_NAME = JS_OPTION_PREFIX + "module-loader-threads";
+    private static final OptionKey<Integer> MODULE_LOADER_THREADS = new OptionKey<>(0);
+    private static final String MODULE_LOADER_THREADS_HELP = helpWithDefault("Number of threads that read and parse the module graph of an ES module in parallel before linking (0 loads each module when linking reaches it).", MODULE_LOADER_THREADS);
+    @CompilationFinal private int moduleLoaderThreads;
+
+    public static final String SHARED_CHANNEL_NAME = JS_OPTION_PREFIX + "shared-channel";
+    private static final OptionKey<Boolean> SHARED_CHANNEL = new OptionKey<>(false);
+    private static final String SHARED_CHANNEL_HELP = helpWithDefault("Provide the SharedChannel object for passing messages between agents through SharedArrayBuffers.", SHARED_CHANNEL);
+    @CompilationFinal private boolean sharedChannel;
+
     private static final OptionKey<?>[] PREINIT_CONTEXT_OPTION_KEYS = {
                     ECMASCRIPT_VERSION,
                     ANNEX_B,
@@ -167,6 +187,8 @@ public final class JSContextOptions {
                     TIME_ZONE,
                     JAVA_PACKAGE_GLOBALS,
                     GLOBAL_THIS,
+                    SHARED_REALM_CODE,
+                    SHARED_CHANNEL,
     };
 
     public JSContextOptions(ParserOptions parserOptions) {
@@ -206,6 +228,10 @@ public final class JSContextOptions {
         this.debug = readBooleanOption(DEBUG_BUILTIN, DEBUG_BUILTIN_NAME);
         this.timerResolution = readLongOption(TIMER_RESOLUTION, TIMER_RESOLUTION_NAME);
         this.agentCanBlock = readBooleanOption(AGENT_CAN_BLOCK, AGENT_CAN_BLOCK_NAME);
+        this.codeCacheDir = readStringOption(CODE_CACHE_DIR, CODE_CACHE_DIR_NAME);
+        this.sharedRealmCode = readBooleanOption(SHARED_REALM_CODE, SHARED_REALM_CODE_NAME);
+        this.sharedChannel = readBooleanOption(SHARED_CHANNEL, SHARED_CHANNEL_NAME);
+        this.moduleLoaderThreads = readIntegerOption(MODULE_LOADER_THREADS, MODULE_LOADER_THREADS_NAME);
     }
 
     private boolean readBooleanOption(OptionKey<Boolean> key, String name) {
@@ -248,6 +274,18 @@ public final class JSContextOptions {
         return Long.getLong("polyglot." + name, key.getDefaultValue());
     }
 
+    private String readStringOption(OptionKey<String> key, String name) {
+        if (optionValues == null) {
+            return readStringFromSystemProperty(key, name);
+        } else {
+            return key.getValue(optionValues);
+        }
+    }
+
+    private static String readStringFromSystemProperty(OptionKey<String> key, String name) {
+        return System.getProperty("polyglot." + name, key.getDefaultValue());
+    }
+
     public static String helpWithDefault(String helpMessage, OptionKey<? extends Object> key) {
         return helpMessage + " (default:" + key.getDefaultValue() + ")";
     }
@@ -272,6 +310,10 @@ public final class JSContextOptions {
         options.add(OptionDescriptor.newBuilder(AGENT_CAN_BLOCK, AGENT_CAN_BLOCK_NAME).category(OptionCategory.DEBUG).help(AGENT_CAN_BLOCK_HELP).build());
         options.add(OptionDescriptor.newBuilder(JAVA_PACKAGE_GLOBALS, JAVA_PACKAGE_GLOBALS_NAME).category(OptionCategory.USER).help(JAVA_PACKAGE_GLOBALS_HELP).build());
         options.add(OptionDescriptor.newBuilder(GLOBAL_THIS, GLOBAL_THIS_NAME).category(OptionCategory.USER).help(GLOBAL_THIS_HELP).build());
+        options.add(OptionDescriptor.newBuilder(CODE_CACHE_DIR, CODE_CACHE_DIR_NAME).category(OptionCategory.USER).help(CODE_CACHE_DIR_HELP).build());
+        options.add(OptionDescriptor.newBuilder(SHARED_REALM_CODE, SHARED_REALM_CODE_NAME).category(OptionCategory.USER).help(SHARED_REALM_CODE_HELP).build());
+        options.add(OptionDescriptor.newBuilder(SHARED_CHANNEL, SHARED_CHANNEL_NAME).category(OptionCategory.USER).help(SHARED_CHANNEL_HELP).build());
+        options.add(OptionDescriptor.newBuilder(MODULE_LOADER_THREADS, MODULE_LOADER_THREADS_NAME).category(OptionCategory.USER).help(MODULE_LOADER_THREADS_HELP).build());
     }
 
     // check for options that are not on their default value.
@@ -354,6 +396,22 @@ public final class JSContextOptions {
         return agentCanBlock;
     }
 
+    public String getCodeCacheDirectory() {
+        return codeCacheDir;
+    }
+
+    public boolean isSharedRealmCode() {
+        return sharedRealmCode;
+    }
+
+    public boolean isSharedChannel() {
+        return sharedChannel;
+    }
+
+    public int getModuleLoaderThreads() {
+        return moduleLoaderThreads;
+    }
+
     @Override
     public int hashCode() {
         int hash = 5;
@@ -373,6 +431,10 @@ public final class JSContextOptions {
         hash = 53 * hash + (this.parseOnly ? 1 : 0);
         hash = 53 * hash + (int) this.timerResolution;
         hash = 53 * hash + (this.agentCanBlock ? 1 : 0);
+        hash = 53 * hash + Objects.hashCode(this.codeCacheDir);
+        hash = 53 * hash + (this.sharedRealmCode ? 1 : 0);
+        hash = 53 * hash + (this.sharedChannel ? 1 : 0);
+        hash = 53 * hash + this.moduleLoaderThreads;
         return hash;
     }
 
@@ -433,6 +495,18 @@ public final class JSContextOptions {
         if (this.agentCanBlock != other.agentCanBlock) {
             return false;
         }
+        if (!Objects.equals(this.codeCacheDir, other.codeCacheDir)) {
+            return false;
+        }
+        if (this.sharedRealmCode != other.sharedRealmCode) {
+            return false;
+        }
+        if (this.sharedChannel != other.sharedChannel) {
+            return false;
+        }
+        if (this.moduleLoaderThreads != other.moduleLoaderThreads) {
+            return false;
+        }
         return Objects.equals(this.parserOptions, other.parserOptions);
     }
 
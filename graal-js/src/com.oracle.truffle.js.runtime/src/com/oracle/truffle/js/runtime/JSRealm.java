@@ -126,6 +126,7 @@ public class JSRealm {
     public static final String REFLECT_CLASS_NAME = "Reflect";
     public static final String SHARED_ARRAY_BUFFER_CLASS_NAME = "SharedArrayBuffer";
     public static final String ATOMICS_CLASS_NAME = "Atomics";
+    public static final String SHARED_CHANNEL_CLASS_NAME = "SharedChannel";
     public static final String REALM_BUILTIN_CLASS_NAME = "Realm";
     public static final String ARGUMENTS_NAME = "arguments";
     public static final String JAVA_CLASS_NAME = "Java";
@@ -821,6 +822,9 @@ public class JSRealm {
         if (context.isOptionAtomics()) {
             putGlobalProperty(global, ATOMICS_CLASS_NAME, createAtomics());
         }
+        if (context.isOptionSharedChannel() && context.isOptionSharedArrayBuffer()) {
+            putGlobalProperty(global, SHARED_CHANNEL_CLASS_NAME, createSharedChannel());
+        }
         if (getEnv() != null && JSContextOptions.GLOBAL_THIS.getValue(getEnv().getOptions()) && !context.isOptionV8CompatibilityMode()) {
             putGlobalProperty(global, "global", global);
         }
@@ -1049,6 +1053,13 @@ public class JSRealm {
         return obj;
     }
 
+    private DynamicObject createSharedChannel() {
+        DynamicObject obj = JSObject.createInit(this, this.getObjectPrototype(), JSUserObject.INSTANCE);
+        JSObjectUtil.putDataProperty(context, obj, Symbol.SYMBOL_TO_STRING_TAG, SHARED_CHANNEL_CLASS_NAME, JSAttributes.configurableNotEnumerableNotWritable());
+        JSObjectUtil.putFunctionsFromContainer(this, obj, SHARED_CHANNEL_CLASS_NAME);
+        return obj;
+    }
+
     public JSConstructor getCallSiteConstructor() {
         return callSiteConstructor;
     }
@@ -72,6 +72,8 @@ public class JSTruffleOptions {
     // Inline cache configuration
     public static int PropertyCacheLimit = integerOption("PropertyCacheLimit", 5);
     public static int FunctionCacheLimit = integerOption("FunctionCacheLimit", 4);
+    /** Size of the per-context (shape, key) lookup cache used by megamorphic property accesses; 0 disables it. */
+    public static final int MegamorphicPropertyCacheSize = integerOption("MegamorphicPropertyCacheSize", 1024);
 
     public static final boolean AssertFinalPropertySpecialization = booleanOption("AssertFinalPropertySpecialization", false);
     /** Try to cache by function object instead of call target. */
@@ -121,6 +123,10 @@ public class JSTruffleOptions {
     public static final boolean MarkElementsNonNull = booleanOption("array.MarkElementsNonNull", true);
     /** Use DirectByteBuffer for typed arrays by default. */
     public static final boolean DirectByteBuffer = booleanOption("DirectByteBuffer", false);
+    /** Size of the slabs that small DirectByteBuffers are carved from (0 disables slabs). */
+    public static final int DirectByteBufferSlabSize = integerOption("DirectByteBufferSlabSize", 32 * 1024);
+    /** DirectByteBuffers up to this size are carved from a shared slab. */
+    public static final int DirectByteBufferSlabThreshold = integerOption("DirectByteBufferSlabThreshold", 512);
 
     // ECMAScript specification options
     public static final int ECMAScript2017 = 8;
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Bounded lock-free message queue attached to the shared state of a SharedArrayBuffer, so that
+ * every agent holding the buffer sees the same channel. Messages are context-independent values
+ * (see {@code SharedChannelBuiltins}); array buffers transferred with a message are handed over
+ * without copying their contents.
+ *
+ * The queue is a ring of slots, each tagged with a sequence number that tells producers and the
+ * consumer whether the slot is free or filled for the current lap. With a single producer, the
+ * tail is advanced with a plain ordered store; with multiple producers, slots are claimed with a
+ * CAS on the tail. A single-producer channel belongs to the first agent that posts to it (see
+ * {@link #claimProducer(int)}). There is exactly one consumer, the first agent that receives from
+ * the channel.
+ * A consumer that blocks waits on the {@link JSAgentWaiterList} entry {@link #WAITER_INDEX} of the
+ * buffer, like {@code Atomics.wait}.
+ */
+public final class SharedMessageChannel {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int MAX_CAPACITY = 1 << 20;
+
+    /**
+     * Waiter list index used by blocked consumers. Byte indices used by {@code Atomics.wait} are
+     * never negative, so the two cannot collide.
+     */
+    public static final int WAITER_INDEX = -1;
+
+    private static final int NO_AGENT = 0;
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final boolean multiProducer;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicInteger producer = new AtomicInteger(NO_AGENT);
+    private final AtomicInteger consumer = new AtomicInteger(NO_AGENT);
+
+    @TruffleBoundary
+    public SharedMessageChannel(int capacity, boolean multiProducer) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw Errors.createRangeError("Invalid channel capacity");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.multiProducer = multiProducer;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public boolean isMultiProducer() {
+        return multiProducer;
+    }
+
+    /**
+     * Enqueues a message. Returns {@code false} without blocking if the channel is full. On a
+     * single-producer channel, must only be called by the producer (see
+     * {@link #claimProducer(int)}).
+     */
+    @TruffleBoundary
+    public boolean offer(Object message) {
+        assert message != null;
+        long pos;
+        int index;
+        while (true) {
+            pos = tail.get();
+            index = (int) pos & mask;
+            long dif = sequences.get(index) - pos;
+            if (dif == 0) {
+                if (!multiProducer) {
+                    tail.lazySet(pos + 1);
+                    break;
+                } else if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+            } else if (dif < 0) {
+                return false;
+            }
+            // another producer claimed the slot first
+        }
+        slots[index] = message;
+        sequences.set(index, pos + 1);
+        return true;
+    }
+
+    /**
+     * Dequeues the next message, or returns {@code null} if the channel is empty. Must only be
+     * called by the consumer (see {@link #claimConsumer(int)}).
+     */
+    @TruffleBoundary
+    public Object poll() {
+        long pos = head.get();
+        int index = (int) pos & mask;
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+        Object message = slots[index];
+        slots[index] = null;
+        head.lazySet(pos + 1);
+        sequences.set(index, pos + slots.length);
+        return message;
+    }
+
+    public boolean isEmpty() {
+        long pos = head.get();
+        return sequences.get((int) pos & mask) != pos + 1;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+
+    /**
+     * Makes the agent with the given signifier the consumer of this channel, unless another agent
+     * already is.
+     *
+     * @return {@code true} if the agent is the consumer of this channel
+     */
+    public boolean claimConsumer(int signifier) {
+        return consumer.get() == signifier || consumer.compareAndSet(NO_AGENT, signifier);
+    }
+
+    /**
+     * Makes the agent with the given signifier the producer of this channel, unless another agent
+     * already is. Any agent may produce to a multi-producer channel.
+     *
+     * @return {@code true} if the agent may post messages to this channel
+     */
+    public boolean claimProducer(int signifier) {
+        return multiProducer || producer.get() == signifier || producer.compareAndSet(NO_AGENT, signifier);
+    }
+}
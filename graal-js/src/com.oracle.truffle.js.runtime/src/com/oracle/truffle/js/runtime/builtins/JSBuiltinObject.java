@@ -292,7 +292,7 @@ public abstract class JSBuiltinObject extends JSClass {
                 isDictionaryObject = true;
             }
             if (isDictionaryObject) {
-                JSDictionaryObject.getHashMap(thisObj).put(name, PropertyDescriptor.createDataDefault(value));
+                JSDictionaryObject.getPropertyMap(thisObj).put(name, value, JSAttributes.getDefault());
                 return true;
             }
         }
@@ -43,9 +43,6 @@ package com.oracle.truffle.js.runtime.builtins;
 import java.util.Collections;
 import java.util.List;
 
-import org.graalvm.collections.EconomicMap;
-import org.graalvm.collections.MapCursor;
-
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.object.DynamicObject;
@@ -58,6 +55,7 @@ import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.JSRuntime;
 import com.oracle.truffle.js.runtime.JSTruffleOptions;
 import com.oracle.truffle.js.runtime.objects.Accessor;
+import com.oracle.truffle.js.runtime.objects.CompactPropertyMap;
 import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
 import com.oracle.truffle.js.runtime.objects.JSProperty;
@@ -67,8 +65,8 @@ import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 
 /**
- * This is a variant of {@link JSUserObject} that stores its contents as a HashMap of properties
- * (excepts hidden properties, incl. prototype).
+ * This is a variant of {@link JSUserObject} that stores its contents in a
+ * {@link CompactPropertyMap} (excepts hidden properties, incl. prototype).
  */
 public final class JSDictionaryObject extends JSBuiltinObject {
 
@@ -81,7 +79,7 @@ public final class JSDictionaryObject extends JSBuiltinObject {
 
     static {
         Shape.Allocator allocator = JSShape.makeAllocator(JSObject.LAYOUT);
-        HASHMAP_PROPERTY = JSObjectUtil.makeHiddenProperty(HASHMAP_PROPERTY_NAME, allocator.locationForType(EconomicMap.class));
+        HASHMAP_PROPERTY = JSObjectUtil.makeHiddenProperty(HASHMAP_PROPERTY_NAME, allocator.locationForType(CompactPropertyMap.class));
     }
 
     private JSDictionaryObject() {
@@ -111,25 +109,37 @@ public final class JSDictionaryObject extends JSBuiltinObject {
     @TruffleBoundary
     @Override
     public Object getOwnHelper(DynamicObject store, Object thisObj, Object key) {
-        PropertyDescriptor desc = getHashMap(store).get(key);
-        if (desc != null) {
-            return getValue(desc, thisObj);
+        CompactPropertyMap map = getPropertyMap(store);
+        int entry = map.find(key);
+        if (entry != CompactPropertyMap.NOT_FOUND) {
+            return getValue(map, entry, thisObj);
         }
 
         return super.getOwnHelper(store, thisObj, key);
     }
 
-    public static Object getValue(PropertyDescriptor property, Object receiver) {
-        if (property.isAccessorDescriptor()) {
-            DynamicObject getter = (DynamicObject) property.getGet();
+    @TruffleBoundary
+    @Override
+    public Object getOwnHelper(DynamicObject store, Object thisObj, long index) {
+        CompactPropertyMap map = getPropertyMap(store);
+        int entry = map.find(index);
+        if (entry != CompactPropertyMap.NOT_FOUND) {
+            return getValue(map, entry, thisObj);
+        }
+
+        return super.getOwnHelper(store, thisObj, index);
+    }
+
+    private static Object getValue(CompactPropertyMap map, int entry, Object receiver) {
+        if (map.isAccessor(entry)) {
+            DynamicObject getter = ((Accessor) map.getValue(entry)).getGetter();
             if (getter != Undefined.instance) {
                 return JSFunction.call(getter, receiver, JSArguments.EMPTY_ARGUMENTS_ARRAY);
             } else {
                 return Undefined.instance;
             }
         } else {
-            assert property.isDataDescriptor();
-            return property.getValue();
+            return map.getValue(entry);
         }
     }
 
@@ -138,8 +148,10 @@ public final class JSDictionaryObject extends JSBuiltinObject {
     public List<Object> ownPropertyKeys(DynamicObject thisObj) {
         assert isJSDictionaryObject(thisObj);
         List<Object> keys = super.ownPropertyKeysList(thisObj);
-        for (Object key : getHashMap(thisObj).getKeys()) {
-            keys.add(key);
+        CompactPropertyMap map = getPropertyMap(thisObj);
+        CompactPropertyMap.Cursor cursor = map.getEntries();
+        while (cursor.advance()) {
+            keys.add(map.getKey(cursor.getEntry()));
         }
         Collections.sort(keys, JSRuntime::comparePropertyKeys);
         return keys;
@@ -148,60 +160,91 @@ public final class JSDictionaryObject extends JSBuiltinObject {
     @TruffleBoundary
     @Override
     public boolean delete(DynamicObject thisObj, Object key, boolean isStrict) {
-        EconomicMap<Object, PropertyDescriptor> hashMap = getHashMap(thisObj);
-        PropertyDescriptor desc = hashMap.get(key);
-        if (desc != null) {
-            if (!desc.getConfigurable()) {
-                if (isStrict) {
-                    throw Errors.createTypeErrorNotConfigurableProperty(key);
-                }
-                return false;
-            }
-            hashMap.removeKey(key);
-            return true;
+        CompactPropertyMap map = getPropertyMap(thisObj);
+        int entry = map.find(key);
+        if (entry != CompactPropertyMap.NOT_FOUND) {
+            return delete(map, entry, key, isStrict);
         }
         return super.delete(thisObj, key, isStrict);
     }
 
+    @TruffleBoundary
     @Override
     public boolean delete(DynamicObject thisObj, long index, boolean isStrict) {
-        return delete(thisObj, String.valueOf(index), isStrict);
+        CompactPropertyMap map = getPropertyMap(thisObj);
+        int entry = map.find(index);
+        if (entry != CompactPropertyMap.NOT_FOUND) {
+            return delete(map, entry, index, isStrict);
+        }
+        return super.delete(thisObj, index, isStrict);
+    }
+
+    private static boolean delete(CompactPropertyMap map, int entry, Object key, boolean isStrict) {
+        if (!map.isConfigurable(entry)) {
+            if (isStrict) {
+                throw Errors.createTypeErrorNotConfigurableProperty(key);
+            }
+            return false;
+        }
+        map.remove(entry);
+        return true;
     }
 
     @TruffleBoundary
     @Override
     public boolean hasOwnProperty(DynamicObject thisObj, Object key) {
-        if (getHashMap(thisObj).containsKey(key)) {
+        if (getPropertyMap(thisObj).containsKey(key)) {
             return true;
         }
         return super.hasOwnProperty(thisObj, key);
     }
 
+    @TruffleBoundary
+    @Override
+    public boolean hasOwnProperty(DynamicObject thisObj, long index) {
+        if (getPropertyMap(thisObj).find(index) != CompactPropertyMap.NOT_FOUND) {
+            return true;
+        }
+        return super.hasOwnProperty(thisObj, index);
+    }
+
     @TruffleBoundary
     @Override
     public boolean setOwn(DynamicObject thisObj, Object key, Object value, Object receiver, boolean isStrict) {
-        EconomicMap<Object, PropertyDescriptor> hashMap = getHashMap(thisObj);
-        PropertyDescriptor property = hashMap.get(key);
-        if (property != null) {
-            setValue(key, property, thisObj, receiver, value, isStrict);
+        CompactPropertyMap map = getPropertyMap(thisObj);
+        int entry = map.find(key);
+        if (entry != CompactPropertyMap.NOT_FOUND) {
+            setValue(key, map, entry, thisObj, receiver, value, isStrict);
             return true;
         }
 
         return super.setOwn(thisObj, key, value, receiver, isStrict);
     }
 
-    private static void setValue(Object key, PropertyDescriptor property, DynamicObject store, Object thisObj, Object value, boolean isStrict) {
-        if (property.isAccessorDescriptor()) {
-            DynamicObject setter = (DynamicObject) property.getSet();
+    @TruffleBoundary
+    @Override
+    public boolean setOwn(DynamicObject thisObj, long index, Object value, Object receiver, boolean isStrict) {
+        CompactPropertyMap map = getPropertyMap(thisObj);
+        int entry = map.find(index);
+        if (entry != CompactPropertyMap.NOT_FOUND) {
+            setValue(index, map, entry, thisObj, receiver, value, isStrict);
+            return true;
+        }
+
+        return super.setOwn(thisObj, index, value, receiver, isStrict);
+    }
+
+    private static void setValue(Object key, CompactPropertyMap map, int entry, DynamicObject store, Object thisObj, Object value, boolean isStrict) {
+        if (map.isAccessor(entry)) {
+            DynamicObject setter = ((Accessor) map.getValue(entry)).getSetter();
             if (setter != Undefined.instance) {
                 JSFunction.call(setter, thisObj, new Object[]{value});
             } else if (isStrict) {
                 throw Errors.createTypeErrorCannotSetAccessorProperty(key, store);
             }
         } else {
-            assert property.isDataDescriptor();
-            if (property.getWritable()) {
-                property.setValue(value);
+            if (map.isWritable(entry)) {
+                map.setValue(entry, value);
             } else {
                 if (isStrict) {
                     throw Errors.createTypeErrorNotWritableProperty(key, thisObj);
@@ -214,9 +257,10 @@ public final class JSDictionaryObject extends JSBuiltinObject {
     @Override
     public PropertyDescriptor getOwnProperty(DynamicObject thisObj, Object key) {
         assert JSRuntime.isPropertyKey(key) || key instanceof HiddenKey;
-        PropertyDescriptor prop = getHashMap(thisObj).get(key);
-        if (prop != null) {
-            return prop;
+        CompactPropertyMap map = getPropertyMap(thisObj);
+        int entry = map.find(key);
+        if (entry != CompactPropertyMap.NOT_FOUND) {
+            return map.getPropertyDescriptor(entry);
         }
         return super.getOwnProperty(thisObj, key);
     }
@@ -225,7 +269,7 @@ public final class JSDictionaryObject extends JSBuiltinObject {
     @Override
     public boolean defineOwnProperty(DynamicObject thisObj, Object key, PropertyDescriptor desc, boolean doThrow) {
         if (!hasOwnProperty(thisObj, key) && JSObject.isExtensible(thisObj)) {
-            getHashMap(thisObj).put(key, desc);
+            getPropertyMap(thisObj).putDescriptor(key, desc);
             return true;
         }
 
@@ -235,11 +279,10 @@ public final class JSDictionaryObject extends JSBuiltinObject {
         return super.defineOwnProperty(thisObj, key, desc, doThrow);
     }
 
-    @SuppressWarnings("unchecked")
-    static EconomicMap<Object, PropertyDescriptor> getHashMap(DynamicObject obj) {
+    static CompactPropertyMap getPropertyMap(DynamicObject obj) {
         assert JSDictionaryObject.isJSDictionaryObject(obj);
         Property hashMapProperty = obj.getShape().getProperty(HASHMAP_PROPERTY_NAME);
-        return (EconomicMap<Object, PropertyDescriptor>) hashMapProperty.get(obj, false);
+        return (CompactPropertyMap) hashMapProperty.get(obj, false);
     }
 
     public static void makeDictionaryObject(DynamicObject obj, String reason) {
@@ -258,7 +301,7 @@ public final class JSDictionaryObject extends JSBuiltinObject {
         JSContext context = JSObject.getJSContext(obj);
         Shape hashedShape = makeEmptyShapeForNewType(context, currentShape, JSDictionaryObject.INSTANCE);
 
-        EconomicMap<Object, PropertyDescriptor> hashMap = newHashMap();
+        CompactPropertyMap hashMap = newHashMap();
         List<Property> properties = currentShape.getPropertyListInternal(true);
         for (Property p : properties) {
             if (JSObject.HIDDEN_PROTO.equals(p.getKey())) {
@@ -269,7 +312,11 @@ public final class JSDictionaryObject extends JSBuiltinObject {
             } else {
                 // normal properties
                 Object value = p.get(obj, false);
-                hashMap.put(p.getKey(), toPropertyDescriptor(p, value));
+                if (JSProperty.isAccessor(p)) {
+                    hashMap.putAccessor(p.getKey(), (Accessor) value, p.getFlags());
+                } else {
+                    hashMap.put(p.getKey(), value, p.getFlags());
+                }
             }
         }
 
@@ -282,8 +329,9 @@ public final class JSDictionaryObject extends JSBuiltinObject {
         hashMapProperty.setSafe(obj, hashMap, null);
 
         // invalidate property assumptions (rewrite assumption check nodes for final properties)
-        for (Object key : hashMap.getKeys()) {
-            JSShape.invalidatePropertyAssumption(currentShape, key);
+        CompactPropertyMap.Cursor keyCursor = hashMap.getEntries();
+        while (keyCursor.advance()) {
+            JSShape.invalidatePropertyAssumption(currentShape, hashMap.getKey(keyCursor.getEntry()));
         }
 
         assert isJSDictionaryObject(obj) && obj.getShape().getProperty(HASHMAP_PROPERTY_NAME) != null;
@@ -303,26 +351,13 @@ public final class JSDictionaryObject extends JSBuiltinObject {
         }
     }
 
-    private static PropertyDescriptor toPropertyDescriptor(Property p, Object value) {
-        PropertyDescriptor desc;
-        if (JSProperty.isAccessor(p)) {
-            desc = PropertyDescriptor.createAccessor(((Accessor) value).getGetter(), ((Accessor) value).getSetter());
-            desc.setConfigurable(JSProperty.isConfigurable(p));
-            desc.setEnumerable(JSProperty.isEnumerable(p));
-        } else {
-            assert JSProperty.isData(p);
-            desc = PropertyDescriptor.createData(value, JSProperty.isEnumerable(p), JSProperty.isWritable(p), JSProperty.isConfigurable(p));
-        }
-        return desc;
-    }
-
     private static void makeOrdinaryObject(DynamicObject obj, String reason) {
         CompilerAsserts.neverPartOfCompilation();
         if (JSTruffleOptions.TraceDictionaryObject) {
             System.out.printf("transitioning from dictionary object to ordinary object: %s\n", reason);
         }
 
-        EconomicMap<Object, PropertyDescriptor> hashMap = getHashMap(obj);
+        CompactPropertyMap hashMap = getPropertyMap(obj);
         Shape oldShape = obj.getShape();
         JSContext context = JSObject.getJSContext(obj);
         Shape newShape = makeEmptyShapeForNewType(context, oldShape, JSUserObject.INSTANCE);
@@ -338,14 +373,14 @@ public final class JSDictionaryObject extends JSBuiltinObject {
         }
         obj.setShapeAndGrow(oldShape, newShape);
 
-        MapCursor<Object, PropertyDescriptor> cursor = hashMap.getEntries();
+        CompactPropertyMap.Cursor cursor = hashMap.getEntries();
         while (cursor.advance()) {
-            Object key = cursor.getKey();
-            PropertyDescriptor desc = cursor.getValue();
-            if (desc.isDataDescriptor()) {
-                JSObjectUtil.defineDataProperty(obj, key, desc.getValue(), desc.getFlags());
+            int entry = cursor.getEntry();
+            Object key = hashMap.getKey(entry);
+            if (hashMap.isAccessor(entry)) {
+                JSObjectUtil.defineAccessorProperty(obj, key, (Accessor) hashMap.getValue(entry), hashMap.getFlags(entry));
             } else {
-                JSObjectUtil.defineAccessorProperty(obj, key, new Accessor((DynamicObject) desc.getGet(), (DynamicObject) desc.getSet()), desc.getFlags());
+                JSObjectUtil.defineDataProperty(obj, key, hashMap.getValue(entry), hashMap.getFlags(entry));
             }
         }
 
@@ -365,7 +400,7 @@ public final class JSDictionaryObject extends JSBuiltinObject {
         return JSObject.create(context, context.getDictionaryObjectFactory(), newHashMap());
     }
 
-    private static EconomicMap<Object, PropertyDescriptor> newHashMap() {
-        return EconomicMap.create();
+    private static CompactPropertyMap newHashMap() {
+        return new CompactPropertyMap();
     }
 }
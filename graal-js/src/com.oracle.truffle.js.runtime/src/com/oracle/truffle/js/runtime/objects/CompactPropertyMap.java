@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.objects;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.Boundaries;
+import com.oracle.truffle.js.runtime.JSRuntime;
+
+/**
+ * Property storage of dictionary-mode objects.
+ *
+ * Entries are kept in insertion order in parallel key, value, and flags arrays, with a separate
+ * open-addressing index table mapping hashes to entry indices (same layout as
+ * {@link com.oracle.truffle.js.runtime.util.JSHashMap}, minus the cached hashes). Data properties
+ * store their raw value; accessor properties store an {@link Accessor}. Attributes are kept in the
+ * flags array as {@link JSAttributes} bits, so no {@link PropertyDescriptor} is allocated per
+ * property.
+ *
+ * Property keys that are array indices are stored as {@link Long}s, so lookups by {@code long}
+ * index do not need to allocate or parse a string.
+ */
+public final class CompactPropertyMap {
+    /** Marks an accessor property; the value slot then holds an {@link Accessor}. */
+    private static final byte ACCESSOR = (byte) JSProperty.ACCESSOR;
+
+    /** Initial number of entries; must be a power of 2. */
+    private static final int INITIAL_CAPACITY = 8;
+    public static final int NOT_FOUND = -1;
+
+    private Object[] keys;
+    private Object[] values;
+    private byte[] flags;
+    /** Entry index + 1, or 0 for an empty slot. Always at least twice as large as the entries. */
+    private int[] table;
+    /** Number of used entry slots, including holes left by removed entries. */
+    private int used;
+    /** Number of live entries. */
+    private int size;
+
+    public CompactPropertyMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.flags = new byte[capacity];
+        this.table = new int[capacity << 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the entry index of the property, or {@link #NOT_FOUND}.
+     */
+    @TruffleBoundary
+    public int find(Object key) {
+        if (key instanceof String) {
+            long index = JSRuntime.propertyNameToArrayIndex((String) key);
+            if (JSRuntime.isArrayIndex(index)) {
+                return find(index);
+            }
+        }
+        return findKey(key);
+    }
+
+    private int findKey(Object key) {
+        int[] t = table;
+        int mask = t.length - 1;
+        for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+            int entry = t[slot];
+            if (entry == 0) {
+                return NOT_FOUND;
+            }
+            Object k = keys[entry - 1];
+            if (k != null && (k == key || key.equals(k))) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the entry index of the integer-keyed property, or {@link #NOT_FOUND}.
+     */
+    public int find(long index) {
+        if (!JSRuntime.isArrayIndex(index)) {
+            return findKey(Boundaries.stringValueOf(index));
+        }
+        int[] t = table;
+        int mask = t.length - 1;
+        for (int slot = hash(index) & mask;; slot = (slot + 1) & mask) {
+            int entry = t[slot];
+            if (entry == 0) {
+                return NOT_FOUND;
+            }
+            Object k = keys[entry - 1];
+            if (k instanceof Long && ((Long) k).longValue() == index) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public boolean containsKey(Object key) {
+        return find(key) != NOT_FOUND;
+    }
+
+    /**
+     * Returns the property key of the entry; array index keys are converted back to strings.
+     */
+    public Object getKey(int entry) {
+        Object key = keys[entry];
+        return key instanceof Long ? Boundaries.stringValueOf(((Long) key).longValue()) : key;
+    }
+
+    /**
+     * Returns the value of a data property or the {@link Accessor} of an accessor property.
+     */
+    public Object getValue(int entry) {
+        return values[entry];
+    }
+
+    /**
+     * Replaces the value of a data property.
+     */
+    public void setValue(int entry, Object value) {
+        assert !isAccessor(entry);
+        values[entry] = value;
+    }
+
+    /**
+     * Returns the {@link JSAttributes} of the entry.
+     */
+    public int getFlags(int entry) {
+        return flags[entry] & JSAttributes.ATTRIBUTES_MASK;
+    }
+
+    public boolean isAccessor(int entry) {
+        return (flags[entry] & ACCESSOR) != 0;
+    }
+
+    public boolean isWritable(int entry) {
+        return JSAttributes.isWritable(flags[entry]);
+    }
+
+    public boolean isConfigurable(int entry) {
+        return JSAttributes.isConfigurable(flags[entry]);
+    }
+
+    /**
+     * Inserts a data property, or replaces an existing property with a data property.
+     */
+    @TruffleBoundary
+    public void put(Object key, Object value, int attributes) {
+        putEntry(key, value, (byte) (attributes & JSAttributes.ATTRIBUTES_MASK));
+    }
+
+    /**
+     * Inserts an accessor property, or replaces an existing property with an accessor property.
+     */
+    @TruffleBoundary
+    public void putAccessor(Object key, Accessor accessor, int attributes) {
+        putEntry(key, accessor, (byte) ((attributes & JSAttributes.ATTRIBUTES_MASK) | ACCESSOR));
+    }
+
+    /**
+     * Inserts a property described by a (possibly incomplete) property descriptor, with missing
+     * fields defaulting to {@code undefined} or {@code false}.
+     */
+    @TruffleBoundary
+    public void putDescriptor(Object key, PropertyDescriptor desc) {
+        if (desc.isAccessorDescriptor()) {
+            putAccessor(key, new Accessor(orUndefined(desc.getGet()), orUndefined(desc.getSet())), desc.getFlags());
+        } else {
+            put(key, desc.hasValue() ? desc.getValue() : Undefined.instance, desc.getFlags());
+        }
+    }
+
+    private static DynamicObject orUndefined(Object function) {
+        return function == null ? Undefined.instance : (DynamicObject) function;
+    }
+
+    /**
+     * Returns a new property descriptor for the entry.
+     */
+    public PropertyDescriptor getPropertyDescriptor(int entry) {
+        if (isAccessor(entry)) {
+            Accessor accessor = (Accessor) values[entry];
+            return PropertyDescriptor.createAccessor(accessor.getGetter(), accessor.getSetter(), getFlags(entry));
+        } else {
+            return PropertyDescriptor.createData(values[entry], getFlags(entry));
+        }
+    }
+
+    public void remove(int entry) {
+        // leave a hole; the index table keeps pointing at it until the next rebuild
+        keys[entry] = null;
+        values[entry] = null;
+        flags[entry] = 0;
+        size--;
+    }
+
+    private void putEntry(Object key, Object value, byte entryFlags) {
+        Object normalizedKey = normalizeKey(key);
+        int entry = normalizedKey instanceof Long ? find(((Long) normalizedKey).longValue()) : findKey(normalizedKey);
+        if (entry != NOT_FOUND) {
+            values[entry] = value;
+            flags[entry] = entryFlags;
+            return;
+        }
+        if (used == keys.length) {
+            rebuild();
+        }
+        entry = used++;
+        keys[entry] = normalizedKey;
+        values[entry] = value;
+        flags[entry] = entryFlags;
+        size++;
+        link(entry, hash(normalizedKey));
+    }
+
+    private static Object normalizeKey(Object key) {
+        if (key instanceof String) {
+            long index = JSRuntime.propertyNameToArrayIndex((String) key);
+            if (JSRuntime.isArrayIndex(index)) {
+                return Long.valueOf(index);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Compacts the entry arrays, growing them if more than half of the entries are live.
+     */
+    private void rebuild() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        byte[] oldFlags = flags;
+        int oldUsed = used;
+        int capacity = oldKeys.length;
+        if (size >= capacity >> 1) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+        used = 0;
+        for (int i = 0; i < oldUsed; i++) {
+            Object key = oldKeys[i];
+            if (key != null) {
+                int entry = used++;
+                keys[entry] = key;
+                values[entry] = oldValues[i];
+                flags[entry] = oldFlags[i];
+                link(entry, hash(key));
+            }
+        }
+        assert used == size;
+    }
+
+    private void link(int entry, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+    }
+
+    /**
+     * Iterates over the live entries in insertion order. Must not be used while the map is
+     * modified.
+     */
+    public Cursor getEntries() {
+        return new Cursor();
+    }
+
+    public final class Cursor {
+        private int entry = -1;
+
+        Cursor() {
+        }
+
+        public boolean advance() {
+            while (++entry < used) {
+                if (keys[entry] != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Index of the current entry, for use with the accessors of the map. */
+        public int getEntry() {
+            return entry;
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(Object key) {
+        return key instanceof Long ? hash(((Long) key).longValue()) : spread(key.hashCode());
+    }
+
+    private static int hash(long index) {
+        return spread(Long.hashCode(index));
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.TruffleLanguage.Env;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+
+/**
+ * The module loader of a {@link JSContext}. Modules are identified by their canonical path.
+ *
+ * By default, each imported module is read and parsed when linking reaches it. If
+ * {@code js.module-loader-threads} is positive, loading a module first loads its whole module graph:
+ * a thread pool reads and parses the module sources in parallel and schedules the modules each of
+ * them requests, while the loading thread, which has entered the context, creates the module
+ * records as soon as their sources have been parsed. Modules that cannot be read or parsed there
+ * are left to linking, which loads them again and reports the error.
+ */
+public final class DefaultModuleLoader implements JSModuleLoader {
+    private static final String MODULE_NAME_PREFIX = "module:";
+    private static final long KEEP_ALIVE_SECONDS = 5;
+
+    private final JSContext context;
+    private final int threads;
+    private final ConcurrentMap<String, JSModuleRecord> moduleMap = new ConcurrentHashMap<>();
+    private volatile ExecutorService executor;
+
+    private final LongAdder loadedModules = new LongAdder();
+    private final LongAdder prefetchedModules = new LongAdder();
+    private final LongAdder readTime = new LongAdder();
+    private final LongAdder parseTime = new LongAdder();
+    private final LongAdder prefetchTime = new LongAdder();
+    private final LongAdder linkTime = new LongAdder();
+
+    public DefaultModuleLoader(JSContext context, int threads) {
+        this.context = context;
+        this.threads = threads;
+    }
+
+    @TruffleBoundary
+    @Override
+    public JSModuleRecord resolveImportedModule(JSModuleRecord referencingModule, String specifier) {
+        try {
+            File moduleFile = resolveModuleFile(referencingModule.getSource(), specifier);
+            String canonicalPath = moduleFile.getCanonicalPath();
+            JSModuleRecord existingModule = moduleMap.get(canonicalPath);
+            if (existingModule != null) {
+                return existingModule;
+            }
+            Source source = readModule(context.getRealm().getEnv(), moduleFile, specifier);
+            return putModule(canonicalPath, parseModule(source));
+        } catch (IOException e) {
+            throw Errors.createError(e.getMessage());
+        }
+    }
+
+    @TruffleBoundary
+    @Override
+    public JSModuleRecord loadModule(Source source) {
+        String canonicalPath;
+        try {
+            canonicalPath = getCanonicalPath(source);
+        } catch (IOException e) {
+            throw Errors.createError(e.getMessage());
+        }
+        JSModuleRecord module = moduleMap.get(canonicalPath);
+        if (module == null) {
+            module = putModule(canonicalPath, parseModule(source));
+        }
+        if (threads > 0 && !module.isResolved()) {
+            prefetch(module);
+        }
+        return module;
+    }
+
+    private JSModuleRecord putModule(String canonicalPath, JSModuleRecord module) {
+        JSModuleRecord existingModule = moduleMap.putIfAbsent(canonicalPath, module);
+        if (existingModule != null) {
+            return existingModule;
+        }
+        loadedModules.increment();
+        return module;
+    }
+
+    private Source readModule(Env env, File moduleFile, String specifier) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            TruffleFile truffleFile = env.getTruffleFile(moduleFile.getPath());
+            return Source.newBuilder(AbstractJavaScriptLanguage.ID, truffleFile).name(specifier).build();
+        } finally {
+            readTime.add(System.nanoTime() - startTime);
+        }
+    }
+
+    private JSModuleRecord parseModule(Source source) {
+        long startTime = System.nanoTime();
+        try {
+            return context.getEvaluator().parseModule(context, source, this);
+        } finally {
+            parseTime.add(System.nanoTime() - startTime);
+        }
+    }
+
+    private static File resolveModuleFile(Source referencingSource, String specifier) throws IOException {
+        return Paths.get(getCanonicalPath(referencingSource)).resolveSibling(specifier).toFile();
+    }
+
+    private static String getCanonicalPath(Source source) throws IOException {
+        String path = source.getPath();
+        if (path == null) {
+            path = source.getName();
+            if (path.startsWith(MODULE_NAME_PREFIX)) {
+                path = path.substring(MODULE_NAME_PREFIX.length());
+            }
+        }
+        return Paths.get(path).toFile().getCanonicalPath();
+    }
+
+    /**
+     * Reads and parses the modules reachable from the given module in parallel, translates them on
+     * the current thread, and returns when all of them have been loaded.
+     */
+    private void prefetch(JSModuleRecord root) {
+        long startTime = System.nanoTime();
+        Prefetch prefetch = new Prefetch(context.getRealm().getEnv());
+        prefetch.schedule(root.getSource(), context.getEvaluator().getRequestedModules(root));
+        prefetch.translateFetchedModules();
+        prefetchTime.add(System.nanoTime() - startTime);
+    }
+
+    private ExecutorService getExecutor() {
+        ExecutorService result = executor;
+        if (result == null) {
+            synchronized (this) {
+                result = executor;
+                if (result == null) {
+                    AtomicInteger threadCount = new AtomicInteger();
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "graaljs-module-loader-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    // do not keep idle threads around after the module graph has been loaded
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = result = pool;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The loading of one module graph. Reading a module source and parsing it into the parser's AST
+     * (which needs no realm) runs on the thread pool, which also schedules the modules that the
+     * parsed module requests. The translation into module records runs on the thread that loads
+     * the root module, which has entered the context.
+     */
+    private final class Prefetch {
+        final Env env;
+        final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+        /** Parsed modules, or modules without an AST if they could not be read or parsed. */
+        final BlockingQueue<FetchedModule> fetched = new LinkedBlockingQueue<>();
+        /**
+         * Number of scheduled modules that have not been taken from {@link #fetched} yet. A module
+         * schedules its requested modules before it is added to {@link #fetched}, so this does not
+         * drop to zero while the graph is still being loaded.
+         */
+        final AtomicInteger pending = new AtomicInteger();
+
+        Prefetch(Env env) {
+            this.env = env;
+        }
+
+        void schedule(Source referencingSource, List<String> requestedModules) {
+            for (String specifier : requestedModules) {
+                File moduleFile;
+                String canonicalPath;
+                try {
+                    moduleFile = resolveModuleFile(referencingSource, specifier);
+                    canonicalPath = moduleFile.getCanonicalPath();
+                } catch (IOException e) {
+                    continue;
+                }
+                if (moduleMap.containsKey(canonicalPath) || !scheduled.add(canonicalPath)) {
+                    continue;
+                }
+                pending.incrementAndGet();
+                getExecutor().execute(() -> {
+                    FetchedModule fetchedModule = new FetchedModule(canonicalPath, null, null);
+                    try {
+                        fetchedModule = fetch(canonicalPath, moduleFile, specifier);
+                    } finally {
+                        // always add an entry, the loading thread waits for it
+                        fetched.add(fetchedModule);
+                    }
+                });
+            }
+        }
+
+        private FetchedModule fetch(String canonicalPath, File moduleFile, String specifier) {
+            Source source;
+            try {
+                source = readModule(env, moduleFile, specifier);
+            } catch (IOException | RuntimeException e) {
+                // read again (and reported) when linking reaches this module
+                return new FetchedModule(canonicalPath, null, null);
+            }
+            Object preparsed;
+            long startTime = System.nanoTime();
+            try {
+                preparsed = context.getEvaluator().preparseModule(context, source);
+            } catch (RuntimeException e) {
+                // parsed again (and reported) when linking reaches this module
+                return new FetchedModule(canonicalPath, source, null);
+            } finally {
+                parseTime.add(System.nanoTime() - startTime);
+            }
+            schedule(source, context.getEvaluator().getPreparsedRequestedModules(preparsed));
+            return new FetchedModule(canonicalPath, source, preparsed);
+        }
+
+        void translateFetchedModules() {
+            while (pending.get() > 0) {
+                FetchedModule fetchedModule;
+                try {
+                    fetchedModule = fetched.take();
+                } catch (InterruptedException e) {
+                    // leave the remaining modules to linking
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                pending.decrementAndGet();
+                if (fetchedModule.preparsed == null || moduleMap.containsKey(fetchedModule.canonicalPath)) {
+                    continue;
+                }
+                JSModuleRecord module;
+                long startTime = System.nanoTime();
+                try {
+                    module = context.getEvaluator().translateModule(context, fetchedModule.source, DefaultModuleLoader.this, fetchedModule.preparsed);
+                } finally {
+                    parseTime.add(System.nanoTime() - startTime);
+                }
+                prefetchedModules.increment();
+                putModule(fetchedModule.canonicalPath, module);
+            }
+        }
+    }
+
+    private static final class FetchedModule {
+        final String canonicalPath;
+        final Source source;
+        final Object preparsed;
+
+        FetchedModule(String canonicalPath, Source source, Object preparsed) {
+            this.canonicalPath = canonicalPath;
+            this.source = source;
+            this.preparsed = preparsed;
+        }
+    }
+
+    public void addLinkTime(long nanos) {
+        linkTime.add(nanos);
+    }
+
+    /**
+     * Returns the number of modules in the module map.
+     */
+    public long getLoadedModules() {
+        return loadedModules.sum();
+    }
+
+    /**
+     * Returns the number of modules that were loaded ahead of linking by the thread pool.
+     */
+    public long getPrefetchedModules() {
+        return prefetchedModules.sum();
+    }
+
+    /**
+     * Returns the time (in nanoseconds) spent reading module sources, summed over all threads.
+     */
+    public long getReadTime() {
+        return readTime.sum();
+    }
+
+    /**
+     * Returns the time (in nanoseconds) spent parsing modules, summed over all threads.
+     */
+    public long getParseTime() {
+        return parseTime.sum();
+    }
+
+    /**
+     * Returns the elapsed time (in nanoseconds) spent waiting for module graphs to be loaded in
+     * parallel.
+     */
+    public long getPrefetchTime() {
+        return prefetchTime.sum();
+    }
+
+    /**
+     * Returns the time (in nanoseconds) spent linking modules, including the loading of modules
+     * that were not loaded ahead of time.
+     */
+    public long getLinkTime() {
+        return linkTime.sum();
+    }
+}
@@ -149,6 +149,11 @@ public final class JSLazyString implements CharSequence, TruffleObject, JSLazySt
     private CharSequence left;
     private CharSequence right;
     private final int length;
+    /**
+     * Number of rope nodes visited by {@link #charAt} so far. Once random access has walked as
+     * many nodes as there are characters, flattening would have been cheaper and we do it.
+     */
+    private int walkedNodes;
 
     private JSLazyString(CharSequence left, CharSequence right, int length) {
         assert left.length() > 0 && right.length() > 0 && length == left.length() + right.length();
@@ -203,6 +208,11 @@ public final class JSLazyString implements CharSequence, TruffleObject, JSLazySt
             assert 0 <= from && from <= to && to <= str.length();
             if (str instanceof JSLazyString) {
                 JSLazyString lazyString = (JSLazyString) str;
+                if (lazyString.isFlat()) {
+                    // already flattened node, left holds the whole string
+                    str = lazyString.left;
+                    continue;
+                }
                 CharSequence left = lazyString.left;
                 CharSequence right = lazyString.right;
                 int mid = left.length();
@@ -245,14 +255,74 @@ public final class JSLazyString implements CharSequence, TruffleObject, JSLazySt
         }
     }
 
+    /**
+     * Returns the character at the given index. Does not flatten the rope unless repeated access
+     * has become more expensive than flattening.
+     */
     @Override
     public char charAt(int index) {
-        return toString().charAt(index);
+        if (isFlat()) {
+            return ((String) left).charAt(index);
+        }
+        return ropeCharAt(index);
+    }
+
+    @TruffleBoundary
+    private char ropeCharAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        if (walkedNodes >= length) {
+            flatten();
+            return ((String) left).charAt(index);
+        }
+        CharSequence str = this;
+        int pos = index;
+        int visited = 0;
+        while (str instanceof JSLazyString) {
+            JSLazyString lazyString = (JSLazyString) str;
+            CharSequence l = lazyString.left;
+            if (lazyString.isFlat()) {
+                str = l;
+                break;
+            }
+            int mid = l.length();
+            if (pos < mid) {
+                str = l;
+            } else {
+                str = lazyString.right;
+                pos -= mid;
+            }
+            visited++;
+        }
+        walkedNodes += visited;
+        return str.charAt(pos);
     }
 
     @Override
     public CharSequence subSequence(int start, int end) {
-        return toString().subSequence(start, end);
+        return substring(start, end);
+    }
+
+    /**
+     * Returns the given range as a flat string. Only the requested range is copied, unless it
+     * covers most of the rope, in which case the rope is flattened first so that subsequent
+     * operations can use the flat string, too.
+     */
+    @TruffleBoundary
+    public String substring(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new StringIndexOutOfBoundsException();
+        }
+        if (start == end) {
+            return "";
+        }
+        if (isFlat() || (end - start) > (length >> 1)) {
+            return toString().substring(start, end);
+        }
+        char[] dst = new char[end - start];
+        flatten(this, start, end, dst, 0);
+        return new String(dst);
     }
 
     public boolean isEmpty() {
@@ -262,13 +332,19 @@ public final class JSLazyString implements CharSequence, TruffleObject, JSLazySt
     // accessed via Java Interop, JDK-8062624.js
     @TruffleBoundary
     public boolean startsWith(String prefix) {
-        return toString().startsWith(prefix);
+        if (isFlat()) {
+            return ((String) left).startsWith(prefix);
+        }
+        return prefix.length() <= length && substring(0, prefix.length()).equals(prefix);
     }
 
     // accessed via Java Interop, JDK-8062624.js
     @TruffleBoundary
-    public boolean endsWith(String prefix) {
-        return toString().endsWith(prefix);
+    public boolean endsWith(String suffix) {
+        if (isFlat()) {
+            return ((String) left).endsWith(suffix);
+        }
+        return suffix.length() <= length && substring(length - suffix.length(), length).equals(suffix);
     }
 
     // accessed via Java Interop, JDK-8062624.js
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.runtime.objects;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Property;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.Symbol;
+import com.oracle.truffle.js.runtime.builtins.JSArray;
+import com.oracle.truffle.js.runtime.builtins.JSClass;
+import com.oracle.truffle.js.runtime.builtins.JSFunction;
+import com.oracle.truffle.js.runtime.builtins.JSObjectPrototype;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
+import com.oracle.truffle.js.runtime.util.DebugCounter;
+
+/**
+ * Fixed-size (shape, key) lookup cache shared by the megamorphic property access nodes of a
+ * context.
+ *
+ * An entry records the shapes of the receiver and its prototypes up to the object holding the
+ * property (or up to the end of the prototype chain if the property is absent), so a hit only
+ * needs identity checks on the shapes instead of a property map lookup at every level. Entries
+ * are immutable and replaced wholesale, so concurrent readers never observe a torn entry. Only
+ * ordinary objects whose properties are fully described by their shape are cached. Hit rates are
+ * reported through {@link DebugCounter}s.
+ */
+public final class PropertyLookupCache {
+    private static final DebugCounter cacheHits = DebugCounter.create("Megamorphic property cache hits");
+    private static final DebugCounter cacheMisses = DebugCounter.create("Megamorphic property cache misses");
+    private static final DebugCounter cacheUncacheable = DebugCounter.create("Megamorphic property cache uncacheable lookups");
+
+    /** Longest prototype chain that is cached. */
+    private static final int MAX_DEPTH = 8;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    public PropertyLookupCache(int size) {
+        assert size > 0;
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        this.entries = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static final class Entry {
+        /** Shapes of the receiver and of each prototype visited by the lookup. */
+        final Shape[] shapes;
+        final Object key;
+        /** The property found in the last object of the chain, or {@code null} if absent. */
+        final Property property;
+
+        Entry(Shape[] shapes, Object key, Property property) {
+            this.shapes = shapes;
+            this.key = key;
+            this.property = property;
+        }
+
+        /**
+         * Checks whether this entry still describes the lookup of key in object, i.e., whether the
+         * receiver and its prototypes still have the recorded shapes.
+         */
+        boolean matches(DynamicObject object, Object lookupKey) {
+            if (key != lookupKey && !key.equals(lookupKey)) {
+                return false;
+            }
+            DynamicObject current = object;
+            for (int i = 0; i < shapes.length; i++) {
+                if (i > 0) {
+                    current = JSObject.getPrototype(current);
+                    if (current == Null.instance) {
+                        return false;
+                    }
+                }
+                Shape shape = shapes[i];
+                if (current.getShape() != shape || !shape.isValid()) {
+                    return false;
+                }
+            }
+            return property != null || JSObject.getPrototype(current) == Null.instance;
+        }
+
+        /**
+         * Returns the object holding the property; only valid after a successful match.
+         */
+        DynamicObject getHolder(DynamicObject object) {
+            DynamicObject current = object;
+            for (int i = 1; i < shapes.length; i++) {
+                current = JSObject.getPrototype(current);
+            }
+            return current;
+        }
+
+        boolean isOwn() {
+            return shapes.length == 1;
+        }
+    }
+
+    /**
+     * Returns the value of the property, or {@code null} if it is not present. Same contract as
+     * {@link JSClass#getHelper(DynamicObject, Object, Object)}.
+     */
+    @TruffleBoundary
+    public Object getHelper(DynamicObject object, Object receiver, Object key, boolean isMethod) {
+        Entry entry = lookup(object, key);
+        if (entry != null) {
+            return entry.property == null ? null : JSProperty.getValue(entry.property, entry.getHolder(object), receiver, false);
+        }
+        JSClass jsclass = JSObject.getJSClass(object);
+        return isMethod ? jsclass.getMethodHelper(object, receiver, key) : jsclass.getHelper(object, receiver, key);
+    }
+
+    @TruffleBoundary
+    public boolean hasProperty(DynamicObject object, Object key, boolean ownProperty) {
+        Entry entry = lookup(object, key);
+        if (entry != null) {
+            return entry.property != null && (!ownProperty || entry.isOwn());
+        }
+        return ownProperty ? JSObject.hasOwnProperty(object, key) : JSObject.hasProperty(object, key);
+    }
+
+    /**
+     * Assigns an existing, writable, own data property of the object.
+     *
+     * @return {@code false} if the property is not such a property and the caller has to perform
+     *         a full [[Set]].
+     */
+    @TruffleBoundary
+    public boolean setOwnDataProperty(DynamicObject object, Object key, Object value) {
+        Entry entry = lookup(object, key);
+        if (entry != null && entry.isOwn()) {
+            Property property = entry.property;
+            if (property != null && JSProperty.isData(property) && JSProperty.isWritable(property) && !JSProperty.isProxy(property)) {
+                property.setGeneric(object, value, null);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cache entry for the lookup of key in object, (re)computing it on a miss, or
+     * {@code null} if the lookup cannot be cached.
+     */
+    private Entry lookup(DynamicObject object, Object key) {
+        if (!isCacheableKey(key)) {
+            cacheUncacheable.inc();
+            return null;
+        }
+        int index = (System.identityHashCode(object.getShape()) ^ key.hashCode()) & mask;
+        Entry entry = entries[index];
+        if (entry != null && entry.shapes[0] == object.getShape() && entry.matches(object, key)) {
+            cacheHits.inc();
+            return entry;
+        }
+        entry = createEntry(object, key);
+        if (entry == null) {
+            cacheUncacheable.inc();
+            return null;
+        }
+        cacheMisses.inc();
+        entries[index] = entry;
+        return entry;
+    }
+
+    private static Entry createEntry(DynamicObject object, Object key) {
+        Shape[] shapes = new Shape[MAX_DEPTH];
+        DynamicObject current = object;
+        for (int depth = 0; depth < MAX_DEPTH; depth++) {
+            Shape shape = current.getShape();
+            if (!shape.isValid() || !isCacheableClass(JSShape.getJSClass(shape))) {
+                return null;
+            }
+            shapes[depth] = shape;
+            Property property = shape.getProperty(key);
+            if (property != null) {
+                return new Entry(Arrays.copyOf(shapes, depth + 1), key, property);
+            }
+            current = JSObject.getPrototype(current);
+            if (current == Null.instance) {
+                return new Entry(Arrays.copyOf(shapes, depth + 1), key, null);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Classes whose named (non-index) property lookup is fully determined by the shape.
+     */
+    public static boolean isCacheableClass(JSClass jsclass) {
+        return jsclass == JSUserObject.INSTANCE || jsclass == JSFunction.INSTANCE || jsclass == JSArray.INSTANCE || jsclass == JSObjectPrototype.INSTANCE;
+    }
+
+    private static boolean isCacheableKey(Object key) {
+        if (key instanceof Symbol) {
+            return true;
+        }
+        return key instanceof String && !JSRuntime.isArrayIndex(JSRuntime.propertyKeyToArrayIndex(key));
+    }
+}
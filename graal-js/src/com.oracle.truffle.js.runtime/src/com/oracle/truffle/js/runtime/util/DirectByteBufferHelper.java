@@ -42,21 +42,66 @@ package com.oracle.truffle.js.runtime.util;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.js.runtime.JSTruffleOptions;
 
 public final class DirectByteBufferHelper {
     private static final Class<? extends ByteBuffer> DIRECT_BYTE_BUFFER_CLASS = ByteBuffer.allocateDirect(0).getClass();
 
+    private static final int SLAB_SIZE = JSTruffleOptions.DirectByteBufferSlabSize;
+    private static final int SLAB_THRESHOLD = Math.min(JSTruffleOptions.DirectByteBufferSlabThreshold, SLAB_SIZE);
+    private static final int SLAB_ALIGNMENT = 8;
+
+    /**
+     * The slab that small buffers are currently carved from. Every slice keeps its slab reachable,
+     * so the slab's native memory is released by its cleaner once all slices are unreachable.
+     *
+     * In graal-nodejs, slabs complement rather than replace the pool of {@code Buffer.poolSize}
+     * bytes (8 KiB by default) that Node carves small {@code Buffer}s from in JavaScript: the pool
+     * itself is above the slab threshold and gets a buffer of its own, while {@code ArrayBuffer}s,
+     * typed arrays and zero-filled {@code Buffer}s that bypass the pool come from slabs.
+     */
+    private static final AtomicReference<Slab> CURRENT_SLAB = new AtomicReference<>();
+
+    private static final class Slab {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(SLAB_SIZE);
+        /** Start of the free part of the slab; may run past the end once the slab is full. */
+        final AtomicInteger top = new AtomicInteger();
+    }
+
     private DirectByteBufferHelper() {
     }
 
     @TruffleBoundary
     private static ByteBuffer allocateDirectImpl(int length) {
+        if (length > 0 && length <= SLAB_THRESHOLD) {
+            return allocateFromSlab(length).order(ByteOrder.nativeOrder());
+        }
         return ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
     }
 
+    private static ByteBuffer allocateFromSlab(int length) {
+        int alignedLength = (length + SLAB_ALIGNMENT - 1) & -SLAB_ALIGNMENT;
+        while (true) {
+            Slab slab = CURRENT_SLAB.get();
+            if (slab != null) {
+                int start = slab.top.getAndAdd(alignedLength);
+                if (start + length <= SLAB_SIZE) {
+                    ByteBuffer slice = slab.buffer.duplicate();
+                    slice.position(start);
+                    slice.limit(start + length);
+                    return slice.slice();
+                }
+            }
+            // the slab is full: install a new one unless another thread has done so already
+            CURRENT_SLAB.compareAndSet(slab, new Slab());
+        }
+    }
+
     public static ByteBuffer allocateDirect(int length) {
         return cast(allocateDirectImpl(length));
     }
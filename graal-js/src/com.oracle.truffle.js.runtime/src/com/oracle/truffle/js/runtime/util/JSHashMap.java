@@ -40,12 +40,20 @@
  */
 package com.oracle.truffle.js.runtime.util;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 /**
  * ES6-compliant hash map implementation.
+ *
+ * Entries are kept in insertion order in a set of parallel arrays, with a separate open-addressing
+ * index table mapping hashes to entry indices (a deterministic hash table, or "close table"). Removed
+ * entries leave a hole in the entry arrays that is squeezed out when the table is rebuilt. Cursors
+ * survive rebuilds and {@link #clear()} by following the chain of superseded {@link Store}s.
+ *
+ * Lookups with {@code int} and {@link String} keys have dedicated overloads that do not require
+ * a {@link TruffleBoundary}.
  */
 public final class JSHashMap {
     public interface Cursor {
@@ -72,15 +80,18 @@ public final class JSHashMap {
         Cursor copy();
     }
 
-    private final HashMap<Object, Node> map = new HashMap<>();
-    private final Node head = new Node(null, null, null, null);
-    private Node tail = head;
+    /** Initial number of entries; must be a power of 2. */
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int NOT_FOUND = -1;
+
+    private Store store;
 
     public JSHashMap() {
+        this.store = new Store(INITIAL_CAPACITY);
     }
 
     public int size() {
-        return map.size();
+        return store.size;
     }
 
     /**
@@ -88,172 +99,374 @@ public final class JSHashMap {
      */
     @TruffleBoundary
     public void put(Object key, Object value) {
-        Node newNode = new Node(key, value, null, null);
-        Node oldNode = map.putIfAbsent(key, newNode);
-        if (oldNode == null) {
-            newNode.setPrev(tail);
-            tail.setNext(newNode);
-            tail = newNode;
+        int hash = hash(key);
+        int index = findGeneric(store, key, hash);
+        if (index != NOT_FOUND) {
+            store.values[index] = value;
+        } else {
+            append(key, value, hash);
+        }
+    }
+
+    public void put(int key, Object value) {
+        int hash = hash(key);
+        int index = findInt(store, key, hash);
+        if (index != NOT_FOUND) {
+            store.values[index] = value;
         } else {
-            oldNode.setValue(value);
+            append(key, value, hash);
+        }
+    }
+
+    public void put(String key, Object value) {
+        int hash = hash(key);
+        int index = findString(store, key, hash);
+        if (index != NOT_FOUND) {
+            store.values[index] = value;
+        } else {
+            append(key, value, hash);
         }
     }
 
     @TruffleBoundary
     public Object get(Object key) {
-        Node node = map.get(key);
-        return node == null ? null : node.getValue();
+        return valueAt(findGeneric(store, key, hash(key)));
+    }
+
+    public Object get(int key) {
+        return valueAt(findInt(store, key, hash(key)));
+    }
+
+    public Object get(String key) {
+        return valueAt(findString(store, key, hash(key)));
     }
 
     @TruffleBoundary
     public boolean has(Object key) {
-        return map.containsKey(key);
+        return findGeneric(store, key, hash(key)) != NOT_FOUND;
+    }
+
+    public boolean has(int key) {
+        return findInt(store, key, hash(key)) != NOT_FOUND;
+    }
+
+    public boolean has(String key) {
+        return findString(store, key, hash(key)) != NOT_FOUND;
     }
 
     @TruffleBoundary
     public boolean remove(Object key) {
-        Node node = map.remove(key);
-        if (node == null) {
+        return removeAt(findGeneric(store, key, hash(key)));
+    }
+
+    public boolean remove(int key) {
+        return removeAt(findInt(store, key, hash(key)));
+    }
+
+    public boolean remove(String key) {
+        return removeAt(findString(store, key, hash(key)));
+    }
+
+    private Object valueAt(int index) {
+        return index == NOT_FOUND ? null : store.values[index];
+    }
+
+    private boolean removeAt(int index) {
+        if (index == NOT_FOUND) {
             return false;
-        } else {
-            unlink(node);
-            return true;
         }
+        Store s = store;
+        // leave a hole; the index table keeps pointing at it until the next rebuild
+        s.keys[index] = null;
+        s.values[index] = null;
+        s.size--;
+        return true;
     }
 
-    private void unlink(Node node) {
-        Node next = node.getNext();
-        Node prev = node.getPrev();
-        prev.setNext(next);
-        if (next != null) {
-            next.setPrev(prev);
-        } else {
-            tail = prev;
+    private void append(Object key, Object value, int hash) {
+        Store s = store;
+        if (s.used == s.keys.length) {
+            s = rebuild();
         }
-        node.setEmpty();
+        int index = s.used++;
+        s.keys[index] = key;
+        s.values[index] = value;
+        s.hashes[index] = hash;
+        s.size++;
+        s.link(index, hash);
     }
 
+    /**
+     * Compacts the entry arrays, growing the table if more than half of the entries are live. The
+     * old store is retained only by cursors, which use it to translate their position.
+     */
     @TruffleBoundary
-    public void clear() {
-        map.clear();
-        for (Node current = head.getNext(); current != null; current = current.getNext()) {
-            current.setEmpty();
+    private Store rebuild() {
+        Store oldStore = store;
+        int capacity = oldStore.keys.length;
+        if (oldStore.size >= capacity >> 1) {
+            capacity <<= 1;
+        }
+        Store newStore = new Store(capacity);
+        int[] removed = new int[oldStore.used - oldStore.size];
+        int removedCount = 0;
+        for (int i = 0; i < oldStore.used; i++) {
+            Object key = oldStore.keys[i];
+            if (key == null) {
+                removed[removedCount++] = i;
+            } else {
+                int index = newStore.used++;
+                int hash = oldStore.hashes[i];
+                newStore.keys[index] = key;
+                newStore.values[index] = oldStore.values[i];
+                newStore.hashes[index] = hash;
+                newStore.link(index, hash);
+            }
         }
-        head.setNext(null);
-        tail = head;
+        assert removedCount == removed.length;
+        newStore.size = oldStore.size;
+        oldStore.supersede(newStore, removed);
+        store = newStore;
+        return newStore;
+    }
+
+    @TruffleBoundary
+    public void clear() {
+        Store oldStore = store;
+        Store newStore = new Store(INITIAL_CAPACITY);
+        oldStore.supersede(newStore, null);
+        store = newStore;
     }
 
     @TruffleBoundary
     @Override
     public String toString() {
-        return map.toString();
+        StringBuilder sb = new StringBuilder("{");
+        Store s = store;
+        boolean first = true;
+        for (int i = 0; i < s.used; i++) {
+            if (s.keys[i] != null) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                sb.append(s.keys[i]).append('=').append(s.values[i]);
+                first = false;
+            }
+        }
+        return sb.append('}').toString();
     }
 
     public Cursor getEntries() {
-        return new CursorImpl(head);
+        return new CursorImpl(store);
     }
 
-    private static final class CursorImpl implements Cursor {
-        private Node current;
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
 
-        CursorImpl(Node head) {
-            this.current = head;
-        }
+    private static int hash(Object key) {
+        return spread(key.hashCode());
+    }
 
-        @Override
-        public boolean advance() {
-            if (current == null) {
-                return false;
-            } else {
-                // if current is no longer in the map, back up to a previous node still in the map
-                while (current.isEmpty() && current.getPrev() != null) {
-                    current = current.getPrev();
+    private static int hash(int key) {
+        return spread(Integer.hashCode(key));
+    }
+
+    private static int hash(String key) {
+        return spread(key.hashCode());
+    }
+
+    private static int findGeneric(Store s, Object key, int hash) {
+        int[] table = s.table;
+        int mask = table.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return NOT_FOUND;
+            }
+            int index = entry - 1;
+            if (s.hashes[index] == hash) {
+                Object k = s.keys[index];
+                if (k != null && (k == key || key.equals(k))) {
+                    return index;
                 }
-                Node next = current.getNext();
-                assert next == null || next.getKey() != null;
-                current = next;
-                return next != null;
             }
         }
+    }
 
-        @Override
-        public Object getKey() {
-            Object key = current.getKey();
-            assert key != null;
-            return key;
-        }
-
-        @Override
-        public Object getValue() {
-            Object value = current.getValue();
-            assert value != null;
-            return value;
+    private static int findInt(Store s, int key, int hash) {
+        int[] table = s.table;
+        int mask = table.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return NOT_FOUND;
+            }
+            int index = entry - 1;
+            if (s.hashes[index] == hash) {
+                Object k = s.keys[index];
+                if (k instanceof Integer && ((Integer) k).intValue() == key) {
+                    return index;
+                }
+            }
         }
+    }
 
-        @Override
-        public String toString() {
-            return "Cursor [current=" + current + "]";
+    private static int findString(Store s, String key, int hash) {
+        int[] table = s.table;
+        int mask = table.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return NOT_FOUND;
+            }
+            int index = entry - 1;
+            if (s.hashes[index] == hash) {
+                Object k = s.keys[index];
+                if (k instanceof String && stringEquals(key, (String) k)) {
+                    return index;
+                }
+            }
         }
+    }
 
-        @Override
-        public Cursor copy() {
-            return new CursorImpl(current);
-        }
+    @TruffleBoundary
+    private static boolean stringEquals(String a, String b) {
+        return a.equals(b);
     }
 
-    private static final class Node {
-        private Object key;
-        private Object value;
-        private Node prev;
-        private Node next;
+    /**
+     * Backing storage of a {@link JSHashMap}: insertion-ordered entry arrays plus an index table
+     * with linear probing. The index table is at least twice as large as the entry arrays, so
+     * probing always terminates at an empty slot.
+     */
+    private static final class Store {
+        Object[] keys;
+        Object[] values;
+        int[] hashes;
+        /** Entry index + 1, or 0 for an empty slot. */
+        int[] table;
+        /** Number of used entry slots, including holes left by removed entries. */
+        int used;
+        /** Number of live entries. */
+        int size;
+
+        /** The store that replaced this one, or {@code null} if this store is still current. */
+        Store next;
+        /**
+         * Sorted indices of the holes that were squeezed out when this store was superseded, or
+         * {@code null} if the store was superseded by {@link JSHashMap#clear()}.
+         */
+        int[] removed;
 
-        Node(Object key, Object value, Node prev, Node next) {
-            this.key = key;
-            this.value = value;
-            this.prev = prev;
-            this.next = next;
+        Store(int capacity) {
+            this.keys = new Object[capacity];
+            this.values = new Object[capacity];
+            this.hashes = new int[capacity];
+            this.table = new int[capacity << 1];
         }
 
-        Object getKey() {
-            return key;
+        void link(int index, int hash) {
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
         }
 
-        Object getValue() {
-            return value;
+        void supersede(Store newStore, int[] removedIndices) {
+            this.next = newStore;
+            this.removed = removedIndices;
+            // only the cursor transition information is needed from now on
+            this.keys = null;
+            this.values = null;
+            this.hashes = null;
+            this.table = null;
         }
 
-        void setValue(Object value) {
-            this.value = value;
+        /**
+         * Translates an entry position in this (superseded) store to the position in the next one.
+         */
+        int transition(int position) {
+            assert next != null;
+            if (removed == null) {
+                return 0;
+            }
+            int count = Arrays.binarySearch(removed, position);
+            // number of holes before position
+            count = count >= 0 ? count : -(count + 1);
+            return position - count;
         }
+    }
 
-        Node getPrev() {
-            return prev;
+    private static final class CursorImpl implements Cursor {
+        private Store store;
+        /** Position of the next entry to examine. */
+        private int position;
+        private Object currentKey;
+        private Object currentValue;
+
+        CursorImpl(Store store) {
+            this.store = store;
         }
 
-        void setPrev(Node prev) {
-            this.prev = prev;
+        private CursorImpl(Store store, int position, Object currentKey, Object currentValue) {
+            this.store = store;
+            this.position = position;
+            this.currentKey = currentKey;
+            this.currentValue = currentValue;
         }
 
-        Node getNext() {
-            return next;
-        }
+        @Override
+        public boolean advance() {
+            // if the map has been rebuilt or cleared, move over to the current store
+            Store s = store;
+            while (s.next != null) {
+                position = s.transition(position);
+                s = s.next;
+            }
+            store = s;
 
-        void setNext(Node next) {
-            this.next = next;
+            int i = position;
+            while (i < s.used && s.keys[i] == null) {
+                i++;
+            }
+            if (i < s.used) {
+                currentKey = s.keys[i];
+                currentValue = s.values[i];
+                position = i + 1;
+                return true;
+            } else {
+                currentKey = null;
+                currentValue = null;
+                position = i;
+                return false;
+            }
         }
 
-        void setEmpty() {
-            this.key = null;
-            this.value = null;
+        @Override
+        public Object getKey() {
+            Object key = currentKey;
+            assert key != null;
+            return key;
         }
 
-        boolean isEmpty() {
-            return this.key == null;
+        @Override
+        public Object getValue() {
+            Object value = currentValue;
+            assert value != null;
+            return value;
         }
 
         @Override
         public String toString() {
-            return "Node [key=" + key + ", value=" + value + "]";
+            return "Cursor [key=" + currentKey + ", value=" + currentValue + "]";
+        }
+
+        @Override
+        public Cursor copy() {
+            return new CursorImpl(store, position, currentKey, currentValue);
         }
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.scriptengine.test;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+
+import com.oracle.truffle.js.scriptengine.GraalJSScriptEngine;
+
+/**
+ * Measures the throughput of evaluating a compiled script against a new {@link ScriptContext} per
+ * evaluation, as done by rule engines that keep the state of each evaluation separate, compared to
+ * evaluating it repeatedly against the same {@link ScriptContext}.
+ *
+ * A new context reuses the language instance of the closed context of the previous evaluation, and
+ * with it the parsed script; the difference between the two configurations is the cost of creating
+ * and initializing a polyglot context.
+ *
+ * Usage: {@code ScriptEngineThroughput [seconds per configuration]}.
+ */
+public final class ScriptEngineThroughput {
+
+    private static final String RULE = "" +
+                    "function score(order) {\n" +
+                    "    var total = 0;\n" +
+                    "    for (var i = 0; i < order.items.length; i++) {\n" +
+                    "        var item = order.items[i];\n" +
+                    "        total += item.price * item.quantity * (item.quantity > 10 ? 0.9 : 1);\n" +
+                    "    }\n" +
+                    "    return total > limit ? 'review' : 'accept';\n" +
+                    "}\n" +
+                    "var order = {items: []};\n" +
+                    "for (var j = 0; j < 20; j++) {\n" +
+                    "    order.items.push({price: j * 1.5, quantity: j % 13});\n" +
+                    "}\n" +
+                    "score(order);\n";
+
+    private ScriptEngineThroughput() {
+    }
+
+    public static void main(String[] args) throws ScriptException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        run("same context", GraalJSScriptEngine.create(null, null), seconds, false);
+        run("new context per eval", GraalJSScriptEngine.create(null, null), seconds, true);
+    }
+
+    private static void run(String name, GraalJSScriptEngine engine, int seconds, boolean newContextPerEval) throws ScriptException {
+        try {
+            CompiledScript script = engine.compile(RULE);
+            // warm up for the same time as we measure
+            evalRepeatedly(engine, script, seconds, newContextPerEval);
+            long start = System.nanoTime();
+            long evals = evalRepeatedly(engine, script, seconds, newContextPerEval);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-40s %10.1f evals/s%n", name, evals / elapsed);
+        } finally {
+            engine.close();
+        }
+    }
+
+    private static long evalRepeatedly(GraalJSScriptEngine engine, CompiledScript script, int seconds, boolean newContextPerEval) throws ScriptException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long evals = 0;
+        ScriptContext ctx = null;
+        do {
+            if (ctx == null) {
+                ctx = new SimpleScriptContext();
+                ctx.getBindings(ScriptContext.ENGINE_SCOPE).put("limit", 1000);
+            }
+            if (!"review".equals(script.eval(ctx))) {
+                throw new AssertionError("unexpected result");
+            }
+            if (newContextPerEval) {
+                engine.getPolyglotContext(ctx).close();
+                ctx = null;
+            }
+            evals++;
+        } while (System.nanoTime() < deadline);
+        if (ctx != null) {
+            engine.getPolyglotContext(ctx).close();
+        }
+        return evals;
+    }
+}
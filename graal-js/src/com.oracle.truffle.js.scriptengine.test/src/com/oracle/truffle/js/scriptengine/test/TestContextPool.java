@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.scriptengine.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.junit.Test;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.builtins.JSFunction;
+import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.scriptengine.GraalJSContextPool;
+
+public class TestContextPool {
+
+    @Test
+    public void evalInParallel() throws InterruptedException, ExecutionException {
+        Source source = Source.create("js", "var sum = 0; for (var i = 0; i < 1000; i++) { sum += i; } sum;");
+        try (Engine engine = Engine.create(); GraalJSContextPool pool = GraalJSContextPool.create(engine, null, 4)) {
+            List<CompletableFuture<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(pool.eval(source));
+            }
+            for (CompletableFuture<Object> result : results) {
+                assertEquals(499500, ((Number) result.get()).intValue());
+            }
+            GraalJSContextPool.Statistics statistics = pool.getStatistics();
+            assertEquals(100, statistics.getCompletedTasks());
+            long perWorker = 0;
+            for (int i = 0; i < pool.getSize(); i++) {
+                perWorker += statistics.getCompletedTasks(i);
+                assertTrue(statistics.getUtilization(i) >= 0 && statistics.getUtilization(i) <= 1);
+            }
+            assertEquals(100, perWorker);
+            assertEquals(100, statistics.getStartedTasks());
+            assertTrue(statistics.getMaxQueueLatencyNanos() >= statistics.getAverageQueueLatencyNanos());
+        }
+    }
+
+    @Test
+    public void workersReuseParsedCode() throws InterruptedException, ExecutionException {
+        Source source = Source.create("js", "function f(x) { return x * 2; } f(21);");
+        try (GraalJSContextPool pool = GraalJSContextPool.create(null, null, 2)) {
+            List<CompletableFuture<JSFunctionData>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                results.add(pool.submit(context -> {
+                    context.eval(source);
+                    DynamicObject global = AbstractJavaScriptLanguage.getCurrentJSRealm().getGlobalObject();
+                    return JSFunction.getFunctionData((DynamicObject) JSObject.get(global, "f"));
+                }));
+            }
+            Set<JSFunctionData> functionData = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (CompletableFuture<JSFunctionData> result : results) {
+                functionData.add(result.get());
+            }
+            // the source is parsed at most once per worker, not once per task
+            assertTrue(functionData.size() + " parses", functionData.size() <= pool.getSize());
+        }
+    }
+
+    @Test
+    public void workerKeepsItsContext() throws InterruptedException, ExecutionException {
+        try (GraalJSContextPool pool = GraalJSContextPool.create(null, null, 1)) {
+            for (int i = 1; i <= 10; i++) {
+                int counter = pool.submit(context -> context.eval("js", "this.counter = (this.counter || 0) + 1").asInt()).get();
+                assertEquals(i, counter);
+            }
+        }
+    }
+
+    @Test
+    public void exceptionCompletesFuture() throws InterruptedException {
+        try (GraalJSContextPool pool = GraalJSContextPool.create(null, null, 1)) {
+            try {
+                pool.eval(Source.create("js", "throw new Error('boom')")).get();
+                fail("expected an exception");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof PolyglotException);
+            }
+            // the worker stays usable
+            try {
+                assertEquals(42, ((Number) pool.eval(Source.create("js", "42")).get()).intValue());
+            } catch (ExecutionException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    @Test
+    public void contextCreationFailureFailsTasks() throws InterruptedException {
+        Context.Builder invalidConfig = Context.newBuilder("js").option("js.no-such-option", "true");
+        try (GraalJSContextPool pool = GraalJSContextPool.create(null, invalidConfig, 2)) {
+            List<CompletableFuture<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                results.add(pool.eval(Source.create("js", "42")));
+            }
+            for (CompletableFuture<Object> result : results) {
+                try {
+                    result.get();
+                    fail("expected an exception");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalArgumentException);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void submitAfterClose() {
+        GraalJSContextPool pool = GraalJSContextPool.create(null, null, 1);
+        pool.close();
+        pool.eval(Source.create("js", "42"));
+    }
+}
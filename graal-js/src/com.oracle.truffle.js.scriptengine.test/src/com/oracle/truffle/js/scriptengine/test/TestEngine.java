@@ -43,9 +43,12 @@ package com.oracle.truffle.js.scriptengine.test;
 import static org.junit.Assert.assertEquals;
 
 import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -102,4 +105,18 @@ public class TestEngine {
         ));
         // @formatter:on
     }
+
+    @Test
+    public void compiledScriptInNewContexts() throws ScriptException {
+        try (GraalJSScriptEngine engine = GraalJSScriptEngine.create(null, null)) {
+            CompiledScript script = engine.compile("var counter = (typeof counter === 'undefined' ? 0 : counter) + 1; counter * x;");
+            for (int i = 0; i < 10; i++) {
+                ScriptContext ctx = new SimpleScriptContext();
+                ctx.getBindings(ScriptContext.ENGINE_SCOPE).put("x", i);
+                // every context starts with a fresh global object
+                assertEquals(i, ((Number) script.eval(ctx)).intValue());
+                engine.getPolyglotContext(ctx).close();
+            }
+        }
+    }
 }
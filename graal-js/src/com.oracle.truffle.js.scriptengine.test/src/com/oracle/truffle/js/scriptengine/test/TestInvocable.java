@@ -54,6 +54,9 @@ import javax.script.ScriptException;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.oracle.truffle.js.scriptengine.GraalJSInvoker;
+import com.oracle.truffle.js.scriptengine.GraalJSScriptEngine;
+
 public class TestInvocable {
 
     private final ScriptEngineManager manager = new ScriptEngineManager();
@@ -86,6 +89,66 @@ public class TestInvocable {
         assertSame(arg, inv.invokeFunction(functionName, arg));
     }
 
+    @Test
+    public void invokeRedefinedFunction() throws ScriptException, NoSuchMethodException {
+        ScriptEngine engine = getEngine();
+        Invocable inv = (Invocable) engine;
+
+        engine.eval("function fun() { return 1; }");
+        assertEquals(1, ((Number) inv.invokeFunction("fun")).intValue());
+        engine.eval("function fun() { return 2; }");
+        assertEquals(2, ((Number) inv.invokeFunction("fun")).intValue());
+        engine.put("fun", null);
+        try {
+            inv.invokeFunction("fun");
+            fail();
+        } catch (NoSuchMethodException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void invokeFunctionReassignedByScript() throws ScriptException, NoSuchMethodException {
+        GraalJSScriptEngine engine = (GraalJSScriptEngine) getEngine();
+
+        engine.eval("function fun() { return 1; } function redefine() { fun = function() { return 2; }; }");
+        GraalJSInvoker invoker = engine.getFunctionInvoker("fun");
+        assertEquals(1, ((Number) engine.invokeFunction("fun")).intValue());
+        engine.invokeFunction("redefine");
+        assertEquals(2, ((Number) engine.invokeFunction("fun")).intValue());
+        // the handle stays bound to the function it was created for
+        assertEquals(1, invoker.invokeInt());
+    }
+
+    @Test
+    public void functionInvoker() throws ScriptException, NoSuchMethodException {
+        GraalJSScriptEngine engine = (GraalJSScriptEngine) getEngine();
+
+        engine.eval("function add(a, b) { return a + b; }");
+        GraalJSInvoker add = engine.getFunctionInvoker("add");
+        assertEquals(3, add.invokeInt(1, 2));
+        assertEquals(3L, add.invokeLong(1, 2));
+        assertEquals(0.75, add.invokeDouble(0.5, 0.25), 0);
+        assertEquals("ab", add.invokeString("a", "b"));
+    }
+
+    @Test
+    public void methodInvoker() throws ScriptException, NoSuchMethodException {
+        GraalJSScriptEngine engine = (GraalJSScriptEngine) getEngine();
+
+        Object obj = engine.eval("({limit: 10, exceeds: function(x) { return x > this.limit; }})");
+        GraalJSInvoker exceeds = engine.getMethodInvoker(obj, "exceeds");
+        assertEquals(true, exceeds.invokeBoolean(11));
+        assertEquals(false, exceeds.invokeBoolean(10));
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void missingFunctionInvoker() throws ScriptException, NoSuchMethodException {
+        GraalJSScriptEngine engine = (GraalJSScriptEngine) getEngine();
+        engine.eval("var notAFunction = 42;");
+        engine.getFunctionInvoker("notAFunction");
+    }
+
     @Test(expected = NoSuchMethodException.class)
     public void invokeGlobal() throws ScriptException, NoSuchMethodException {
         ScriptEngine engine = getEngine();
@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.scriptengine;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+
+/**
+ * A fixed-size pool of polyglot contexts, each confined to its own worker thread, that executes
+ * independent tasks in parallel. Tasks are dispatched to the first idle worker through a common
+ * work queue.
+ *
+ * All contexts are created from the same polyglot {@link Engine}. A worker keeps its context for
+ * the lifetime of the pool, so a cached {@link Source} is parsed once per worker and the code
+ * compiled for it is reused by all later tasks of that worker. Contexts that are alive at the same
+ * time each have their own JavaScript language instance, so a pool of {@code n} workers holds up to
+ * {@code n} copies of that code; the contexts of a closed pool leave their language instances, and
+ * their code, to contexts created later on the same engine.
+ */
+public final class GraalJSContextPool implements AutoCloseable {
+
+    private static final String ID = "js";
+
+    private final Engine engine;
+    private final boolean ownsEngine;
+    private final Context.Builder contextConfig;
+    private final BlockingQueue<Task<?>> queue = new LinkedBlockingQueue<>();
+    private final Worker[] workers;
+    private final long createdNanos = System.nanoTime();
+    private final LongAdder startedTasks = new LongAdder();
+    private final LongAdder queueLatencyNanos = new LongAdder();
+    private final LongAccumulator maxQueueLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    /** Guards {@link #closed}, {@link #liveWorkers} and {@link #workerFailure}. */
+    private final Object lock = new Object();
+    private boolean closed;
+    /** Number of workers that have a context (or are still creating it). */
+    private int liveWorkers;
+    /** Set when no worker could create its context, tasks fail with this exception. */
+    private RuntimeException workerFailure;
+
+    private GraalJSContextPool(Engine engine, Context.Builder contextConfig, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.ownsEngine = (engine == null);
+        this.engine = ownsEngine ? Engine.create() : engine;
+        Context.Builder contextConfigToUse = contextConfig;
+        if (contextConfigToUse == null) {
+            // default config
+            contextConfigToUse = Context.newBuilder(ID).allowHostAccess(true);
+        }
+        this.contextConfig = contextConfigToUse.engine(this.engine);
+        this.workers = new Worker[size];
+        this.liveWorkers = size;
+        for (int i = 0; i < size; i++) {
+            workers[i] = new Worker(i);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Creates a pool with one worker per available processor and default configuration.
+     *
+     * @see #create(Engine, Context.Builder, int) to customize the configuration.
+     */
+    public static GraalJSContextPool create() {
+        return create(null, null, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a pool of {@code size} workers. Each worker owns a context built from
+     * {@code newContextConfig} (or a default configuration if {@code null}) on top of the given
+     * engine. If {@code engine} is {@code null}, a new engine is created and it is closed together
+     * with the pool.
+     */
+    public static GraalJSContextPool create(Engine engine, Context.Builder newContextConfig, int size) {
+        return new GraalJSContextPool(engine, newContextConfig, size);
+    }
+
+    /**
+     * Returns the polyglot engine shared by the contexts of this pool.
+     */
+    public Engine getPolyglotEngine() {
+        return engine;
+    }
+
+    /**
+     * Returns the number of workers (and contexts) of this pool.
+     */
+    public int getSize() {
+        return workers.length;
+    }
+
+    /**
+     * Submits a task that is executed in the context of the first available worker. Polyglot values
+     * must not escape the task, the result should be converted to a host value.
+     */
+    public <T> CompletableFuture<T> submit(Function<Context, T> task) {
+        Task<T> t = new Task<>(task);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Context pool is closed.");
+            }
+            if (workerFailure != null) {
+                t.future.completeExceptionally(workerFailure);
+            } else {
+                queue.add(t);
+            }
+        }
+        return t.future;
+    }
+
+    /**
+     * Evaluates the given source in the context of the first available worker and converts the
+     * result to a host object using {@code Value.as(Object.class)}. The source should be cached
+     * (the default) so that each worker parses it only once.
+     */
+    public CompletableFuture<Object> eval(Source source) {
+        return submit(context -> context.eval(source).as(Object.class));
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this pool.
+     */
+    public Statistics getStatistics() {
+        long now = System.nanoTime();
+        long[] completed = new long[workers.length];
+        double[] utilization = new double[workers.length];
+        long elapsed = Math.max(1, now - createdNanos);
+        long totalCompleted = 0;
+        for (int i = 0; i < workers.length; i++) {
+            Worker worker = workers[i];
+            completed[i] = worker.completedTasks.get();
+            utilization[i] = Math.min(1.0, (double) worker.busyNanos() / elapsed);
+            totalCompleted += completed[i];
+        }
+        return new Statistics(completed, utilization, queue.size(), totalCompleted, startedTasks.sum(), queueLatencyNanos.sum(), maxQueueLatencyNanos.get());
+    }
+
+    /**
+     * Executes the tasks submitted so far and closes the contexts (and the engine if it was created
+     * by this pool). Submitting tasks after closing throws an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (int i = 0; i < workers.length; i++) {
+                queue.add(Task.SHUTDOWN);
+            }
+        }
+        boolean interrupted = false;
+        for (Worker worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (ownsEngine) {
+            engine.close();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Context createContext() {
+        // Context.Builder is not thread-safe
+        synchronized (contextConfig) {
+            return contextConfig.build();
+        }
+    }
+
+    private static final class Task<T> {
+        static final Task<Void> SHUTDOWN = new Task<>(null);
+
+        final Function<Context, T> function;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long submittedNanos = System.nanoTime();
+
+        Task(Function<Context, T> function) {
+            this.function = function;
+        }
+
+        void run(Context context) {
+            try {
+                future.complete(function.apply(context));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+
+    private final class Worker extends Thread {
+        final AtomicLong completedTasks = new AtomicLong();
+        final AtomicLong busyNanos = new AtomicLong();
+        /** Start of the task being executed or 0 if idle. */
+        volatile long taskStartNanos;
+
+        Worker(int index) {
+            super("graaljs-pool-worker-" + index);
+            setDaemon(true);
+        }
+
+        long busyNanos() {
+            long start = taskStartNanos;
+            return busyNanos.get() + (start == 0 ? 0 : System.nanoTime() - start);
+        }
+
+        @Override
+        public void run() {
+            Context context;
+            try {
+                context = createContext();
+            } catch (RuntimeException e) {
+                workerFailed(e);
+                return;
+            }
+            try {
+                while (true) {
+                    Task<?> task = queue.take();
+                    if (task == Task.SHUTDOWN) {
+                        break;
+                    }
+                    if (task.future.isDone()) {
+                        continue; // cancelled
+                    }
+                    long start = System.nanoTime();
+                    long latency = start - task.submittedNanos;
+                    startedTasks.increment();
+                    queueLatencyNanos.add(latency);
+                    maxQueueLatencyNanos.accumulate(latency);
+                    taskStartNanos = start;
+                    context.enter();
+                    try {
+                        task.run(context);
+                    } finally {
+                        context.leave();
+                        busyNanos.addAndGet(System.nanoTime() - start);
+                        taskStartNanos = 0;
+                        completedTasks.incrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // pool is shutting down
+            } finally {
+                context.close();
+            }
+        }
+
+        /**
+         * Called when this worker could not create its context. The queued tasks are left to the
+         * other workers, unless this was the last one.
+         */
+        private void workerFailed(RuntimeException cause) {
+            synchronized (lock) {
+                if (--liveWorkers > 0) {
+                    return;
+                }
+                workerFailure = cause;
+                Task<?> task;
+                while ((task = queue.poll()) != null) {
+                    if (task != Task.SHUTDOWN) {
+                        task.future.completeExceptionally(cause);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the statistics of a {@link GraalJSContextPool}.
+     */
+    public static final class Statistics {
+        private final long[] completedTasks;
+        private final double[] utilization;
+        private final int queueLength;
+        private final long totalCompletedTasks;
+        private final long totalStartedTasks;
+        private final long totalQueueLatencyNanos;
+        private final long maxQueueLatencyNanos;
+
+        Statistics(long[] completedTasks, double[] utilization, int queueLength, long totalCompletedTasks, long totalStartedTasks, long totalQueueLatencyNanos,
+                        long maxQueueLatencyNanos) {
+            this.completedTasks = completedTasks;
+            this.utilization = utilization;
+            this.queueLength = queueLength;
+            this.totalCompletedTasks = totalCompletedTasks;
+            this.totalStartedTasks = totalStartedTasks;
+            this.totalQueueLatencyNanos = totalQueueLatencyNanos;
+            this.maxQueueLatencyNanos = maxQueueLatencyNanos;
+        }
+
+        /**
+         * Returns the number of tasks completed by the given worker.
+         */
+        public long getCompletedTasks(int worker) {
+            return completedTasks[worker];
+        }
+
+        /**
+         * Returns the fraction of the lifetime of the pool (between 0 and 1) that the given worker
+         * spent executing tasks.
+         */
+        public double getUtilization(int worker) {
+            return utilization[worker];
+        }
+
+        /**
+         * Returns the number of tasks waiting for a worker.
+         */
+        public int getQueueLength() {
+            return queueLength;
+        }
+
+        /**
+         * Returns the number of tasks completed by all workers.
+         */
+        public long getCompletedTasks() {
+            return totalCompletedTasks;
+        }
+
+        /**
+         * Returns the number of tasks taken from the queue by a worker, including the tasks that
+         * are still executing.
+         */
+        public long getStartedTasks() {
+            return totalStartedTasks;
+        }
+
+        /**
+         * Returns the average time (in nanoseconds) that a started task waited in the queue.
+         */
+        public long getAverageQueueLatencyNanos() {
+            return totalStartedTasks == 0 ? 0 : totalQueueLatencyNanos / totalStartedTasks;
+        }
+
+        /**
+         * Returns the longest time (in nanoseconds) that a task waited in the queue.
+         */
+        public long getMaxQueueLatencyNanos() {
+            return maxQueueLatencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("completed=").append(totalCompletedTasks);
+            sb.append(", started=").append(totalStartedTasks);
+            sb.append(", queued=").append(queueLength);
+            sb.append(", avgQueueLatencyNanos=").append(getAverageQueueLatencyNanos());
+            sb.append(", maxQueueLatencyNanos=").append(maxQueueLatencyNanos);
+            for (int i = 0; i < utilization.length; i++) {
+                sb.append(String.format(", worker%d=[completed=%d, utilization=%.2f]", i, completedTasks[i], utilization[i]));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.scriptengine;
+
+import javax.script.ScriptException;
+
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+
+/**
+ * A reusable handle to a JavaScript function, obtained from
+ * {@link GraalJSScriptEngine#getFunctionInvoker(String)} or
+ * {@link GraalJSScriptEngine#getMethodInvoker(Object, String)}. The function is looked up once,
+ * when the handle is created; later changes to the binding or property it was read from are not
+ * observed by the handle.
+ *
+ * Besides {@link #invoke(Object...)}, which converts the result like
+ * {@link javax.script.Invocable#invokeFunction(String, Object...)}, the handle offers accessors
+ * that return the result as a primitive value without boxing it.
+ */
+public final class GraalJSInvoker {
+
+    private final String name;
+    private final Value function;
+
+    private GraalJSInvoker(String name, Value function) {
+        this.name = name;
+        this.function = function;
+    }
+
+    static GraalJSInvoker create(String name, Value function) throws NoSuchMethodException {
+        if (function == null) {
+            throw new NoSuchMethodException(name);
+        } else if (!function.canExecute()) {
+            throw new NoSuchMethodException(name + " is not a function");
+        }
+        return new GraalJSInvoker(name, function);
+    }
+
+    /**
+     * Returns the name under which the function was looked up.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Invokes the function and converts the result to a host object.
+     */
+    public Object invoke(Object... args) throws ScriptException {
+        return execute(args).as(Object.class);
+    }
+
+    /**
+     * Invokes the function and returns the result as an {@code int}.
+     *
+     * @throws ClassCastException if the result is not a number that fits into an {@code int}.
+     */
+    public int invokeInt(Object... args) throws ScriptException {
+        return execute(args).asInt();
+    }
+
+    /**
+     * Invokes the function and returns the result as a {@code long}.
+     *
+     * @throws ClassCastException if the result is not a number that fits into a {@code long}.
+     */
+    public long invokeLong(Object... args) throws ScriptException {
+        return execute(args).asLong();
+    }
+
+    /**
+     * Invokes the function and returns the result as a {@code double}.
+     *
+     * @throws ClassCastException if the result is not a number that fits into a {@code double}.
+     */
+    public double invokeDouble(Object... args) throws ScriptException {
+        return execute(args).asDouble();
+    }
+
+    /**
+     * Invokes the function and returns the result as a {@code boolean}.
+     *
+     * @throws ClassCastException if the result is not a boolean.
+     */
+    public boolean invokeBoolean(Object... args) throws ScriptException {
+        return execute(args).asBoolean();
+    }
+
+    /**
+     * Invokes the function and returns the result as a {@code String}, or {@code null} if the
+     * result is {@code null} or {@code undefined}.
+     *
+     * @throws ClassCastException if the result is not a string.
+     */
+    public String invokeString(Object... args) throws ScriptException {
+        return execute(args).asString();
+    }
+
+    private Value execute(Object[] args) throws ScriptException {
+        try {
+            return function.execute(args);
+        } catch (PolyglotException e) {
+            throw new ScriptException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GraalJSInvoker[" + name + "]";
+    }
+}
@@ -245,6 +245,31 @@ public final class GraalJSScriptEngine extends AbstractScriptEngine implements C
         return invoke(name, value, args);
     }
 
+    /**
+     * Returns a reusable handle to the global function with the given name in the default
+     * ScriptContext of the engine. Calling the handle avoids the lookup of the function that
+     * {@link #invokeFunction(String, Object...)} performs.
+     *
+     * @throws NoSuchMethodException if there is no global function with the given name.
+     */
+    public GraalJSInvoker getFunctionInvoker(String name) throws NoSuchMethodException {
+        return GraalJSInvoker.create(name, getOrCreateContext(context).getBindings(ID).getMember(name));
+    }
+
+    /**
+     * Returns a reusable handle to the method with the given name of a script object. Calling the
+     * handle avoids the lookup of the method that {@link #invokeMethod(Object, String, Object...)}
+     * performs.
+     *
+     * @throws NoSuchMethodException if the object has no method with the given name.
+     */
+    public GraalJSInvoker getMethodInvoker(Object thiz, String name) throws NoSuchMethodException {
+        if (thiz == null) {
+            throw new IllegalArgumentException("thiz is not a valid object.");
+        }
+        return GraalJSInvoker.create(name, getPolyglotContext().asValue(thiz).getMember(name));
+    }
+
     public static Object invoke(String methodName, Value function, Object... args) throws NoSuchMethodException, ScriptException {
         if (function == null) {
             throw new NoSuchMethodException(methodName);
@@ -54,6 +54,7 @@ import org.graalvm.polyglot.Context;
 import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.js.nodes.NodeFactory;
 import com.oracle.truffle.js.nodes.ScriptNode;
+import com.oracle.truffle.js.parser.CodeCache;
 import com.oracle.truffle.js.parser.JavaScriptTranslator;
 import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
 import com.oracle.truffle.js.runtime.JSContext;
@@ -74,6 +75,7 @@ public class SnapshotTool {
         assert !JSTruffleOptions.LazyTranslation;
 
         boolean binary = true;
+        boolean codeCache = false;
         String outDir = null;
         String inDir = null;
         List<String> srcFiles = new ArrayList<>();
@@ -83,6 +85,9 @@ public class SnapshotTool {
                     binary = false;
                 } else if (arg.equals("--binary")) {
                     binary = true;
+                } else if (arg.equals("--codecache")) {
+                    binary = true;
+                    codeCache = true;
                 } else if (arg.startsWith("--file=")) {
                     srcFiles.add(arg.substring(arg.indexOf('=') + 1));
                 } else if (arg.startsWith("--outdir=")) {
@@ -104,13 +109,13 @@ public class SnapshotTool {
                     if (!sourceFile.isFile()) {
                         throw new IllegalArgumentException("Not a file: " + sourceFile);
                     }
-                    snapshotTool.snapshotScriptFileTo(srcFile, sourceFile, outputFile, binary);
+                    snapshotTool.snapshotScriptFileTo(srcFile, sourceFile, codeCache ? null : outputFile, outDir, binary);
                 }
                 snapshotTool.timeStats.print();
                 polyglotContext.leave();
             }
         } else {
-            System.out.println("Usage: [--java|--binary] --outdir=DIR [--indir=DIR] --file=FILE [--file=FILE ...]");
+            System.out.println("Usage: [--java|--binary|--codecache] --outdir=DIR [--indir=DIR] --file=FILE [--file=FILE ...]");
         }
     }
 
@@ -121,7 +126,11 @@ public class SnapshotTool {
         return dir;
     }
 
-    private void snapshotScriptFileTo(String fileName, File sourceFile, File outputFile, boolean binary) throws IOException {
+    /**
+     * Writes a snapshot of the source file to the output file, or, if {@code outputFile} is
+     * {@code null}, to a {@link CodeCache} entry in the output directory.
+     */
+    private void snapshotScriptFileTo(String fileName, File sourceFile, File outputFile, String outDir, boolean binary) throws IOException {
         JSRealm realm = AbstractJavaScriptLanguage.getCurrentJSRealm();
         JSContext context = realm.getContext();
         Recording.logv("recording snapshot of %s", fileName);
@@ -131,8 +140,12 @@ public class SnapshotTool {
             rec = new Recording();
             ScriptNode program = JavaScriptTranslator.translateScript(RecordingProxy.createRecordingNodeFactory(rec, NodeFactory.getInstance(context)), context, source, false);
             rec.finish(program.getRootNode());
-            outputFile.getParentFile().mkdirs();
-            try (FileOutputStream outs = new FileOutputStream(outputFile)) {
+            File outFile = outputFile;
+            if (outFile == null) {
+                outFile = Paths.get(outDir, CodeCache.computeKey(context, source, false) + CodeCache.FILE_SUFFIX).toFile();
+            }
+            outFile.getParentFile().mkdirs();
+            try (FileOutputStream outs = new FileOutputStream(outFile)) {
                 rec.saveToStream(fileName, outs, binary);
             }
         } catch (RuntimeException e) {
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.stats;
+
+import org.graalvm.collections.EconomicMap;
+
+import com.oracle.truffle.js.runtime.objects.CompactPropertyMap;
+import com.oracle.truffle.js.runtime.objects.JSAttributes;
+import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
+
+/**
+ * Compares the retained heap of the property storage of dictionary-mode objects: the former
+ * {@code EconomicMap<Object, PropertyDescriptor>} representation, with one descriptor per property,
+ * and {@link CompactPropertyMap}.
+ *
+ * Every table is filled the way an object used as a cache would be: half of the keys are plain
+ * names and half are integer-like. Values are shared among both representations, so only the
+ * storage overhead is measured.
+ *
+ * Usage: {@code DictionaryObjectMemory [keys per object] [objects]}.
+ */
+public final class DictionaryObjectMemory {
+
+    private DictionaryObjectMemory() {
+    }
+
+    public static void main(String[] args) {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int objects = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Object[] keyPool = new Object[keys];
+        Object[] valuePool = new Object[keys];
+        for (int i = 0; i < keys; i++) {
+            keyPool[i] = (i & 1) == 0 ? "key" + i : String.valueOf(i);
+            valuePool[i] = (double) i;
+        }
+
+        long compact = measure(objects, () -> {
+            CompactPropertyMap map = new CompactPropertyMap();
+            for (int i = 0; i < keys; i++) {
+                map.put(keyPool[i], valuePool[i], JSAttributes.getDefault());
+            }
+            return map;
+        });
+        long descriptors = measure(objects, () -> {
+            EconomicMap<Object, PropertyDescriptor> map = EconomicMap.create();
+            for (int i = 0; i < keys; i++) {
+                map.put(keyPool[i], PropertyDescriptor.createDataDefault(valuePool[i]));
+            }
+            return map;
+        });
+
+        System.out.printf("%d objects x %d keys%n", objects, keys);
+        report("EconomicMap<Object, PropertyDescriptor>", descriptors, objects * (long) keys);
+        report("CompactPropertyMap", compact, objects * (long) keys);
+        System.out.printf("%-40s %10.2fx%n", "reduction", descriptors / (double) compact);
+    }
+
+    private interface TableFactory {
+        Object create();
+    }
+
+    private static long measure(int objects, TableFactory factory) {
+        Object[] tables = new Object[objects];
+        long before = usedHeap();
+        for (int i = 0; i < objects; i++) {
+            tables[i] = factory.create();
+        }
+        long retained = usedHeap() - before;
+        if (tables[objects - 1] == null) {
+            throw new AssertionError();
+        }
+        return retained;
+    }
+
+    private static void report(String name, long bytes, long properties) {
+        System.out.printf("%-40s %10d KB %8.1f bytes/property%n", name, bytes / 1024, bytes / (double) properties);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@code Array.prototype.sort} and {@code %TypedArray%.prototype.sort}, covering the
+ * merge sort used with a compare function and the unboxed default sorts of int arrays and typed
+ * arrays.
+ */
+public class ArraySortTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Context.create("js");
+        context.eval("js", "var seed = 42; function random() { seed = (seed * 1103515245 + 12345) % 2147483648; return seed; }" +
+                        "function stringOrder(a, b) { a = String(a); b = String(b); return a < b ? -1 : (a > b ? 1 : 0); }" +
+                        "function same(a, b) { return a.length === b.length && a.every((v, i) => Object.is(v, b[i])); }");
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    private boolean evalBoolean(String code) {
+        return context.eval("js", code).asBoolean();
+    }
+
+    private String evalString(String code) {
+        return context.eval("js", code).asString();
+    }
+
+    @Test
+    public void compareFunctionIsStable() {
+        // long enough to need several merge passes after the insertion-sorted runs
+        assertTrue(evalBoolean("var records = []; for (var i = 0; i < 1000; i++) { records.push({key: random() % 10, index: i}); }" +
+                        "records.sort((a, b) => a.key - b.key);" +
+                        "records.every((r, i) => i === 0 || records[i - 1].key < r.key || (records[i - 1].key === r.key && records[i - 1].index < r.index))"));
+        assertEquals("1,2,3", evalString("[3, 1, 2].sort((a, b) => a - b).join()"));
+        assertEquals("", evalString("[].sort((a, b) => a - b).join()"));
+    }
+
+    @Test
+    public void compareFunctionResultIsConverted() {
+        assertEquals("3,2,1", evalString("[1, 3, 2].sort((a, b) => String(b - a)).join()"));
+        assertEquals("3,2,1", evalString("[1, 3, 2].sort((a, b) => ({valueOf() { return b - a; }})).join()"));
+        // NaN counts as equal, so the order is unchanged
+        assertEquals("2,1,3", evalString("[2, 1, 3].sort(() => NaN).join()"));
+    }
+
+    @Test
+    public void undefinedAndHolesSortLast() {
+        assertTrue(evalBoolean("var a = [3, undefined, 1, , 2, undefined]; var calls = 0;" +
+                        "a.sort((x, y) => { calls++; if (x === undefined || y === undefined) throw new Error('called with undefined'); return x - y; });" +
+                        "a.length === 6 && a.slice(0, 3).join() === '1,2,3' && a[3] === undefined && a[4] === undefined && 3 in a && 4 in a && !(5 in a) && calls > 0"));
+        assertEquals("10,9,,", evalString("[9, undefined, 10, undefined].sort().join()"));
+    }
+
+    @Test
+    public void defaultSortOfIntArrays() {
+        assertEquals("-1,-10,-2,0,1,10,100,2,9", evalString("[10, 9, 1, -1, -10, 100, 2, 0, -2].sort().join()"));
+        assertEquals("-2147483648,-2147483647,0,2147483647", evalString("[2147483647, -2147483648, 0, -2147483647].sort().join()"));
+        assertTrue(evalBoolean("var ints = []; for (var i = 0; i < 2000; i++) { ints.push((random() | 0) >> (i % 31)); }" +
+                        "same(ints.slice().sort(), ints.slice().sort(stringOrder))"));
+        assertTrue(evalBoolean("var ints = []; for (var i = 0; i < 100; i++) { ints.push(random() % 1000); }" +
+                        "same(ints.slice().sort(), ints.slice().sort(stringOrder))"));
+    }
+
+    @Test
+    public void defaultSortOfTypedArrays() {
+        assertEquals("-128,-1,0,5,127", evalString("new Int8Array([5, -1, 127, 0, -128]).sort().join()"));
+        assertEquals("0,1,2147483648,4294967295", evalString("new Uint32Array([4294967295, 1, 2147483648, 0]).sort().join()"));
+        assertEquals("-2147483648,-1,0,2147483647", evalString("new Int32Array([2147483647, 0, -1, -2147483648]).sort().join()"));
+        assertTrue(evalBoolean("same(Array.from(new Float64Array([1.5, NaN, -0, 0, -Infinity, -1.5, Infinity]).sort()), [-Infinity, -1.5, -0, 0, 1.5, Infinity, NaN])"));
+        assertTrue(evalBoolean("same(Array.from(new Float32Array([NaN, 0, -0, 2.5, -2.5]).sort()), [-2.5, -0, 0, 2.5, NaN])"));
+        assertTrue(evalBoolean("var ta = new Int32Array(1000); for (var i = 0; i < ta.length; i++) { ta[i] = random() - 1073741824; }" +
+                        "var expected = Array.from(ta).sort((a, b) => a - b); same(Array.from(ta.sort()), expected)"));
+        // views sort in place, within their bounds only
+        assertEquals("9,1,2,3,0", evalString("var buffer = new Int16Array([9, 3, 1, 2, 0]); new Int16Array(buffer.buffer, 2, 3).sort(); buffer.join()"));
+    }
+
+    @Test
+    public void typedArrayWithCompareFunction() {
+        assertEquals("5,4,3,2,1", evalString("new Uint8Array([3, 1, 5, 2, 4]).sort((a, b) => b - a).join()"));
+        assertEquals("3,2,1", evalString("new BigInt64Array([1, 3, 2].map(BigInt)).sort((a, b) => (a < b ? 1 : a > b ? -1 : 0)).join()"));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@code Java.parseJSON}, which parses JSON from byte buffers and readers.
+ */
+public class JavaParseJSONTest {
+    private static final String JSON = "{\"name\": \"caf\\u00e9 \u00fc\", \"list\": [1, 2.5, -0, true, null, {\"a\": []}], \"n\": 1e3}";
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Context.newBuilder("js").allowHostAccess(true).build();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    private String parseAndStringify(Object input) {
+        context.getBindings("js").putMember("input", input);
+        Value result = context.eval("js", "var parsed = Java.parseJSON(input); " +
+                        "JSON.stringify(parsed) === JSON.stringify(JSON.parse(" + quote(JSON) + ")) ? JSON.stringify(parsed) : 'mismatch ' + JSON.stringify(parsed);");
+        return result.asString();
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder("'");
+        for (char c : s.toCharArray()) {
+            if (c == '\\' || c == '\'') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.append('\'').toString();
+    }
+
+    private static String expected() {
+        return "{\"name\":\"caf\u00e9 \u00fc\",\"list\":[1,2.5,0,true,null,{\"a\":[]}],\"n\":1000}";
+    }
+
+    @Test
+    public void reader() {
+        assertEquals(expected(), parseAndStringify(new StringReader(JSON)));
+    }
+
+    @Test
+    public void byteArray() {
+        assertEquals(expected(), parseAndStringify(JSON.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void byteBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 + JSON.length() * 3);
+        buffer.put(new byte[]{'x', 'x'});
+        int start = buffer.position();
+        buffer.put(JSON.getBytes(StandardCharsets.UTF_8));
+        buffer.flip();
+        buffer.position(start);
+        assertEquals(expected(), parseAndStringify(buffer));
+        assertEquals("buffer position must not change", start, buffer.position());
+    }
+
+    @Test
+    public void arrayBuffer() {
+        context.getBindings("js").putMember("bytes", JSON.getBytes(StandardCharsets.UTF_8));
+        Value result = context.eval("js", "var ab = new ArrayBuffer(bytes.length); var view = new Uint8Array(ab); " +
+                        "for (var i = 0; i < bytes.length; i++) { view[i] = bytes[i] & 0xff; } JSON.stringify(Java.parseJSON(ab));");
+        assertEquals(expected(), result.asString());
+    }
+
+    @Test
+    public void largeInput() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 20000; i++) {
+            if (i > 0) {
+                sb.append(",\n");
+            }
+            sb.append("{\"id\": ").append(i).append(", \"label\": \"item ").append(i).append("\"}");
+        }
+        StringBuilder longString = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            longString.append((char) ('a' + i % 26));
+        }
+        sb.append(",\"").append(longString).append("\"]");
+        context.getBindings("js").putMember("input", new StringReader(sb.toString()));
+        Value result = context.eval("js", "var parsed = Java.parseJSON(input); " +
+                        "parsed.length + ' ' + parsed[19999].id + ' ' + parsed[19999].label + ' ' + parsed[20000].length;");
+        assertEquals("20001 19999 item 19999 50000", result.asString());
+    }
+
+    /**
+     * A string longer than the read buffer made of surrogate pairs, with an odd prefix so that a
+     * pair straddles the end of the first buffer fill.
+     */
+    @Test
+    public void supplementaryCharactersAcrossBufferBoundary() {
+        StringBuilder sb = new StringBuilder("[\"x");
+        for (int i = 0; i < 6000; i++) {
+            sb.appendCodePoint(0x1F600 + i % 50);
+        }
+        String json = sb.append("\"]").toString();
+        String check = "var parsed = Java.parseJSON(input); " +
+                        "parsed[0].length + ' ' + parsed[0].codePointAt(1).toString(16) + ' ' + parsed[0].codePointAt(parsed[0].length - 2).toString(16);";
+        String expected = (1 + 6000 * 2) + " 1f600 " + Integer.toHexString(0x1F600 + 5999 % 50);
+        context.getBindings("js").putMember("input", json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(expected, context.eval("js", check).asString());
+        context.getBindings("js").putMember("input", ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(expected, context.eval("js", check).asString());
+        context.getBindings("js").putMember("input", new StringReader(json));
+        assertEquals(expected, context.eval("js", check).asString());
+    }
+
+    @Test
+    public void syntaxErrors() {
+        String[] inputs = {"", "[1,", "{\"a\" 1}", "[tru]", "01", "{} x", "\"\\x\""};
+        for (String input : inputs) {
+            context.getBindings("js").putMember("input", new StringReader(input));
+            try {
+                context.eval("js", "Java.parseJSON(input);");
+                fail("SyntaxError expected for " + input);
+            } catch (PolyglotException ex) {
+                assertTrue(input + ": " + ex.getMessage(), ex.isGuestException() && ex.getMessage().startsWith("SyntaxError"));
+            }
+        }
+    }
+
+    @Test
+    public void unsupportedInput() {
+        try {
+            context.eval("js", "Java.parseJSON('{}');");
+            fail("TypeError expected");
+        } catch (PolyglotException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("TypeError"));
+        }
+    }
+}
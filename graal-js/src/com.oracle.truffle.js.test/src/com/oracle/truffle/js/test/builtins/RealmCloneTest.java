@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+
+/**
+ * Tests for {@code Realm.clone}, the structured clone of a value into another realm.
+ */
+public class RealmCloneTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Context.newBuilder("js").option(JSContextOptions.V8_REALM_BUILTIN_NAME, "true").build();
+        context.eval("js", "var r = Realm.create(); var target = Realm.global(r);" +
+                        "function cloneThrows(value) { try { Realm.clone(r, value); return false; } catch (e) { return e instanceof TypeError && /could not be cloned/.test(e.message); } }");
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    private boolean evalBoolean(String code) {
+        return context.eval("js", code).asBoolean();
+    }
+
+    @Test
+    public void cyclicAndSharedReferences() {
+        assertTrue(evalBoolean("var o = {name: 'o'}; var shared = [o]; o.self = o; o.list = [o, shared, shared];" +
+                        "var c = Realm.clone(r, o);" +
+                        "c !== o && c.name === 'o' && c.self === c && c.list[0] === c && c.list[1] === c.list[2] && c.list[1][0] === c"));
+        assertTrue(evalBoolean("Object.getPrototypeOf(c) === target.Object.prototype && c.list instanceof target.Array"));
+    }
+
+    @Test
+    public void mapAndSet() {
+        assertTrue(evalBoolean("var key = {k: 1}; var m = new Map([[key, 'a'], ['b', key]]); var s = new Set([key, 2, 'x']);" +
+                        "var c = Realm.clone(r, {m: m, s: s});" +
+                        "c.m instanceof target.Map && c.s instanceof target.Set && c.m.size === 2 && c.s.size === 3"));
+        assertTrue(evalBoolean("var ck = c.m.keys().next().value; ck !== key && ck.k === 1 && c.m.get(ck) === 'a' && c.m.get('b') === ck && c.s.has(ck) && c.s.has(2) && c.s.has('x')"));
+        assertTrue(evalBoolean("[...c.s].join() === [...s].map(v => v === key ? ck : v).join() && !c.m.has(key)"));
+    }
+
+    @Test
+    public void arraysWithHoles() {
+        assertTrue(evalBoolean("var a = [1, , 3]; var d = [0.5, , {}]; var sparse = []; sparse[100000] = 'x'; sparse.extra = true;" +
+                        "var c = Realm.clone(r, [a, d, sparse]);" +
+                        "c[0].length === 3 && !(1 in c[0]) && c[0][2] === 3 && c[1].length === 3 && !(1 in c[1]) && c[1][0] === 0.5 && c[1][2] !== d[2]"));
+        assertTrue(evalBoolean("c[2].length === 100001 && Object.keys(c[2]).join() === '100000,extra' && c[2][100000] === 'x'"));
+    }
+
+    @Test
+    public void typedArraysSharingOneBuffer() {
+        assertTrue(evalBoolean("var buffer = new ArrayBuffer(8); new Uint8Array(buffer)[0] = 7;" +
+                        "var c = Realm.clone(r, {bytes: new Uint8Array(buffer), words: new Uint16Array(buffer, 2, 2), view: new DataView(buffer, 4)});" +
+                        "c.bytes.buffer === c.words.buffer && c.view.buffer === c.bytes.buffer && c.bytes.buffer !== buffer && c.bytes[0] === 7"));
+        assertTrue(evalBoolean("c.words.byteOffset === 2 && c.words.length === 2 && c.view.byteOffset === 4 && c.bytes instanceof target.Uint8Array"));
+        // the copy has its own memory that is shared by all of its views
+        assertTrue(evalBoolean("c.bytes[2] = 1; c.view.setUint8(0, 9); c.words[0] === 1 && c.bytes[4] === 9 && new Uint8Array(buffer)[2] === 0"));
+    }
+
+    @Test
+    public void sharedArrayBufferStaysShared() {
+        assertTrue(evalBoolean("var sab = new SharedArrayBuffer(8); var c = Realm.clone(r, new Int32Array(sab));" +
+                        "c.buffer !== sab && c.buffer instanceof target.SharedArrayBuffer && (c[1] = 5, new Int32Array(sab)[1] === 5)"));
+    }
+
+    @Test
+    public void detachedBufferThrows() {
+        context.eval("js", "var detached = new ArrayBuffer(4); var view = new Uint8Array(detached);");
+        context.enter();
+        try {
+            DynamicObject global = AbstractJavaScriptLanguage.getCurrentJSRealm().getGlobalObject();
+            JSArrayBuffer.detachArrayBuffer((DynamicObject) JSObject.get(global, "detached"));
+        } finally {
+            context.leave();
+        }
+        assertTrue(evalBoolean("cloneThrows(detached) && cloneThrows({view: view})"));
+    }
+
+    @Test
+    public void functionsAndSymbolsAreRejected() {
+        assertTrue(evalBoolean("cloneThrows(function f() {}) && cloneThrows(() => 1) && cloneThrows({nested: [Math.max]})"));
+        assertTrue(evalBoolean("cloneThrows(Symbol('s')) && cloneThrows({s: Symbol.iterator}) && cloneThrows(new Map([[1, Symbol()]]))"));
+    }
+}
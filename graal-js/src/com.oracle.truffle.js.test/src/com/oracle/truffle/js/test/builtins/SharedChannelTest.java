@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.builtins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@code SharedChannel} builtins within a single agent.
+ */
+public class SharedChannelTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Context.newBuilder("js").option("js.shared-channel", "true").build();
+        context.eval("js", "var sab = new SharedArrayBuffer(8);");
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    private boolean evalBoolean(String code) {
+        return context.eval("js", code).asBoolean();
+    }
+
+    @Test
+    public void roundTrip() {
+        assertEquals(4, context.eval("js", "SharedChannel.open(sab, {capacity: 3, multiProducer: false})").asInt());
+        assertTrue(evalBoolean("SharedChannel.postMessage(sab, {a: 1, b: 'x', c: [1, 2.5, null, true]})"));
+        assertTrue(evalBoolean("SharedChannel.postMessage(sab, 42)"));
+        assertEquals(2, context.eval("js", "SharedChannel.size(sab)").asInt());
+        assertTrue(evalBoolean("JSON.stringify(SharedChannel.receive(sab, 0)) === '{\"a\":1,\"b\":\"x\",\"c\":[1,2.5,null,true]}'"));
+        assertTrue(evalBoolean("SharedChannel.receive(sab, 0) === 42"));
+        assertTrue(evalBoolean("SharedChannel.receive(sab, 0) === undefined"));
+    }
+
+    @Test
+    public void fullChannel() {
+        context.eval("js", "SharedChannel.open(sab, {capacity: 2});");
+        assertTrue(evalBoolean("SharedChannel.postMessage(sab, 1) && SharedChannel.postMessage(sab, 2)"));
+        assertTrue(evalBoolean("SharedChannel.postMessage(sab, 3) === false"));
+        assertTrue(evalBoolean("SharedChannel.receive(sab, 0) === 1 && SharedChannel.postMessage(sab, 3)"));
+    }
+
+    @Test
+    public void cyclicAndSharedReferences() {
+        assertTrue(evalBoolean("var o = {name: 'o'}; var shared = [o]; o.self = o; o.list = [o, shared, shared]; " +
+                        "SharedChannel.postMessage(sab, o);" +
+                        "var r = SharedChannel.receive(sab, 0);" +
+                        "r !== o && r.name === 'o' && r.self === r && r.list[0] === r && r.list[1] === r.list[2] && r.list[1][0] === r"));
+    }
+
+    @Test
+    public void transferDetachesBuffer() {
+        assertTrue(evalBoolean("var ab = new ArrayBuffer(4); new Uint8Array(ab)[1] = 7; var copied = new ArrayBuffer(4);" +
+                        "SharedChannel.postMessage(sab, {t: new Uint8Array(ab), c: copied}, [ab]);" +
+                        "var r = SharedChannel.receive(sab, 0);" +
+                        "ab.byteLength === 0 && copied.byteLength === 4 && r.t[1] === 7 && r.c.byteLength === 4"));
+    }
+
+    @Test
+    public void sharedArrayBufferKeepsMemory() {
+        assertTrue(evalBoolean("SharedChannel.postMessage(sab, {view: new Int32Array(sab)});" +
+                        "var r = SharedChannel.receive(sab, 0); r.view[0] = 5; new Int32Array(sab)[0] === 5"));
+    }
+}
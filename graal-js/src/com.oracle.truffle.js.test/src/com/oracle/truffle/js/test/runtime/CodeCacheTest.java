@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oracle.truffle.js.parser.CodeCache;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+
+/**
+ * Tests the on-disk code cache ({@code js.code-cache-dir}): entries are written on a miss, and
+ * entries that cannot be used are discarded and replaced without affecting the result.
+ */
+public class CodeCacheTest {
+    private static final String CODE = "var x = 6; function f(y) { return x * y; } f(7);";
+    /** Magic number, format checksum, source length and source hash code. */
+    private static final int HEADER_SIZE = 16;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void missAndHit() throws IOException {
+        assertEquals(42, eval());
+        Path entry = cacheEntry();
+        byte[] recorded = Files.readAllBytes(entry);
+        assertEquals(42, eval());
+        assertArrayEquals(recorded, Files.readAllBytes(entry));
+    }
+
+    @Test
+    public void truncatedEntry() throws IOException {
+        assertReplaced(bytes -> Arrays.copyOf(bytes, bytes.length / 2));
+    }
+
+    @Test
+    public void headerOnlyEntry() throws IOException {
+        assertReplaced(bytes -> Arrays.copyOf(bytes, HEADER_SIZE));
+    }
+
+    @Test
+    public void emptyEntry() throws IOException {
+        assertReplaced(bytes -> new byte[0]);
+    }
+
+    @Test
+    public void notASnapshot() throws IOException {
+        assertReplaced(bytes -> CODE.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void formatVersionMismatch() throws IOException {
+        assertReplaced(bytes -> {
+            byte[] result = bytes.clone();
+            // the format checksum follows the magic number
+            result[4] ^= 0x55;
+            return result;
+        });
+    }
+
+    @Test
+    public void sourceMismatch() throws IOException {
+        assertReplaced(bytes -> {
+            byte[] result = bytes.clone();
+            // the source length follows the format checksum
+            result[8] ^= 0x01;
+            return result;
+        });
+    }
+
+    private interface Corruption {
+        byte[] apply(byte[] bytes);
+    }
+
+    /**
+     * Corrupts the cache entry of {@link #CODE} and checks that the script still runs correctly and
+     * that the entry is recorded again.
+     */
+    private void assertReplaced(Corruption corruption) throws IOException {
+        assertEquals(42, eval());
+        Path entry = cacheEntry();
+        byte[] recorded = Files.readAllBytes(entry);
+        Files.write(entry, corruption.apply(recorded));
+
+        assertEquals(42, eval());
+        byte[] rerecorded = Files.readAllBytes(cacheEntry());
+        assertArrayEquals(Arrays.copyOf(recorded, HEADER_SIZE), Arrays.copyOf(rerecorded, HEADER_SIZE));
+        assertEquals(recorded.length, rerecorded.length);
+        assertEquals(42, eval());
+    }
+
+    private int eval() {
+        try (Context context = Context.newBuilder("js").option(JSContextOptions.CODE_CACHE_DIR_NAME, folder.getRoot().getPath()).build()) {
+            return context.eval(Source.create("js", CODE)).asInt();
+        }
+    }
+
+    private Path cacheEntry() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            List<Path> entries = files.filter(f -> f.getFileName().toString().endsWith(CodeCache.FILE_SUFFIX)).collect(Collectors.toList());
+            assertEquals(entries.toString(), 1, entries.size());
+            return entries.get(0);
+        }
+    }
+}
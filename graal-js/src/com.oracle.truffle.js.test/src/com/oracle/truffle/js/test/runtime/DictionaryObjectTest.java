@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.polyglot.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSRealm;
+import com.oracle.truffle.js.runtime.builtins.JSDictionaryObject;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
+import com.oracle.truffle.js.runtime.objects.Accessor;
+import com.oracle.truffle.js.runtime.objects.CompactPropertyMap;
+import com.oracle.truffle.js.runtime.objects.JSAttributes;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.PropertyDescriptor;
+import com.oracle.truffle.js.runtime.objects.Undefined;
+
+/**
+ * Tests the property storage of dictionary-mode objects ({@link CompactPropertyMap}) and the
+ * transitions of {@link JSDictionaryObject} from and to ordinary objects.
+ */
+public class DictionaryObjectTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Context.create("js");
+        context.initialize("js");
+        context.enter();
+    }
+
+    @After
+    public void tearDown() {
+        context.leave();
+        context.close();
+    }
+
+    @Test
+    public void indexKeysAreNormalized() {
+        CompactPropertyMap map = new CompactPropertyMap();
+        map.put("5", "five", JSAttributes.getDefault());
+        map.put("05", "not an index", JSAttributes.getDefault());
+        map.put("4294967295", "too large for an index", JSAttributes.getDefault());
+
+        int entry = map.find(5L);
+        assertNotEquals(CompactPropertyMap.NOT_FOUND, entry);
+        assertEquals(entry, map.find("5"));
+        assertEquals("5", map.getKey(entry));
+        assertEquals("five", map.getValue(entry));
+        assertEquals("not an index", map.getValue(map.find("05")));
+        assertEquals("too large for an index", map.getValue(map.find(4294967295L)));
+        assertEquals(map.find("4294967295"), map.find(4294967295L));
+        assertEquals(CompactPropertyMap.NOT_FOUND, map.find(6L));
+
+        // replacing an index key through its string form does not add an entry
+        map.put("5", "FIVE", JSAttributes.getDefault());
+        assertEquals(3, map.size());
+        assertEquals("FIVE", map.getValue(map.find(5L)));
+    }
+
+    @Test
+    public void deleteAndReAdd() {
+        CompactPropertyMap map = new CompactPropertyMap();
+        map.put("a", 1, JSAttributes.getDefault());
+        map.put("b", 2, JSAttributes.getDefault());
+        map.put("0", 3, JSAttributes.getDefault());
+        map.remove(map.find("a"));
+        assertFalse(map.containsKey("a"));
+        map.put("a", 4, JSAttributes.getDefault());
+        assertEquals(3, map.size());
+        assertEquals(4, map.getValue(map.find("a")));
+        assertEquals(keys("b", "0", "a"), keys(map));
+    }
+
+    @Test
+    public void deleteAndReAddAcrossRebuilds() {
+        CompactPropertyMap map = new CompactPropertyMap();
+        List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String key = i % 3 == 0 ? String.valueOf(i) : "k" + i;
+            map.put(key, i, JSAttributes.getDefault());
+            expected.add(key);
+            if (i % 2 == 1) {
+                // delete and re-add an older key, which moves it to the end
+                Object old = expected.remove(i / 4);
+                map.remove(map.find(old));
+                map.put(old, "again", JSAttributes.getDefault());
+                expected.add(old);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, keys(map));
+        for (Object key : expected) {
+            assertNotEquals(CompactPropertyMap.NOT_FOUND, map.find(key));
+        }
+    }
+
+    @Test
+    public void accessorFlags() {
+        CompactPropertyMap map = new CompactPropertyMap();
+        Accessor accessor = new Accessor(Undefined.instance, Undefined.instance);
+        map.putAccessor("acc", accessor, JSAttributes.configurableNotEnumerable());
+        map.put("data", 1, JSAttributes.notConfigurableEnumerableNotWritable());
+
+        int acc = map.find("acc");
+        assertTrue(map.isAccessor(acc));
+        assertTrue(map.isConfigurable(acc));
+        assertEquals(JSAttributes.configurableNotEnumerable(), map.getFlags(acc));
+        assertSame(accessor, map.getValue(acc));
+        PropertyDescriptor desc = map.getPropertyDescriptor(acc);
+        assertTrue(desc.isAccessorDescriptor());
+        assertFalse(desc.getEnumerable());
+        assertTrue(desc.getConfigurable());
+
+        int data = map.find("data");
+        assertFalse(map.isAccessor(data));
+        assertFalse(map.isWritable(data));
+        assertFalse(map.isConfigurable(data));
+        assertEquals(JSAttributes.notConfigurableEnumerableNotWritable(), map.getFlags(data));
+
+        // replacing the accessor with a data property clears the accessor flag
+        map.put("acc", 2, JSAttributes.getDefault());
+        assertFalse(map.isAccessor(map.find("acc")));
+        assertTrue(map.isWritable(map.find("acc")));
+    }
+
+    @Test
+    public void makeOrdinaryObjectRoundTrip() {
+        JSRealm realm = AbstractJavaScriptLanguage.getCurrentJSRealm();
+        DynamicObject dict = JSDictionaryObject.create(realm.getContext());
+        JSObject.set(realm.getGlobalObject(), "dict", dict);
+        context.eval("js", "dict.b = 1; dict[2] = 'two'; dict.a = 2; dict[1] = 'one';" +
+                        "Object.defineProperty(dict, 'acc', {get: function() { return this.b * 10; }, configurable: true});" +
+                        "delete dict.b; dict.b = 3;");
+        assertTrue(JSDictionaryObject.isJSDictionaryObject(dict));
+        String expectedKeys = "1,2,a,acc,b";
+        assertEquals(expectedKeys, context.eval("js", "Object.getOwnPropertyNames(dict).join()").asString());
+
+        // redefining an existing property turns the object back into an ordinary object
+        context.eval("js", "Object.defineProperty(dict, 'a', {value: 5, writable: false});");
+        assertFalse(JSDictionaryObject.isJSDictionaryObject(dict));
+        assertTrue(JSUserObject.isJSUserObject(dict));
+        assertEquals(expectedKeys, context.eval("js", "Object.getOwnPropertyNames(dict).join()").asString());
+        assertEquals(30, context.eval("js", "dict.acc").asInt());
+        assertEquals("false,true", context.eval("js", "var d = Object.getOwnPropertyDescriptor(dict, 'acc'); [d.enumerable, d.configurable].join()").asString());
+        assertEquals("5,false,true", context.eval("js", "var d = Object.getOwnPropertyDescriptor(dict, 'a'); [d.value, d.writable, d.enumerable].join()").asString());
+        assertEquals("one,two,3", context.eval("js", "[dict[1], dict['2'], dict.b].join()").asString());
+    }
+
+    private static List<Object> keys(Object... keys) {
+        List<Object> list = new ArrayList<>();
+        for (Object key : keys) {
+            list.add(key);
+        }
+        return list;
+    }
+
+    private static List<Object> keys(CompactPropertyMap map) {
+        List<Object> list = new ArrayList<>();
+        CompactPropertyMap.Cursor cursor = map.getEntries();
+        while (cursor.advance()) {
+            list.add(map.getKey(cursor.getEntry()));
+        }
+        return list;
+    }
+}
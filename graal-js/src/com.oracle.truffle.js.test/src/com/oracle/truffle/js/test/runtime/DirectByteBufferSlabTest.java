@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.JSTruffleOptions;
+import com.oracle.truffle.js.runtime.util.DirectByteBufferHelper;
+
+/**
+ * Checks that small direct buffers are carved from slabs and that a slab's native memory is
+ * released once all of its slices have been collected.
+ */
+public class DirectByteBufferSlabTest {
+    private static final int SLICE_SIZE = JSTruffleOptions.DirectByteBufferSlabThreshold;
+    private static final int SLICES_PER_SLAB = JSTruffleOptions.DirectByteBufferSlabSize / SLICE_SIZE;
+    private static final int SLABS = 4;
+
+    @Test
+    public void slabReleasedAfterSlicesCollected() {
+        List<ByteBuffer> slices = new ArrayList<>();
+        long before = directBufferCount();
+        for (int i = 0; i < SLABS * SLICES_PER_SLAB; i++) {
+            ByteBuffer slice = DirectByteBufferHelper.allocateDirect(SLICE_SIZE);
+            slice.putInt(0, i);
+            slices.add(slice);
+        }
+        long allocated = directBufferCount() - before;
+        // one native buffer per slab rather than per slice
+        assertTrue("allocated " + allocated + " buffers", allocated >= SLABS - 1 && allocated <= SLABS + 1);
+        for (int i = 0; i < slices.size(); i++) {
+            assertEquals(i, slices.get(i).getInt(0));
+        }
+
+        ByteBuffer survivor = slices.get(0);
+        slices.clear();
+        // all slabs but the current one and the one holding the survivor become unreachable
+        long expected = before + allocated - (SLABS - 2);
+        for (int i = 0; i < 50 && directBufferCount() > expected; i++) {
+            System.gc();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+        assertTrue("slabs were not released", directBufferCount() <= expected);
+        assertEquals(0, survivor.getInt(0));
+    }
+
+    private static long directBufferCount() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getCount();
+            }
+        }
+        throw new AssertionError("no direct buffer pool");
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.util.JSHashMap;
+
+/**
+ * Tests for {@link JSHashMap}, in particular the behavior of cursors when the map is modified
+ * during iteration.
+ */
+public class JSHashMapTest {
+
+    private static List<Object> remainingKeys(JSHashMap.Cursor cursor) {
+        List<Object> keys = new ArrayList<>();
+        while (cursor.advance()) {
+            keys.add(cursor.getKey());
+        }
+        return keys;
+    }
+
+    private static JSHashMap mapOf(int count) {
+        JSHashMap map = new JSHashMap();
+        for (int i = 0; i < count; i++) {
+            map.put(i, "v" + i);
+        }
+        return map;
+    }
+
+    @Test
+    public void cursorValidAcrossRebuild() {
+        JSHashMap map = mapOf(6);
+        JSHashMap.Cursor cursor = map.getEntries();
+        assertTrue(cursor.advance());
+        assertTrue(cursor.advance());
+        assertEquals(1, cursor.getKey());
+        JSHashMap.Cursor copy = cursor.copy();
+
+        // leave holes before and after the cursor position, then grow past the initial capacity
+        map.remove(0);
+        map.remove(3);
+        for (int i = 6; i < 40; i++) {
+            map.put(i, "v" + i);
+        }
+        List<Object> expected = new ArrayList<>(Arrays.asList(2, 4, 5));
+        for (int i = 6; i < 40; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, remainingKeys(cursor));
+        assertEquals(expected, remainingKeys(copy));
+        assertEquals(38, map.size());
+        assertEquals("v39", map.get(39));
+        assertNull(map.get(3));
+    }
+
+    @Test
+    public void deleteDuringIteration() {
+        JSHashMap map = mapOf(6);
+        JSHashMap.Cursor cursor = map.getEntries();
+        assertTrue(cursor.advance());
+        assertEquals(0, cursor.getKey());
+        // deleting the current entry and an entry ahead of the cursor
+        assertTrue(map.remove(0));
+        assertTrue(map.remove(2));
+        assertFalse(map.remove(2));
+        assertTrue(cursor.advance());
+        assertEquals(1, cursor.getKey());
+        assertEquals("v1", cursor.getValue());
+        // deleting everything that is left
+        for (int i = 0; i < 6; i++) {
+            map.remove(i);
+        }
+        assertFalse(cursor.advance());
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void clearDuringIteration() {
+        JSHashMap map = mapOf(4);
+        JSHashMap.Cursor cursor = map.getEntries();
+        assertTrue(cursor.advance());
+        map.clear();
+        map.put("after", "clear");
+        // entries added after clear() are visited by existing cursors
+        assertEquals(Arrays.asList("after"), remainingKeys(cursor));
+        assertFalse(map.has(1));
+    }
+
+    @Test
+    public void reAddDeletedKey() {
+        JSHashMap map = new JSHashMap();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+        JSHashMap.Cursor cursor = map.getEntries();
+        assertTrue(cursor.advance());
+        assertEquals("a", cursor.getKey());
+
+        assertTrue(map.remove("b"));
+        assertFalse(map.has("b"));
+        map.put("b", 4);
+        assertTrue(map.has("b"));
+        assertEquals(4, map.get("b"));
+        assertEquals(3, map.size());
+        // a re-added key moves to the end of the iteration order
+        assertEquals(Arrays.asList("c", "b"), remainingKeys(cursor));
+        assertEquals(Arrays.asList("a", "c", "b"), remainingKeys(map.getEntries()));
+
+        // repeated removal and re-insertion of the same key leaves holes that rebuilds squeeze out
+        for (int i = 0; i < 100; i++) {
+            map.remove((Object) "a");
+            map.put((Object) "a", i);
+        }
+        assertEquals(3, map.size());
+        assertEquals(99, map.get("a"));
+        assertEquals(Arrays.asList("c", "b", "a"), remainingKeys(map.getEntries()));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.objects.JSLazyString;
+
+/**
+ * Checks {@link JSLazyString#substring(int, int)} over ropes whose children are partly flattened,
+ * including empty and boundary ranges.
+ */
+public class JSLazyStringTest {
+
+    private static String leaf(char c) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 24; i++) {
+            sb.append((char) (c + (i % 10)));
+        }
+        return sb.toString();
+    }
+
+    private static JSLazyString rope(CharSequence left, CharSequence right) {
+        CharSequence result = JSLazyString.create(left, right);
+        assertTrue(result instanceof JSLazyString);
+        return (JSLazyString) result;
+    }
+
+    private static void assertAllSubstrings(String expected, JSLazyString actual) {
+        assertEquals(expected.length(), actual.length());
+        for (int start = 0; start <= expected.length(); start++) {
+            for (int end = start; end <= expected.length(); end++) {
+                assertEquals(start + ".." + end, expected.substring(start, end), actual.substring(start, end));
+            }
+        }
+    }
+
+    @Test
+    public void emptySubstringAtEndOfFlattenedRight() {
+        String x = leaf('a');
+        String y = leaf('k');
+        String z = leaf('A');
+        JSLazyString a = rope(x, y);
+        assertEquals(x + y, a.toString());
+        JSLazyString b = rope(z, a);
+        assertEquals("", b.substring(b.length(), b.length()));
+        assertEquals("", b.substring(0, 0));
+        assertEquals("", b.substring(z.length(), z.length()));
+    }
+
+    @Test
+    public void flattenedRightChild() {
+        String x = leaf('a');
+        String y = leaf('k');
+        String z = leaf('A');
+        JSLazyString a = rope(x, y);
+        a.toString();
+        assertAllSubstrings(z + x + y, rope(z, a));
+    }
+
+    @Test
+    public void flattenedLeftChild() {
+        String x = leaf('a');
+        String y = leaf('k');
+        String z = leaf('A');
+        JSLazyString a = rope(x, y);
+        a.toString();
+        assertAllSubstrings(x + y + z, rope(a, z));
+    }
+
+    @Test
+    public void nestedPartlyFlattened() {
+        String x = leaf('a');
+        String y = leaf('k');
+        String z = leaf('A');
+        String w = leaf('K');
+        JSLazyString a = rope(x, y);
+        JSLazyString b = rope(z, w);
+        b.toString();
+        JSLazyString c = rope(a, b);
+        JSLazyString d = rope(c, rope(w, a));
+        assertAllSubstrings(x + y + z + w + w + x + y, d);
+        a.toString();
+        assertAllSubstrings(x + y + z + w + w + x + y, rope(c, rope(w, a)));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.runtime.objects.DefaultModuleLoader;
+
+/**
+ * Loads a module graph with and without {@code js.module-loader-threads}, which reads and parses
+ * the requested modules on a thread pool before linking.
+ */
+public class ModuleLoaderTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sequentialLoading() throws IOException {
+        writeModuleGraph();
+        assertEquals(1123, loadMain(0, 0));
+    }
+
+    @Test
+    public void parallelLoading() throws IOException {
+        writeModuleGraph();
+        // a, b, c and d are loaded ahead of linking, each of them once
+        assertEquals(1123, loadMain(2, 4));
+    }
+
+    @Test
+    public void parallelLoadingReportsMissingModule() throws IOException {
+        writeModule("main.mjs", "import {c} from './c.mjs'; import {x} from './missing.mjs';");
+        writeModule("c.mjs", "export const c = 1;");
+        try (Context context = newContext(2)) {
+            context.eval(Source.newBuilder("js", new File(folder.getRoot(), "main.mjs")).build());
+            fail("missing module not reported");
+        } catch (PolyglotException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void parallelLoadingReportsParseError() throws IOException {
+        writeModule("main.mjs", "import {a} from './a.mjs';");
+        writeModule("a.mjs", "import {c} from './c.mjs'; import {x} from './bad.mjs'; export const a = c + x;");
+        writeModule("c.mjs", "export const c = 1;");
+        writeModule("bad.mjs", "export const = 1;");
+        try (Context context = newContext(2)) {
+            try {
+                context.eval(Source.newBuilder("js", new File(folder.getRoot(), "main.mjs")).build());
+                fail("parse error not reported");
+            } catch (PolyglotException e) {
+                assertTrue(e.getMessage(), e.isSyntaxError());
+                assertTrue(e.getMessage(), e.getMessage().contains("bad.mjs"));
+            }
+            context.enter();
+            try {
+                DefaultModuleLoader loader = (DefaultModuleLoader) AbstractJavaScriptLanguage.getCurrentJSRealm().getContext().getModuleLoader();
+                // a and c are loaded ahead of linking, bad is left to linking
+                assertEquals(2, loader.getPrefetchedModules());
+            } finally {
+                context.leave();
+            }
+        }
+    }
+
+    private void writeModuleGraph() throws IOException {
+        writeModule("main.mjs", "import {a} from './a.mjs'; import {b} from './b.mjs'; (0, eval)('this').result = a + b;");
+        writeModule("a.mjs", "import {c} from './c.mjs'; import {d} from './d.mjs'; export const a = c + d + 100;");
+        writeModule("b.mjs", "import {d} from './d.mjs'; export const b = d + 1000;");
+        writeModule("c.mjs", "export const c = 1;");
+        writeModule("d.mjs", "import {c} from './c.mjs'; export const d = c + 10;");
+    }
+
+    private void writeModule(String name, String code) throws IOException {
+        Files.write(new File(folder.getRoot(), name).toPath(), code.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int loadMain(int threads, long expectedPrefetched) throws IOException {
+        try (Context context = newContext(threads)) {
+            context.eval(Source.newBuilder("js", new File(folder.getRoot(), "main.mjs")).build());
+            context.enter();
+            try {
+                DefaultModuleLoader loader = (DefaultModuleLoader) AbstractJavaScriptLanguage.getCurrentJSRealm().getContext().getModuleLoader();
+                assertEquals(5, loader.getLoadedModules());
+                assertEquals(expectedPrefetched, loader.getPrefetchedModules());
+            } finally {
+                context.leave();
+            }
+            return context.getBindings("js").getMember("result").asInt();
+        }
+    }
+
+    private static Context newContext(int threads) {
+        return Context.newBuilder("js").allowIO(true).option(JSContextOptions.MODULE_LOADER_THREADS_NAME, String.valueOf(threads)).build();
+    }
+}
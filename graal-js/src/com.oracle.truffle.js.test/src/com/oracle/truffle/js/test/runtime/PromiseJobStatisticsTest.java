@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.proxy.ProxyExecutable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContext;
+
+/**
+ * Tests the promise job statistics of {@link JSContext}: enqueued jobs, maximum queue depth, and
+ * the time spent draining the queue.
+ */
+public class PromiseJobStatisticsTest {
+    private static final long BUSY_MILLIS = 50;
+
+    private Context context;
+    private JSContext jsContext;
+
+    @Before
+    public void setUp() {
+        context = Context.create("js");
+        context.initialize("js");
+        context.enter();
+        jsContext = AbstractJavaScriptLanguage.getCurrentJSRealm().getContext();
+    }
+
+    @After
+    public void tearDown() {
+        context.leave();
+        context.close();
+    }
+
+    @Test
+    public void countsEnqueuedJobsAndQueueDepth() {
+        long enqueued = jsContext.getPromiseJobsEnqueued();
+        context.eval("js", "var log = []; for (var i = 0; i < 5; i++) { Promise.resolve(i).then(v => log.push(v)); }");
+        assertEquals(enqueued + 5, jsContext.getPromiseJobsEnqueued());
+        assertEquals(5, jsContext.getPromiseJobsMaxQueueDepth());
+        assertEquals("0,1,2,3,4", context.eval("js", "log.join()").asString());
+
+        // each job of a chain is only enqueued when the previous one has run
+        enqueued = jsContext.getPromiseJobsEnqueued();
+        context.eval("js", "Promise.resolve(0).then(v => v + 1).then(v => v + 1).then(v => log.push(v));");
+        assertEquals(enqueued + 3, jsContext.getPromiseJobsEnqueued());
+        assertEquals(5, jsContext.getPromiseJobsMaxQueueDepth());
+        assertEquals("0,1,2,3,4,2", context.eval("js", "log.join()").asString());
+    }
+
+    @Test
+    public void nestedDrainIsTimedOnce() {
+        // a job that evaluates code, which drains the queue again while the outer drain is running
+        context.getBindings("js").putMember("nested", (ProxyExecutable) args -> context.eval("js", "Promise.resolve().then(busy);"));
+        context.eval("js", "function busy() { var end = Date.now() + " + BUSY_MILLIS + "; while (Date.now() < end); }");
+
+        long drainTime = jsContext.getPromiseJobsDrainTime();
+        long startTime = System.nanoTime();
+        context.eval("js", "Promise.resolve().then(() => nested());");
+        long elapsed = System.nanoTime() - startTime;
+        drainTime = jsContext.getPromiseJobsDrainTime() - drainTime;
+
+        assertTrue(drainTime + " ns", drainTime >= TimeUnit.MILLISECONDS.toNanos(BUSY_MILLIS));
+        // counting the nested drain as well would take the busy job into account twice
+        assertTrue(drainTime + " ns > " + elapsed + " ns", drainTime <= elapsed);
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.runtime.Symbol;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.PropertyLookupCache;
+
+/**
+ * Tests that the megamorphic {@link PropertyLookupCache} used by the generic get, set and has
+ * nodes never returns stale results.
+ *
+ * The accessor functions are made megamorphic before each scenario, so that their property
+ * accesses go through the generic nodes and thus through the cache.
+ */
+public class PropertyLookupCacheTest {
+    private static final String HELPERS = "" +
+                    "function getFoo(o) { return o.foo; }\n" +
+                    "function setFoo(o, v) { o.foo = v; }\n" +
+                    "function setFooStrict(o, v) { 'use strict'; o.foo = v; }\n" +
+                    "function hasFoo(o) { var foo = hasFoo; with (o) { return foo !== hasFoo; } }\n" +
+                    "for (var i = 0; i < 8; i++) {\n" +
+                    "  var o = {}; o['p' + i] = i;\n" +
+                    "  getFoo(o); hasFoo(o); setFoo(o, i); setFooStrict(o, i);\n" +
+                    "}\n";
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Context.newBuilder("js").option(JSContextOptions.V8_REALM_BUILTIN_NAME, "true").build();
+        context.enter();
+        context.eval("js", HELPERS);
+    }
+
+    @After
+    public void tearDown() {
+        context.leave();
+        context.close();
+    }
+
+    private Value js(String source) {
+        return context.eval("js", source);
+    }
+
+    @Test
+    public void prototypeReassigned() {
+        js("var o = Object.create({foo: 1}); o.bar = 0;");
+        assertEquals(1, js("getFoo(o)").asInt());
+        assertEquals(1, js("getFoo(o)").asInt());
+        js("o.__proto__ = {foo: 2};");
+        assertEquals(2, js("getFoo(o)").asInt());
+        // a new prototype with the same shape as the cached one
+        js("Object.setPrototypeOf(o, {foo: 3});");
+        assertEquals(3, js("getFoo(o)").asInt());
+        assertTrue(js("hasFoo(o)").asBoolean());
+        js("Object.setPrototypeOf(o, {});");
+        assertTrue(js("getFoo(o) === undefined").asBoolean());
+        assertFalse(js("hasFoo(o)").asBoolean());
+        js("Object.setPrototypeOf(o, null);");
+        assertTrue(js("getFoo(o) === undefined").asBoolean());
+    }
+
+    @Test
+    public void deletedFromPrototype() {
+        js("var gp = {foo: 'gp'}; var p = Object.create(gp); var c = Object.create(p);");
+        assertEquals("gp", js("getFoo(c)").asString());
+        js("p.foo = 'p';");
+        assertEquals("p", js("getFoo(c)").asString());
+        js("delete p.foo;");
+        assertEquals("gp", js("getFoo(c)").asString());
+        assertTrue(js("hasFoo(c)").asBoolean());
+        js("delete gp.foo;");
+        assertTrue(js("getFoo(c) === undefined").asBoolean());
+        assertFalse(js("hasFoo(c)").asBoolean());
+    }
+
+    @Test
+    public void inheritedAccessorsUseReceiver() {
+        js("var proto = { get foo() { return this.v; }, set foo(x) { this.w = x; } };" +
+                        "var a = Object.create(proto); a.v = 'a';" +
+                        "var b = Object.create(proto); b.v = 'b';");
+        assertEquals("a", js("getFoo(a)").asString());
+        assertEquals("b", js("getFoo(b)").asString());
+        assertEquals("a", js("getFoo(a)").asString());
+        js("setFoo(a, 1); setFooStrict(b, 2);");
+        assertEquals(1, js("a.w").asInt());
+        assertEquals(2, js("b.w").asInt());
+        assertTrue(js("proto.w === undefined && !a.hasOwnProperty('foo') && !b.hasOwnProperty('foo')").asBoolean());
+    }
+
+    @Test
+    public void frozenAndNonWritable() {
+        js("var o = {foo: 1, bar: 0};");
+        js("setFoo(o, 2);");
+        assertEquals(2, js("o.foo").asInt());
+        js("Object.freeze(o); setFoo(o, 3);");
+        assertEquals(2, js("o.foo").asInt());
+        assertStrictSetFails("o");
+
+        // made non-writable after the cache was filled
+        js("var m = {foo: 1}; setFoo(m, 2); Object.defineProperty(m, 'foo', {writable: false}); setFoo(m, 3);");
+        assertEquals(2, js("m.foo").asInt());
+        assertStrictSetFails("m");
+
+        // an inherited non-writable property prevents creating an own property
+        js("var n = {}; Object.defineProperty(n, 'foo', {value: 1, writable: false}); var c = Object.create(n); setFoo(c, 2);");
+        assertEquals(1, js("c.foo").asInt());
+        assertFalse(js("c.hasOwnProperty('foo')").asBoolean());
+        assertStrictSetFails("c");
+
+        // a non-extensible object cannot get a new property
+        js("var x = Object.preventExtensions({bar: 1}); setFoo(x, 1);");
+        assertFalse(js("x.hasOwnProperty('foo')").asBoolean());
+        assertStrictSetFails("x");
+    }
+
+    private void assertStrictSetFails(String name) {
+        try {
+            js("setFooStrict(" + name + ", 42);");
+            throw new AssertionError("expected a TypeError");
+        } catch (PolyglotException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("TypeError"));
+        }
+        assertFalse(js(name + ".foo === 42").asBoolean());
+    }
+
+    @Test
+    public void absentPropertyAddedLater() {
+        js("var o = {bar: 1};");
+        assertTrue(js("getFoo(o) === undefined").asBoolean());
+        assertFalse(js("hasFoo(o)").asBoolean());
+        try {
+            js("Object.prototype.foo = 'proto';");
+            assertEquals("proto", js("getFoo(o)").asString());
+            assertTrue(js("hasFoo(o)").asBoolean());
+        } finally {
+            js("delete Object.prototype.foo;");
+        }
+        assertTrue(js("getFoo(o) === undefined").asBoolean());
+        js("o.foo = 'own';");
+        assertEquals("own", js("getFoo(o)").asString());
+        assertTrue(js("hasFoo(o)").asBoolean());
+
+        // a prototype with the same shape that does have the property
+        js("var p1 = {}; var p2 = {}; var c = Object.create(p1);");
+        assertTrue(js("getFoo(c) === undefined").asBoolean());
+        js("p2.foo = 'p2'; Object.setPrototypeOf(c, p2);");
+        assertEquals("p2", js("getFoo(c)").asString());
+    }
+
+    @Test
+    public void symbolKeys() {
+        js("var sym = Symbol('key'); var proto = {}; proto[sym] = 1; var o = Object.create(proto); o.bar = 0;");
+        DynamicObject global = AbstractJavaScriptLanguage.getCurrentJSRealm().getGlobalObject();
+        Symbol sym = (Symbol) JSObject.get(global, "sym");
+        DynamicObject o = (DynamicObject) JSObject.get(global, "o");
+        PropertyLookupCache cache = new PropertyLookupCache(16);
+
+        assertEquals(1, cache.getHelper(o, o, sym, false));
+        assertEquals(1, cache.getHelper(o, o, sym, false));
+        assertTrue(cache.hasProperty(o, sym, false));
+        assertFalse(cache.hasProperty(o, sym, true));
+        // a different symbol with the same description is a different key
+        assertNull(cache.getHelper(o, o, Symbol.create("key"), false));
+
+        js("delete proto[sym];");
+        assertNull(cache.getHelper(o, o, sym, false));
+        assertFalse(cache.hasProperty(o, sym, false));
+        js("o[sym] = 2;");
+        assertEquals(2, cache.getHelper(o, o, sym, false));
+        assertTrue(cache.hasProperty(o, sym, true));
+        assertTrue(cache.setOwnDataProperty(o, sym, 3));
+        assertEquals(3, js("o[sym]").asInt());
+        js("Object.defineProperty(o, sym, {writable: false});");
+        assertFalse(cache.setOwnDataProperty(o, sym, 4));
+        assertEquals(3, js("o[sym]").asInt());
+    }
+
+    @Test
+    public void sameShapesInTwoRealms() {
+        context.getBindings("js").putMember("helpers", HELPERS);
+        js("var r = Realm.create(); Realm.eval(r, helpers);");
+        js("var mine = {bar: 1}; var other = Realm.eval(r, 'var o = {bar: 1}; o');");
+
+        assertTrue(js("getFoo(mine) === undefined && getFoo(other) === undefined").asBoolean());
+        js("Realm.eval(r, \"Object.prototype.foo = 'other realm';\");");
+        assertEquals("other realm", js("getFoo(other)").asString());
+        assertTrue(js("getFoo(mine) === undefined").asBoolean());
+        assertFalse(js("hasFoo(mine)").asBoolean());
+        assertTrue(js("hasFoo(other)").asBoolean());
+
+        // the same accessors running in the other realm
+        assertEquals("other realm", js("Realm.eval(r, 'getFoo(o)')").asString());
+        assertTrue(js("Realm.eval(r, 'getFoo')(mine) === undefined").asBoolean());
+        js("Object.prototype.foo = 'this realm';");
+        try {
+            assertEquals("this realm", js("Realm.eval(r, 'getFoo')(mine)").asString());
+            assertEquals("other realm", js("Realm.eval(r, 'getFoo(o)')").asString());
+        } finally {
+            js("delete Object.prototype.foo;");
+        }
+    }
+}
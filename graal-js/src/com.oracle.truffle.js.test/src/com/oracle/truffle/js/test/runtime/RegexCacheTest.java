@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.graalvm.polyglot.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.RegexCompilerInterface;
+import com.oracle.truffle.js.runtime.builtins.JSRegExp;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+
+/**
+ * Checks that compiled regexes are shared through the caching regex engine of the context, keyed by
+ * pattern and flags.
+ */
+public class RegexCacheTest {
+    private Context context;
+    private JSContext jsContext;
+
+    @Before
+    public void setUp() {
+        context = Context.create("js");
+        context.initialize("js");
+        context.enter();
+        jsContext = AbstractJavaScriptLanguage.getCurrentJSRealm().getContext();
+    }
+
+    @After
+    public void tearDown() {
+        context.leave();
+        context.close();
+    }
+
+    @Test
+    public void samePatternAndFlags() {
+        TruffleObject regex = RegexCompilerInterface.compile("a+b", "g", jsContext);
+        assertSame(regex, RegexCompilerInterface.compile("a+b", "g", jsContext));
+        assertNotSame(regex, RegexCompilerInterface.compile("a+b", "gi", jsContext));
+        assertNotSame(regex, RegexCompilerInterface.compile("a+b", "", jsContext));
+        assertNotSame(regex, RegexCompilerInterface.compile("a+c", "g", jsContext));
+    }
+
+    @Test
+    public void sharedAcrossCallSites() {
+        // more patterns than a single CompileRegexNode caches, built at run time
+        context.eval("js", "var build = (i, flags) => new RegExp('x' + (i % 10) + 'y', flags);" +
+                        "var first = [], second = [];" +
+                        "for (var i = 0; i < 20; i++) { first.push(build(i, 'g')); }" +
+                        "for (var i = 0; i < 20; i++) { second.push(new RegExp('x' + (i % 10) + 'y', 'g')); }" +
+                        "var literal = /x3y/g; var otherFlags = /x3y/m;");
+        assertSame(regex("first[3]"), regex("first[13]"));
+        assertSame(regex("first[3]"), regex("second[3]"));
+        assertSame(regex("first[3]"), regex("literal"));
+        assertNotSame(regex("first[3]"), regex("first[4]"));
+        assertNotSame(regex("literal"), regex("otherFlags"));
+    }
+
+    private TruffleObject regex(String expression) {
+        context.eval("js", "var tmp = " + expression + ";");
+        DynamicObject global = AbstractJavaScriptLanguage.getCurrentJSRealm().getGlobalObject();
+        return JSRegExp.getCompiledRegex((DynamicObject) JSObject.get(global, "tmp"));
+    }
+}
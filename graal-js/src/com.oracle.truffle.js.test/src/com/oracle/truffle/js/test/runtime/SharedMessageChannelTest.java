@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oracle.truffle.js.runtime.SharedMessageChannel;
+
+public class SharedMessageChannelTest {
+
+    @Test
+    public void fifoUntilFull() {
+        SharedMessageChannel channel = new SharedMessageChannel(3, false);
+        assertEquals(4, channel.getCapacity());
+        assertTrue(channel.isEmpty());
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(channel.offer(i));
+            }
+            assertFalse(channel.offer(4));
+            assertEquals(4, channel.size());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(i, channel.poll());
+            }
+            assertNull(channel.poll());
+            assertTrue(channel.isEmpty());
+        }
+    }
+
+    @Test
+    public void singleProducerClaim() {
+        SharedMessageChannel channel = new SharedMessageChannel(8, false);
+        assertTrue(channel.claimProducer(1));
+        assertTrue(channel.claimProducer(1));
+        assertFalse(channel.claimProducer(2));
+    }
+
+    @Test
+    public void multiProducerClaim() {
+        SharedMessageChannel channel = new SharedMessageChannel(8, true);
+        assertTrue(channel.claimProducer(1));
+        assertTrue(channel.claimProducer(2));
+    }
+
+    @Test
+    public void consumerClaim() {
+        SharedMessageChannel channel = new SharedMessageChannel(8, true);
+        assertTrue(channel.claimConsumer(1));
+        assertTrue(channel.claimConsumer(1));
+        assertFalse(channel.claimConsumer(2));
+    }
+
+    @Test
+    public void concurrentProducers() throws InterruptedException {
+        final int producers = 4;
+        final int messages = 20000;
+        SharedMessageChannel channel = new SharedMessageChannel(64, true);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < messages; i++) {
+                    long message = ((long) producer << 32) | i;
+                    while (!channel.offer(message)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * messages) {
+            Object message = channel.poll();
+            if (message == null) {
+                Thread.yield();
+                continue;
+            }
+            long value = (Long) message;
+            int producer = (int) (value >>> 32);
+            // messages of each producer arrive in order, none is lost or duplicated
+            assertEquals(next[producer]++, (int) value);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(channel.isEmpty());
+        for (int p = 0; p < producers; p++) {
+            assertEquals(messages, next[p]);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.graalvm.polyglot.Context;
+import org.junit.After;
+import org.junit.Test;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.JSContextOptions;
+import com.oracle.truffle.js.runtime.builtins.JSFunction;
+import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+
+/**
+ * Tests {@code js.shared-realm-code}: global code evaluated in several realms of a context is
+ * parsed once and shares its function data, up to {@link JSContext#SHARED_SCRIPT_CACHE_SIZE}
+ * scripts.
+ */
+public class SharedRealmCodeTest {
+    private static final String LIBRARY = "var calls = (this.calls || 0) + 1; (function library() { return calls; })";
+
+    private Context context;
+
+    private void createContext(boolean sharedRealmCode) {
+        context = Context.newBuilder("js").option(JSContextOptions.SHARED_REALM_CODE_NAME, String.valueOf(sharedRealmCode)).option(JSContextOptions.V8_REALM_BUILTIN_NAME,
+                        "true").build();
+        context.enter();
+    }
+
+    @After
+    public void tearDown() {
+        context.leave();
+        context.close();
+    }
+
+    @Test
+    public void sharedAcrossRealms() {
+        createContext(true);
+        context.eval("js", "var r1 = Realm.create(), r2 = Realm.create();" +
+                        "var f1 = Realm.eval(r1, LIBRARY), f2 = Realm.eval(r2, LIBRARY), f3 = Realm.eval(r1, LIBRARY);".replace("LIBRARY", quote(LIBRARY)));
+        assertSame(functionData("f1"), functionData("f2"));
+        assertSame(functionData("f1"), functionData("f3"));
+        // each realm still has its own global object
+        assertEquals(1, context.eval("js", "f2()").asInt());
+        assertEquals(2, context.eval("js", "f1()").asInt());
+        assertEquals(false, context.eval("js", "f1 === f3 || Realm.global(r1) === Realm.global(r2)").asBoolean());
+    }
+
+    @Test
+    public void notSharedByDefault() {
+        createContext(false);
+        context.eval("js", "var r1 = Realm.create(), r2 = Realm.create();" +
+                        "var f1 = Realm.eval(r1, LIBRARY), f2 = Realm.eval(r2, LIBRARY);".replace("LIBRARY", quote(LIBRARY)));
+        assertNotSame(functionData("f1"), functionData("f2"));
+    }
+
+    @Test
+    public void leastRecentlyUsedScriptsAreEvicted() {
+        createContext(true);
+        context.eval("js", "var geval = eval; function load(i) { return geval('(function script' + i + '() {})'); }" +
+                        "var first = load(0), recent = load(1);" +
+                        "for (var i = 2; i <= " + JSContext.SHARED_SCRIPT_CACHE_SIZE + "; i++) { load(i); if (i % 64 === 0) { load(1); } }");
+        // script1 was used recently, script0 has been evicted by the last load
+        context.eval("js", "var firstAgain = load(0), recentAgain = load(1);");
+        assertSame(functionData("recent"), functionData("recentAgain"));
+        assertNotSame(functionData("first"), functionData("firstAgain"));
+    }
+
+    @Test
+    public void directEvalIsNotShared() {
+        createContext(true);
+        String code = quote("(function evaluated() {})");
+        context.eval("js", "function direct() { var local = 1; return eval(" + code + "); }" +
+                        "var d1 = direct(), d2 = direct();" +
+                        "var i1 = (0, eval)(" + code + "), i2 = (0, eval)(" + code + ");");
+        // direct eval code is parsed in the caller's scope and must not be cached
+        assertNotSame(functionData("d1"), functionData("d2"));
+        assertNotSame(functionData("d1"), functionData("i1"));
+        assertSame(functionData("i1"), functionData("i2"));
+    }
+
+    private static JSFunctionData functionData(String name) {
+        DynamicObject global = AbstractJavaScriptLanguage.getCurrentJSRealm().getGlobalObject();
+        return JSFunction.getFunctionData((DynamicObject) JSObject.get(global, name));
+    }
+
+    private static String quote(String code) {
+        return "'" + code.replace("'", "\\'") + "'";
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.js.test.runtime;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.ref.WeakReference;
+
+import org.graalvm.polyglot.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.js.runtime.AbstractJavaScriptLanguage;
+import com.oracle.truffle.js.runtime.objects.JSObject;
+
+/**
+ * Checks that WeakMap and WeakSet entries do not keep their keys alive, including when the value
+ * refers back to its own key (ephemeron semantics).
+ */
+public class WeakMapGCTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Context.create("js");
+        context.initialize("js");
+        context.enter();
+    }
+
+    @After
+    public void tearDown() {
+        context.leave();
+        context.close();
+    }
+
+    @Test
+    public void weakMapKey() {
+        assertKeyCollected("var container = new WeakMap(); var key = {}; container.set(key, 42);");
+    }
+
+    @Test
+    public void weakMapValueReferencingKey() {
+        assertKeyCollected("var container = new WeakMap(); var key = {}; container.set(key, {owner: key, payload: new Array(100)});");
+    }
+
+    @Test
+    public void weakMapValueCycleThroughOtherKey() {
+        assertKeyCollected("var container = new WeakMap(); var key = {}; var other = {back: key}; container.set(key, other); container.set(other, key); other = undefined;");
+    }
+
+    @Test
+    public void weakSetKey() {
+        assertKeyCollected("var container = new WeakSet(); var key = {}; container.add(key);");
+    }
+
+    /**
+     * Runs the setup script, which stores an object in global {@code key} and a collection in
+     * global {@code container}, then drops {@code key} and waits for it to be collected while the
+     * collection is still alive.
+     */
+    private void assertKeyCollected(String setup) {
+        context.eval("js", setup);
+        DynamicObject global = AbstractJavaScriptLanguage.getCurrentJSRealm().getGlobalObject();
+        WeakReference<Object> key = new WeakReference<>(JSObject.get(global, "key"));
+        Object container = JSObject.get(global, "container");
+        context.eval("js", "key = undefined;");
+        assertNull("key was not collected", gc(key));
+        assertNotNull(container);
+    }
+
+    private static Object gc(WeakReference<Object> ref) {
+        for (int i = 0; i < 20 && ref.get() != null; i++) {
+            System.gc();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+        return ref.get();
+    }
+}
@@ -0,0 +1,32 @@
+'use strict';
+
+// Measures Buffer#toString() and Buffer#write() for the single-byte encodings
+// that graal-nodejs implements directly on the backing byte buffer.
+
+const common = require('../common.js');
+
+const bench = common.createBenchmark(main, {
+  encoding: ['latin1', 'ascii', 'hex', 'base64'],
+  op: ['toString', 'write'],
+  len: [16, 1024, 64 * 1024],
+  n: [1e5]
+});
+
+function main({ encoding, op, len, n }) {
+  const buf = Buffer.allocUnsafe(len);
+  for (var i = 0; i < len; i++)
+    buf[i] = i & 0xff;
+  const str = buf.toString(encoding);
+
+  if (op === 'toString') {
+    bench.start();
+    for (i = 0; i < n; i++)
+      buf.toString(encoding);
+    bench.end(n);
+  } else {
+    bench.start();
+    for (i = 0; i < n; i++)
+      buf.write(str, 0, len, encoding);
+    bench.end(n);
+  }
+}
@@ -0,0 +1,38 @@
+'use strict';
+
+const common = require('../common.js');
+
+const bench = common.createBenchmark(main, {
+  // 'homogeneous': all records have the same shape;
+  // 'heterogeneous': the records cycle through eight different shapes.
+  payload: ['homogeneous', 'heterogeneous'],
+  len: [1000],
+  n: [1e3]
+});
+
+function createRecord(i, shapes) {
+  const record = { id: i, name: `item ${i}`, price: i * 0.25, active: (i & 1) === 0 };
+  const shape = i % shapes;
+  if (shape & 1)
+    record.tags = ['a', 'b'];
+  if (shape & 2)
+    record.owner = { id: i >> 2, name: 'owner' };
+  if (shape & 4)
+    record.note = null;
+  return record;
+}
+
+function main({ payload, len, n }) {
+  const shapes = payload === 'homogeneous' ? 1 : 8;
+  const records = [];
+  for (var i = 0; i < len; i++)
+    records.push(createRecord(i, shapes));
+
+  var length = 0;
+  bench.start();
+  for (var j = 0; j < n; j++)
+    length += JSON.stringify(records).length;
+  bench.end(n);
+  if (length === 0)
+    throw new Error('Unexpected empty output');
+}
@@ -0,0 +1,42 @@
+'use strict';
+
+const common = require('../common.js');
+
+const bench = common.createBenchmark(main, {
+  // 'none': no key is in a WeakMap; 'half': every other object is a key;
+  // 'all': every object is a key.
+  keys: ['none', 'half', 'all'],
+  len: [1024],
+  n: [1e4]
+});
+
+function Point(x, y) {
+  this.x = x;
+  this.y = y;
+}
+
+function sum(points) {
+  var s = 0;
+  for (var i = 0; i < points.length; i++)
+    s += points[i].x + points[i].y;
+  return s;
+}
+
+function main({ keys, len, n }) {
+  const points = [];
+  const map = new WeakMap();
+  for (var i = 0; i < len; i++) {
+    const p = new Point(i, -i);
+    if (keys === 'all' || (keys === 'half' && (i & 1) === 0))
+      map.set(p, i);
+    points.push(p);
+  }
+
+  var s = 0;
+  bench.start();
+  for (var j = 0; j < n; j++)
+    s += sum(points);
+  bench.end(n);
+  if (s !== 0)
+    throw new Error(`Unexpected sum: ${s}`);
+}
@@ -0,0 +1,38 @@
+'use strict';
+
+const common = require('../common.js');
+const v8 = require('v8');
+
+const bench = common.createBenchmark(main, {
+  type: ['int-array', 'double-array', 'typed-array', 'objects'],
+  len: [1024],
+  n: [1e4]
+});
+
+function createValue(type, len) {
+  switch (type) {
+    case 'int-array':
+      return Array.from({ length: len }, (_, i) => i);
+    case 'double-array':
+      return Array.from({ length: len }, (_, i) => i + 0.5);
+    case 'typed-array':
+      return new Float64Array(len).fill(Math.PI);
+    case 'objects':
+      return Array.from({ length: len / 16 }, (_, i) => ({
+        id: i,
+        name: `item${i}`,
+        price: i * 1.25,
+        active: (i & 1) === 0
+      }));
+    default:
+      throw new Error(`Unsupported type: ${type}`);
+  }
+}
+
+function main({ type, len, n }) {
+  const value = createValue(type, len);
+  bench.start();
+  for (var i = 0; i < n; i++)
+    v8.deserialize(v8.serialize(value));
+  bench.end(n);
+}
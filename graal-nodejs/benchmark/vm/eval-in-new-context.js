@@ -0,0 +1,41 @@
+'use strict';
+
+// Evaluates the same source text in a series of newly created contexts.
+// The source goes through indirect eval, because scripts compiled by the vm
+// module are not looked up in the shared code cache. With GraalVM, compare
+// the results with and without --js.shared-realm-code, which parses the
+// source once and lets later contexts reuse its code.
+
+const common = require('../common.js');
+
+const bench = common.createBenchmark(main, {
+  size: ['small', 'large'],
+  n: [100]
+});
+
+const vm = require('vm');
+
+function createSource(size) {
+  const functions = size === 'large' ? 200 : 5;
+  var source = '';
+  for (var i = 0; i < functions; i++) {
+    source += `function f${i}(a, b) {
+      var result = 0;
+      for (var j = 0; j < a; j++)
+        result += (j * ${i}) % (b + 1);
+      return result;
+    }
+    `;
+  }
+  return source + `f0(10, 3);`;
+}
+
+function main({ size, n }) {
+  const source = createSource(size);
+  const options = { filename: `eval-in-new-context-${size}.js` };
+
+  bench.start();
+  for (var i = 0; i < n; i++)
+    vm.runInNewContext('(0, eval)(source)', { source }, options);
+  bench.end(n);
+}
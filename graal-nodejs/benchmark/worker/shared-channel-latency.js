@@ -0,0 +1,45 @@
+'use strict';
+
+// Measures the round-trip latency of SharedChannel (GraalVM, --js.shared-channel):
+// the main thread and a worker thread bounce a message over two channels. The
+// reported rate is round trips per second; its inverse is the latency.
+
+const common = require('../common.js');
+const bench = common.createBenchmark(main, {
+  payload: ['number', 'transfer'],
+  n: [1e5]
+}, { flags: ['--experimental-worker', '--js.shared-channel'] });
+
+const echoSource = `
+  const { workerData } = require('worker_threads');
+  const { requests, replies, n } = workerData;
+  for (let i = 0; i < n; i++) {
+    const message = SharedChannel.receive(requests);
+    const transfer = message instanceof ArrayBuffer ? [message] : undefined;
+    SharedChannel.postMessage(replies, message, transfer);
+  }
+`;
+
+function main({ payload, n }) {
+  const { Worker } = require('worker_threads');
+  const requests = new SharedArrayBuffer(8);
+  const replies = new SharedArrayBuffer(8);
+  SharedChannel.open(requests, { capacity: 1, multiProducer: false });
+  SharedChannel.open(replies, { capacity: 1, multiProducer: false });
+
+  const worker = new Worker(echoSource, {
+    eval: true,
+    workerData: { requests, replies, n }
+  });
+
+  var message = payload === 'transfer' ? new ArrayBuffer(64 * 1024) : 0;
+  bench.start();
+  for (var i = 0; i < n; i++) {
+    const transfer = payload === 'transfer' ? [message] : undefined;
+    SharedChannel.postMessage(requests, message, transfer);
+    message = SharedChannel.receive(replies);
+  }
+  bench.end(n);
+
+  worker.unref();
+}
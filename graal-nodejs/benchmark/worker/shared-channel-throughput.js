@@ -0,0 +1,61 @@
+'use strict';
+
+// Measures the message throughput of SharedChannel (GraalVM, --js.shared-channel):
+// worker threads post messages to one channel and the main thread receives them.
+
+const common = require('../common.js');
+const bench = common.createBenchmark(main, {
+  producers: [1, 4],
+  payload: ['number', 'object', 'transfer'],
+  n: [1e5]
+}, { flags: ['--experimental-worker', '--js.shared-channel'] });
+
+const producerSource = `
+  const { workerData } = require('worker_threads');
+  const { sab, n, payload } = workerData;
+  for (let i = 0; i < n; i++) {
+    let message;
+    let transfer;
+    switch (payload) {
+      case 'number':
+        message = i;
+        break;
+      case 'object':
+        message = { id: i, action: 'pewpewpew', powerLevel: 9001 };
+        break;
+      case 'transfer':
+        message = new ArrayBuffer(64 * 1024);
+        transfer = [message];
+        break;
+    }
+    while (!SharedChannel.postMessage(sab, message, transfer)) {
+      // the channel is full, let the consumer catch up
+    }
+  }
+`;
+
+function main({ producers, payload, n }) {
+  const { Worker } = require('worker_threads');
+  const sab = new SharedArrayBuffer(8);
+  SharedChannel.open(sab, { capacity: 4096, multiProducer: producers > 1 });
+
+  const perProducer = Math.floor(n / producers);
+  const total = perProducer * producers;
+  const workers = [];
+  for (var i = 0; i < producers; i++) {
+    workers.push(new Worker(producerSource, {
+      eval: true,
+      workerData: { sab, n: perProducer, payload }
+    }));
+  }
+
+  bench.start();
+  for (var received = 0; received < total; received++) {
+    SharedChannel.receive(sab);
+  }
+  bench.end(total);
+
+  for (const worker of workers) {
+    worker.unref();
+  }
+}
@@ -42,6 +42,7 @@
 // Call-backs from Java to C++
 
 #include "callbacks.h"
+#include "graal_batch.h"
 #include "graal_context.h"
 #include "graal_function_callback_info.h"
 #include "graal_isolate.h"
@@ -81,6 +82,7 @@ static const JNINativeMethod callbacks[] = {
     CALLBACK("executePropertyHandlerDefiner", "(JLjava/lang/Object;Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/Object;I[Ljava/lang/Object;Ljava/lang/Object;Z)V", &GraalExecutePropertyHandlerDefiner),
     CALLBACK("executePropertyHandlerDescriptor", "(JLjava/lang/Object;[Ljava/lang/Object;Ljava/lang/Object;Z)Ljava/lang/Object;", &GraalExecutePropertyHandlerDescriptor),
     CALLBACK("deallocate", "(J)V", &GraalDeallocate),
+    CALLBACK("deallocateBatch", "([JI)V", &GraalDeallocateBatch),
     CALLBACK("weakCallback", "(JJI)V", &GraalWeakCallback),
     CALLBACK("notifyGCCallbacks", "(Z)V", &GraalNotifyGCCallbacks),
     CALLBACK("polyglotEngineEntered", "(JJJJIJIJ)V", &GraalPolyglotEngineEntered),
@@ -157,25 +159,54 @@ jobject GraalExecuteFunction(JNIEnv* env, jclass nativeAccess, jint id, jobjectA
     GraalIsolate* isolate = CurrentIsolateChecked();
     int length = env->GetArrayLength(arguments); // first is "this", second is "callee"
     int offset = is_new_target ? 3 : 2;
-    std::vector<GraalValue*> values(length - offset + 1);
-    for (int i = 0; i < length - offset; i++) {
-        jobject java_value = env->GetObjectArrayElement(arguments, i + offset);
-        GraalValue* graal_value = GraalValue::FromJavaObject(isolate, java_value);
-        values[length - offset - 1 - i] = graal_value;
-    }
-    jobject java_this = env->GetObjectArrayElement(arguments, 0);
-    GraalValue* graal_this = GraalValue::FromJavaObject(isolate, java_this);
-    GraalValue* graal_new_target;
-    if (is_new_target) {
-        jobject java_new_target = env->GetObjectArrayElement(arguments, 2);
-        graal_new_target = GraalValue::FromJavaObject(isolate, java_new_target);
-    } else if (is_new) {
-        graal_new_target = graal_this;
+    int argc = length - offset;
+    std::vector<GraalValue*> values(argc + 1);
+    GraalValue* graal_this;
+    GraalValue* graal_new_target = nullptr;
+    if (argc + 2 <= GraalBatch::kMaxValues) {
+        // Determine the types of all the values in one transition to Java
+        GraalBatch batch(isolate);
+        std::vector<jobject> java_values;
+        java_values.push_back(env->GetObjectArrayElement(arguments, 0));
+        if (is_new_target) {
+            java_values.push_back(env->GetObjectArrayElement(arguments, 2));
+        }
+        for (int i = 0; i < argc; i++) {
+            java_values.push_back(env->GetObjectArrayElement(arguments, i + offset));
+        }
+        for (jobject java_value : java_values) {
+            batch.ValueType(java_value);
+        }
+        std::vector<GraalValue*> graal_values(java_values.size());
+        batch.Execute(graal_values.data());
+        for (jobject java_value : java_values) {
+            env->DeleteLocalRef(java_value);
+        }
+        int index = 0;
+        graal_this = graal_values[index++];
+        if (is_new_target) {
+            graal_new_target = graal_values[index++];
+        }
+        for (int i = 0; i < argc; i++) {
+            values[argc - 1 - i] = graal_values[index++];
+        }
     } else {
-        graal_new_target = isolate->GetUndefined();
+        for (int i = 0; i < argc; i++) {
+            jobject java_value = env->GetObjectArrayElement(arguments, i + offset);
+            GraalValue* graal_value = GraalValue::FromJavaObject(isolate, java_value);
+            values[argc - 1 - i] = graal_value;
+        }
+        jobject java_this = env->GetObjectArrayElement(arguments, 0);
+        graal_this = GraalValue::FromJavaObject(isolate, java_this);
+        if (is_new_target) {
+            jobject java_new_target = env->GetObjectArrayElement(arguments, 2);
+            graal_new_target = GraalValue::FromJavaObject(isolate, java_new_target);
+        }
+    }
+    if (!is_new_target) {
+        graal_new_target = is_new ? graal_this : isolate->GetUndefined();
     }
     GraalValue* graal_data = isolate->GetFunctionTemplateData(id);
-    int argc = length - offset;
     GraalFunctionCallbackArguments callbackArgs(isolate, graal_this, graal_new_target, graal_data, values.data(), argc, is_new, true);
     return GraalExecuteFunction(env, isolate, id, callbackArgs, java_context);
 }
@@ -538,6 +569,14 @@ void GraalDeallocate(JNIEnv* env, jclass nativeAccess, jlong pointer) {
     free((void*) pointer);
 }
 
+void GraalDeallocateBatch(JNIEnv* env, jclass nativeAccess, jlongArray pointers, jint count) {
+    jlong* elements = static_cast<jlong*> (env->GetPrimitiveArrayCritical(pointers, nullptr));
+    for (jint i = 0; i < count; i++) {
+        free((void*) elements[i]);
+    }
+    env->ReleasePrimitiveArrayCritical(pointers, elements, JNI_ABORT);
+}
+
 void GraalWeakCallback(JNIEnv* env, jclass nativeAccess, jlong callback, jlong data, jint type) {
     if (type == 0) {
         fprintf(stderr, "GraalWeakCallback (type == 0) not supported anymore!\n");
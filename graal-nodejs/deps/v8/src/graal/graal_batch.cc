@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+#include "graal_batch.h"
+#include "graal_isolate.h"
+#include "graal_value.h"
+
+GraalBatch::GraalBatch(GraalIsolate* isolate) : isolate_(isolate) {
+}
+
+void GraalBatch::ValueType(jobject value) {
+    values_.push_back(value);
+}
+
+void GraalBatch::Execute(GraalValue** results) {
+    int size = Size();
+    JNIEnv* env = isolate_->GetJNIEnv();
+    jobjectArray java_values = env->NewObjectArray(size, isolate_->GetObjectClass(), nullptr);
+    for (int i = 0; i < size; i++) {
+        env->SetObjectArrayElement(java_values, i, values_[i]);
+    }
+    JNI_CALL_VOID(isolate_, GraalAccessMethod::batch_value_type, java_values);
+    env->DeleteLocalRef(java_values);
+    isolate_->ResetSharedBuffer();
+    for (int i = 0; i < size; i++) {
+        int32_t type = isolate_->ReadInt32FromSharedBuffer();
+        // FromJavaObject takes over the local reference, the caller keeps its own
+        results[i] = GraalValue::FromJavaObject(isolate_, env->NewLocalRef(values_[i]), type, true);
+    }
+    values_.clear();
+}
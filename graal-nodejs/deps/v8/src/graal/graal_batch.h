@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+#ifndef GRAAL_BATCH_H_
+#define GRAAL_BATCH_H_
+
+#include "jni.h"
+#include <vector>
+
+class GraalIsolate;
+class GraalValue;
+
+// Collects several values and determines their value types in a single
+// transition to Java (GraalJSAccess.batchValueType) instead of one
+// transition per value. The value types (and the additional data that
+// come with them) are returned in the shared buffer.
+class GraalBatch {
+public:
+    // At most 12 bytes (the value type and a double or two int32s) are
+    // written per value, so that a full batch fits into the 128 bytes of
+    // the shared buffer (GraalJSAccess.sharedBuffer).
+    static const int kMaxValues = 10;
+
+    GraalBatch(GraalIsolate* isolate);
+    void ValueType(jobject value);
+    // Stores the GraalValues of the enqueued values into results (that
+    // must have room for Size() values). The batch is empty afterwards.
+    void Execute(GraalValue** results);
+
+    inline int Size() const {
+        return values_.size();
+    }
+private:
+    GraalIsolate* isolate_;
+    std::vector<jobject> values_;
+};
+
+#endif /* GRAAL_BATCH_H_ */
@@ -324,6 +324,7 @@ enum GraalAccessMethod {
     shared_array_buffer_is_external,
     shared_array_buffer_get_contents,
     shared_array_buffer_externalize,
+    batch_value_type,
 
     count // Should be the last item of GraalAccessMethod
 };
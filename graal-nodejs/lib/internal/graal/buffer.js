@@ -44,9 +44,11 @@ const NIOBufferPrototypeAllocator = arguments.length === 5 ? arguments[4] : unde
 
 function patchBufferPrototype(proto) {
 	if (NIOBufferPrototypeAllocator) {
-		const bufferBuiltin = NIOBufferPrototypeAllocator(proto.utf8Write, proto.utf8Slice);
-		proto.utf8Write = bufferBuiltin.utf8Write;
-		proto.utf8Slice = bufferBuiltin.utf8Slice;
+		const bufferBuiltin = NIOBufferPrototypeAllocator(proto.utf8Write, proto.utf8Slice, proto);
+		for (const encoding of ['utf8', 'latin1', 'ascii', 'hex', 'base64']) {
+			proto[encoding + 'Write'] = bufferBuiltin[encoding + 'Write'];
+			proto[encoding + 'Slice'] = bufferBuiltin[encoding + 'Slice'];
+		}
 	}
 }
 
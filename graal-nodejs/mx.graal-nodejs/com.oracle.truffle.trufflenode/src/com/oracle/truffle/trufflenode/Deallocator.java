@@ -46,14 +46,21 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A class responsible for the deallocation of the external memory segments associated with Java
  * objects.A direct {@code ByteBuffer} created by a JNI call is built on top of an existing memory
  * segment whose life-cycle may be associated with the created buffer.
+ *
+ * Unreachable segments are not freed one by one, but collected and released by a single native
+ * call once {@link #BATCH_SIZE} segments or {@link #MAX_PENDING_BYTES} bytes are pending, or when
+ * the cleanup thread has been idle for {@link #FLUSH_INTERVAL_MS} milliseconds.
+ *
+ * The statistics of the deallocator are available to JavaScript code through
+ * {@code require('internal/graal/deallocator').getStatistics()} (with {@code --expose-internals}).
  */
 final class Deallocator {
 
@@ -61,6 +68,18 @@ final class Deallocator {
      * Determines whether {@code sun.misc.Cleaner} can be used for deallocation.
      */
     private static final boolean USE_CLEANER = Boolean.parseBoolean(System.getProperty("truffle.node.js.deallocateUsingCleaner", "true"));
+    /**
+     * Maximum number of segments that are freed by one native call.
+     */
+    private static final int BATCH_SIZE = Math.max(1, Integer.getInteger("truffle.node.js.deallocationBatchSize", 64));
+    /**
+     * Pending segments are freed as soon as their total size reaches this limit.
+     */
+    private static final long MAX_PENDING_BYTES = Long.getLong("truffle.node.js.deallocationMaxPendingBytes", 4L * 1024 * 1024);
+    /**
+     * Pending segments are freed when no segment became unreachable for this time.
+     */
+    private static final long FLUSH_INTERVAL_MS = 100;
     /**
      * {@code java.nio.DirectByteBuffer} {@code Class} object.
      */
@@ -99,11 +118,25 @@ final class Deallocator {
      * Collection holding all the weak references to the buffers whose memory has not been
      * deallocated yet.
      */
-    private final Set<ReferenceWithPointer> enqueued = Collections.synchronizedSet(new HashSet<>());
+    private final Set<ReferenceWithPointer> enqueued = ConcurrentHashMap.newKeySet();
     /**
      * Determines whether the cleanup thread has been started.
      */
-    private boolean cleanupThreadStarted = false;
+    private volatile boolean cleanupThreadStarted = false;
+
+    /**
+     * Pointers to unreachable segments that have not been freed yet (guarded by {@code this}).
+     */
+    private final long[] pendingPointers = new long[BATCH_SIZE];
+    private int pendingCount;
+    private long pendingBytes;
+
+    /**
+     * Total size of the registered segments that have not been freed yet.
+     */
+    private final AtomicLong liveNativeBytes = new AtomicLong();
+    private final AtomicLong deallocatedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
 
     Deallocator() {
         this.queue = new ReferenceQueue<>();
@@ -116,24 +149,57 @@ final class Deallocator {
      * @param pointer pointer to the memory that should be deallocated.
      */
     void register(ByteBuffer buffer, long pointer) {
+        int size = buffer.capacity();
+        liveNativeBytes.addAndGet(size);
+        if (!cleanupThreadStarted) {
+            startCleanupThread();
+        }
         if (buffer.getClass() == DIRECT_BYTE_BUFFER_CLASS) {
             try {
                 CLEANER_FIELD.set(buffer, sun.misc.Cleaner.create(buffer, () -> {
-                    NativeAccess.deallocate(pointer);
+                    enqueueDeallocation(pointer, size);
                 }));
             } catch (IllegalAccessException | IllegalArgumentException ex) {
                 ex.printStackTrace();
             }
         } else {
-            if (!cleanupThreadStarted) {
-                startCleanupThread();
-            }
-            enqueued.add(new ReferenceWithPointer(buffer, pointer));
+            enqueued.add(new ReferenceWithPointer(buffer, pointer, size));
+        }
+    }
+
+    /**
+     * Adds the given segment to the pending batch, freeing the batch if it is full.
+     */
+    private synchronized void enqueueDeallocation(long pointer, int size) {
+        pendingPointers[pendingCount++] = pointer;
+        pendingBytes += size;
+        if (pendingCount == BATCH_SIZE || pendingBytes >= MAX_PENDING_BYTES) {
+            flushPendingDeallocations();
         }
     }
 
     /**
-     * Starts the cleanup thread (if it is not running already).
+     * Frees all pending segments with one native call.
+     */
+    private synchronized void flushPendingDeallocations() {
+        if (pendingCount == 0) {
+            return;
+        }
+        if (pendingCount == 1) {
+            NativeAccess.deallocate(pendingPointers[0]);
+        } else {
+            NativeAccess.deallocateBatch(pendingPointers, pendingCount);
+        }
+        liveNativeBytes.addAndGet(-pendingBytes);
+        deallocatedCount.addAndGet(pendingCount);
+        batchCount.incrementAndGet();
+        pendingCount = 0;
+        pendingBytes = 0;
+    }
+
+    /**
+     * Starts the cleanup thread (if it is not running already). The thread frees the memory of
+     * collected buffers that do not use a cleaner and flushes the pending batch when idle.
      */
     private synchronized void startCleanupThread() {
         if (cleanupThreadStarted) {
@@ -144,9 +210,13 @@ final class Deallocator {
             public void run() {
                 try {
                     while (true) {
-                        ReferenceWithPointer reference = (ReferenceWithPointer) queue.remove();
-                        enqueued.remove(reference);
-                        reference.deallocate();
+                        ReferenceWithPointer reference = (ReferenceWithPointer) queue.remove(FLUSH_INTERVAL_MS);
+                        if (reference == null) {
+                            flushPendingDeallocations();
+                        } else {
+                            enqueued.remove(reference);
+                            enqueueDeallocation(reference.pointer, reference.size);
+                        }
                     }
                 } catch (InterruptedException iex) {
                     iex.printStackTrace();
@@ -158,6 +228,35 @@ final class Deallocator {
         cleanupThreadStarted = true;
     }
 
+    /**
+     * Total size (in bytes) of the registered native memory segments that have not been freed yet
+     * (including the pending ones).
+     */
+    long getLiveNativeBytes() {
+        return liveNativeBytes.get();
+    }
+
+    /**
+     * Number of unreachable segments waiting to be freed.
+     */
+    synchronized int getPendingDeallocations() {
+        return pendingCount;
+    }
+
+    long getDeallocatedCount() {
+        return deallocatedCount.get();
+    }
+
+    long getBatchCount() {
+        return batchCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Deallocator: live native bytes: " + getLiveNativeBytes() + ", pending deallocations: " + getPendingDeallocations() + ", deallocated: " + getDeallocatedCount() +
+                        " in " + getBatchCount() + " batches";
+    }
+
     /**
      * Weak reference to {@code ByteBuffer} that keeps track of the memory that should be
      * deallocated once this reference is cleared.
@@ -168,14 +267,15 @@ final class Deallocator {
          * Pointer to the memory that should be deallocated.
          */
         private final long pointer;
+        /**
+         * Size of the memory that should be deallocated.
+         */
+        private final int size;
 
-        ReferenceWithPointer(ByteBuffer object, long pointer) {
+        ReferenceWithPointer(ByteBuffer object, long pointer, int size) {
             super(object, queue);
             this.pointer = pointer;
-        }
-
-        void deallocate() {
-            NativeAccess.deallocate(pointer);
+            this.size = size;
         }
     }
 
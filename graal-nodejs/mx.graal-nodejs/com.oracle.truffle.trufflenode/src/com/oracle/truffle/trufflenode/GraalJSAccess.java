@@ -328,6 +328,20 @@ public final class GraalJSAccess {
         return sharedBuffer;
     }
 
+    /**
+     * Writes the value types of several values (each followed by the additional data that
+     * {@link #valueType(Object, boolean)} provides) into the shared buffer, in one transition from
+     * the native code. See GraalBatch in graal_batch.h.
+     */
+    public void batchValueType(Object[] values) {
+        resetSharedBuffer();
+        for (Object value : values) {
+            int typePosition = sharedBuffer.position();
+            sharedBuffer.position(typePosition + 4);
+            sharedBuffer.putInt(typePosition, valueType(value, true));
+        }
+    }
+
     public int valueType(Object value) {
         return valueType(value, false);
     }
@@ -1703,11 +1717,37 @@ public final class GraalJSAccess {
             System.arraycopy(userArgs, 0, extendedArgs, 0, userArgs.length);
             extendedArgs[userArgs.length] = setBreakPoint;
             return extendedArgs;
+        } else if ("internal/graal/deallocator.js".equals(moduleName)) {
+            Object[] extendedArgs = new Object[userArgs.length + 1];
+            System.arraycopy(userArgs, 0, extendedArgs, 0, userArgs.length);
+            extendedArgs[userArgs.length] = createDeallocatorStatisticsFunction(node.getContext());
+            return extendedArgs;
         } else {
             return userArgs;
         }
     }
 
+    private DynamicObject createDeallocatorStatisticsFunction(JSContext context) {
+        JavaScriptRootNode statisticsNode = new JavaScriptRootNode() {
+            @Override
+            public Object execute(VirtualFrame frame) {
+                return deallocatorStatistics(context);
+            }
+        };
+        JSFunctionData statisticsData = JSFunctionData.createCallOnly(context, Truffle.getRuntime().createCallTarget(statisticsNode), 0, "getStatistics");
+        return JSFunction.create(context.getRealm(), statisticsData);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private DynamicObject deallocatorStatistics(JSContext context) {
+        DynamicObject statistics = JSUserObject.create(context);
+        JSObject.set(statistics, "liveNativeBytes", (double) deallocator.getLiveNativeBytes());
+        JSObject.set(statistics, "pendingDeallocations", deallocator.getPendingDeallocations());
+        JSObject.set(statistics, "deallocated", (double) deallocator.getDeallocatedCount());
+        JSObject.set(statistics, "batches", (double) deallocator.getBatchCount());
+        return statistics;
+    }
+
     public Object scriptGetUnboundScript(Object script) {
         return new UnboundScript((Script) script);
     }
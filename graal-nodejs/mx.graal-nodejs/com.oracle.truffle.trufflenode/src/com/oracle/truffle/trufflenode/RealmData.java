@@ -44,6 +44,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.trufflenode.buffer.NIOBufferAccessNode.Encoding;
 
 /**
  * Realm-specific embedder data.
@@ -54,6 +55,8 @@ public final class RealmData {
 
     private DynamicObject nativeUtf8Write;
     private DynamicObject nativeUtf8Slice;
+    private final DynamicObject[] nativeBufferSlice = new DynamicObject[Encoding.values().length];
+    private final DynamicObject[] nativeBufferWrite = new DynamicObject[Encoding.values().length];
     private DynamicObject resolverFactory;
 
     public RealmData() {
@@ -83,6 +86,22 @@ public final class RealmData {
         this.nativeUtf8Slice = nativeUtf8Slice;
     }
 
+    public DynamicObject getNativeBufferSlice(Encoding encoding) {
+        return nativeBufferSlice[encoding.ordinal()];
+    }
+
+    public void setNativeBufferSlice(Encoding encoding, DynamicObject function) {
+        nativeBufferSlice[encoding.ordinal()] = function;
+    }
+
+    public DynamicObject getNativeBufferWrite(Encoding encoding) {
+        return nativeBufferWrite[encoding.ordinal()];
+    }
+
+    public void setNativeBufferWrite(Encoding encoding, DynamicObject function) {
+        nativeBufferWrite[encoding.ordinal()] = function;
+    }
+
     public void setEmbedderData(int index, Object value) {
         embedderData.put(index, value);
     }
@@ -60,6 +60,32 @@ public abstract class NIOBufferAccessNode extends JSBuiltinNode {
 
     protected static final Charset utf8 = Charset.forName("UTF-8");
 
+    protected static final int V8MaxStringLength = (1 << 30) - 1 - 24;
+
+    /**
+     * Single-byte encodings that are encoded and decoded directly on the backing buffer.
+     */
+    public enum Encoding {
+        LATIN1("latin1"),
+        ASCII("ascii"),
+        HEX("hex"),
+        BASE64("base64");
+
+        private final String name;
+
+        Encoding(String name) {
+            this.name = name;
+        }
+
+        public String getSliceName() {
+            return name + "Slice";
+        }
+
+        public String getWriteName() {
+            return name + "Write";
+        }
+    }
+
     @Child protected ArrayBufferViewGetByteLengthNode getLenNode;
 
     public NIOBufferAccessNode(JSContext context, JSBuiltin builtin) {
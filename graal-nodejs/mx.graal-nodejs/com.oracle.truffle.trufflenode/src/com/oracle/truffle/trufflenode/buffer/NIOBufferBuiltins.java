@@ -44,6 +44,7 @@ import com.oracle.truffle.js.builtins.JSBuiltinsContainer;
 import com.oracle.truffle.js.nodes.function.JSBuiltin;
 import com.oracle.truffle.js.runtime.JSContext;
 import com.oracle.truffle.js.runtime.builtins.BuiltinEnum;
+import com.oracle.truffle.trufflenode.buffer.NIOBufferAccessNode.Encoding;
 
 public final class NIOBufferBuiltins extends JSBuiltinsContainer.SwitchEnum<NIOBufferBuiltins.Buffer> {
     protected NIOBufferBuiltins() {
@@ -52,7 +53,15 @@ public final class NIOBufferBuiltins extends JSBuiltinsContainer.SwitchEnum<NIOB
 
     public enum Buffer implements BuiltinEnum<Buffer> {
         utf8Write(0),
-        utf8Slice(0);
+        utf8Slice(0),
+        latin1Write(0),
+        latin1Slice(0),
+        asciiWrite(0),
+        asciiSlice(0),
+        hexWrite(0),
+        hexSlice(0),
+        base64Write(0),
+        base64Slice(0);
 
         private final int length;
 
@@ -73,8 +82,32 @@ public final class NIOBufferBuiltins extends JSBuiltinsContainer.SwitchEnum<NIOB
                 return NIOBufferUTF8WriteNodeGen.create(context, builtin, args().withThis().fixedArgs(3).createArgumentNodes(context));
             case utf8Slice:
                 return NIOBufferUTF8SliceNodeGen.create(context, builtin, args().withThis().fixedArgs(2).createArgumentNodes(context));
+            case latin1Write:
+                return createWriteNode(context, builtin, Encoding.LATIN1);
+            case latin1Slice:
+                return createSliceNode(context, builtin, Encoding.LATIN1);
+            case asciiWrite:
+                return createWriteNode(context, builtin, Encoding.ASCII);
+            case asciiSlice:
+                return createSliceNode(context, builtin, Encoding.ASCII);
+            case hexWrite:
+                return createWriteNode(context, builtin, Encoding.HEX);
+            case hexSlice:
+                return createSliceNode(context, builtin, Encoding.HEX);
+            case base64Write:
+                return createWriteNode(context, builtin, Encoding.BASE64);
+            case base64Slice:
+                return createSliceNode(context, builtin, Encoding.BASE64);
         }
         return null;
     }
 
+    private static Object createWriteNode(JSContext context, JSBuiltin builtin, Encoding encoding) {
+        return NIOBufferWriteNodeGen.create(context, builtin, encoding, args().withThis().fixedArgs(3).createArgumentNodes(context));
+    }
+
+    private static Object createSliceNode(JSContext context, JSBuiltin builtin, Encoding encoding) {
+        return NIOBufferSliceNodeGen.create(context, builtin, encoding, args().withThis().fixedArgs(2).createArgumentNodes(context));
+    }
+
 }
@@ -53,6 +53,7 @@ import com.oracle.truffle.js.runtime.JavaScriptRootNode;
 import com.oracle.truffle.js.runtime.builtins.JSBuiltinObject;
 import com.oracle.truffle.js.runtime.builtins.JSFunction;
 import com.oracle.truffle.js.runtime.builtins.JSFunctionData;
+import com.oracle.truffle.js.runtime.objects.JSObject;
 import com.oracle.truffle.js.runtime.objects.JSObjectUtil;
 import com.oracle.truffle.trufflenode.GraalJSAccess;
 import com.oracle.truffle.trufflenode.RealmData;
@@ -91,17 +92,37 @@ public final class NIOBufferObject extends JSBuiltinObject {
             @Override
             public Object execute(VirtualFrame frame) {
                 Object[] args = frame.getArguments();
-                assert args.length == 4;
+                assert args.length == 5;
                 DynamicObject nativeUtf8Write = (DynamicObject) args[2];
                 DynamicObject nativeUtf8Slice = (DynamicObject) args[3];
+                DynamicObject bufferPrototype = (DynamicObject) args[4];
                 RealmData embedderData = GraalJSAccess.getRealmEmbedderData(context.getRealm());
                 embedderData.setNativeUtf8Write(nativeUtf8Write);
                 embedderData.setNativeUtf8Slice(nativeUtf8Slice);
+                registerNativeBufferFunctions(embedderData, bufferPrototype);
                 return create(context);
             }
         };
-        JSFunctionData functionData = JSFunctionData.createCallOnly(context, Truffle.getRuntime().createCallTarget(wrapperNode), 2, "NIOBufferBuiltinsInitFunction");
+        JSFunctionData functionData = JSFunctionData.createCallOnly(context, Truffle.getRuntime().createCallTarget(wrapperNode), 3, "NIOBufferBuiltinsInitFunction");
         return JSFunction.create(realm, functionData);
     }
 
+    /**
+     * Remembers the native implementations of the encoding-specific slice/write functions. They
+     * are used as a fallback for arguments that the Java implementation does not handle.
+     */
+    @TruffleBoundary
+    private static void registerNativeBufferFunctions(RealmData embedderData, DynamicObject bufferPrototype) {
+        for (NIOBufferAccessNode.Encoding encoding : NIOBufferAccessNode.Encoding.values()) {
+            Object slice = JSObject.get(bufferPrototype, encoding.getSliceName());
+            if (JSFunction.isJSFunction(slice)) {
+                embedderData.setNativeBufferSlice(encoding, (DynamicObject) slice);
+            }
+            Object write = JSObject.get(bufferPrototype, encoding.getWriteName());
+            if (JSFunction.isJSFunction(write)) {
+                embedderData.setNativeBufferWrite(encoding, (DynamicObject) write);
+            }
+        }
+    }
+
 }
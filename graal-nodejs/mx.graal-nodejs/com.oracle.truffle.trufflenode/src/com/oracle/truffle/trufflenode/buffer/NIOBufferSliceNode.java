@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.trufflenode.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.profiles.BranchProfile;
+import com.oracle.truffle.js.nodes.function.JSBuiltin;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.builtins.JSFunction;
+import com.oracle.truffle.trufflenode.GraalJSAccess;
+
+/**
+ * Implements {@code latin1Slice}, {@code asciiSlice}, {@code hexSlice} and {@code base64Slice}
+ * directly on the backing byte buffer. Out-of-range arguments are delegated to the native
+ * implementation, which throws the appropriate Node.js error.
+ */
+public abstract class NIOBufferSliceNode extends NIOBufferAccessNode {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Encoding encoding;
+
+    protected final BranchProfile nativePath = BranchProfile.create();
+
+    @CompilationFinal private DynamicObject cachedNativeSlice;
+
+    public NIOBufferSliceNode(JSContext context, JSBuiltin builtin, Encoding encoding) {
+        super(context, builtin);
+        this.encoding = encoding;
+    }
+
+    private DynamicObject getNativeSlice() {
+        if (getContext().isSingleRealm()) {
+            // only one realm, so its native function can be cached in the node
+            if (cachedNativeSlice == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                cachedNativeSlice = lookupNativeSlice();
+            }
+            return cachedNativeSlice;
+        }
+        return lookupNativeSlice();
+    }
+
+    private DynamicObject lookupNativeSlice() {
+        return GraalJSAccess.getRealmEmbedderData(getContext().getRealm()).getNativeBufferSlice(encoding);
+    }
+
+    @Specialization(guards = {"accept(target)"})
+    public Object slice(DynamicObject target, int start, int end) {
+        return doSlice(target, start, end);
+    }
+
+    @Specialization(guards = {"accept(target)"})
+    public Object slice(DynamicObject target, double start, double end) {
+        int intStart = (int) start;
+        int intEnd = (int) end;
+        if (intStart != start || intEnd != end) {
+            return doNativeFallback(target, start, end);
+        }
+        return doSlice(target, intStart, intEnd);
+    }
+
+    @Specialization
+    public Object sliceDefault(DynamicObject target, Object start, Object end) {
+        return JSFunction.call(getNativeSlice(), target, new Object[]{start, end});
+    }
+
+    @SuppressWarnings("unused")
+    @Specialization(guards = {"!isJSArrayBufferView(target)"})
+    public Object sliceAbort(Object target, Object start, Object end) {
+        throw Errors.createTypeErrorArrayBufferViewExpected();
+    }
+
+    private Object doNativeFallback(DynamicObject target, Object start, Object end) {
+        nativePath.enter();
+        return JSFunction.call(getNativeSlice(), target, new Object[]{start, end});
+    }
+
+    private Object doSlice(DynamicObject target, int start, int end) {
+        int actualEnd = end < start ? start : end;
+        int bufferLen = getLength(target);
+        if (start < 0 || actualEnd > bufferLen) {
+            return doNativeFallback(target, start, end);
+        }
+        int length = actualEnd - start;
+        if (length == 0) {
+            return "";
+        }
+        if (decodedLength(length) > V8MaxStringLength) {
+            return doNativeFallback(target, start, end);
+        }
+        DynamicObject arrayBuffer = getArrayBuffer(target);
+        ByteBuffer data = sliceBuffer(getDirectByteBuffer(arrayBuffer), getOffset(target));
+        return decode(data, start, length, encoding);
+    }
+
+    private long decodedLength(int length) {
+        switch (encoding) {
+            case HEX:
+                return 2L * length;
+            case BASE64:
+                return (length + 2L) / 3 * 4;
+            default:
+                return length;
+        }
+    }
+
+    @TruffleBoundary
+    private static String decode(ByteBuffer data, int start, int length, Encoding encoding) {
+        byte[] bytes = new byte[length];
+        data.position(start);
+        data.get(bytes);
+        switch (encoding) {
+            case LATIN1:
+                return new String(bytes, StandardCharsets.ISO_8859_1);
+            case ASCII:
+                // like V8, strip the high bit of non-ASCII bytes
+                for (int i = 0; i < length; i++) {
+                    bytes[i] &= 0x7f;
+                }
+                return new String(bytes, StandardCharsets.ISO_8859_1);
+            case HEX:
+                char[] chars = new char[length * 2];
+                for (int i = 0; i < length; i++) {
+                    int b = bytes[i] & 0xff;
+                    chars[2 * i] = HEX_DIGITS[b >>> 4];
+                    chars[2 * i + 1] = HEX_DIGITS[b & 0xf];
+                }
+                return new String(chars);
+            case BASE64:
+                return new String(Base64.getEncoder().encode(bytes), StandardCharsets.ISO_8859_1);
+            default:
+                throw Errors.shouldNotReachHere();
+        }
+    }
+}
@@ -58,8 +58,6 @@ import com.oracle.truffle.trufflenode.GraalJSAccess;
 
 public abstract class NIOBufferUTF8SliceNode extends NIOBufferAccessNode {
 
-    private static final int V8MaxStringLength = (1 << 30) - 1 - 24;
-
     protected final BranchProfile nativePath = BranchProfile.create();
 
     public NIOBufferUTF8SliceNode(JSContext context, JSBuiltin builtin) {
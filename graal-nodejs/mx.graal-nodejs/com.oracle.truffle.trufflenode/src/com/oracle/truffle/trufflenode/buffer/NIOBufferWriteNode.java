@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.trufflenode.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.profiles.BranchProfile;
+import com.oracle.truffle.js.nodes.function.JSBuiltin;
+import com.oracle.truffle.js.runtime.Errors;
+import com.oracle.truffle.js.runtime.JSContext;
+import com.oracle.truffle.js.runtime.builtins.JSFunction;
+import com.oracle.truffle.trufflenode.GraalJSAccess;
+
+/**
+ * Implements {@code latin1Write}, {@code asciiWrite}, {@code hexWrite} and {@code base64Write}
+ * directly on the backing byte buffer, following the semantics of Node's
+ * {@code StringBytes::Write}. Out-of-range arguments are delegated to the native implementation.
+ */
+public abstract class NIOBufferWriteNode extends NIOBufferAccessNode {
+
+    private static final byte[] BASE64_VALUES = new byte[128];
+    static {
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+        // URL-safe alphabet
+        BASE64_VALUES['-'] = 62;
+        BASE64_VALUES['_'] = 63;
+    }
+
+    private final Encoding encoding;
+
+    protected final BranchProfile nativePath = BranchProfile.create();
+
+    @CompilationFinal private DynamicObject cachedNativeWrite;
+
+    public NIOBufferWriteNode(JSContext context, JSBuiltin builtin, Encoding encoding) {
+        super(context, builtin);
+        this.encoding = encoding;
+    }
+
+    private DynamicObject getNativeWrite() {
+        if (getContext().isSingleRealm()) {
+            // only one realm, so its native function can be cached in the node
+            if (cachedNativeWrite == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                cachedNativeWrite = lookupNativeWrite();
+            }
+            return cachedNativeWrite;
+        }
+        return lookupNativeWrite();
+    }
+
+    private DynamicObject lookupNativeWrite() {
+        return GraalJSAccess.getRealmEmbedderData(getContext().getRealm()).getNativeBufferWrite(encoding);
+    }
+
+    @Specialization(guards = "accept(target)")
+    public Object write(DynamicObject target, String str, int destOffset, int bytes) {
+        return doWrite(target, str, destOffset, bytes);
+    }
+
+    @Specialization(guards = {"accept(target)", "isUndefined(bytes)"})
+    public Object writeDefaultLength(DynamicObject target, String str, int destOffset, Object bytes) {
+        return doWrite(target, str, destOffset, Integer.MAX_VALUE);
+    }
+
+    @Specialization(guards = {"accept(target)", "isUndefined(destOffset)", "isUndefined(bytes)"})
+    public Object writeDefaultValues(DynamicObject target, String str, Object destOffset, Object bytes) {
+        return doWrite(target, str, 0, Integer.MAX_VALUE);
+    }
+
+    @Specialization
+    public Object writeDefault(DynamicObject target, Object str, Object destOffset, Object bytes) {
+        return JSFunction.call(getNativeWrite(), target, new Object[]{str, destOffset, bytes});
+    }
+
+    @Specialization(guards = {"!isJSArrayBufferView(target)"})
+    @SuppressWarnings("unused")
+    public Object writeAbort(Object target, Object str, Object destOffset, Object bytes) {
+        throw Errors.createTypeErrorArrayBufferViewExpected();
+    }
+
+    private Object doWrite(DynamicObject target, String str, int destOffset, int bytes) {
+        int bufferLen = getLength(target);
+        if (destOffset < 0 || destOffset > bufferLen || bytes < 0) {
+            nativePath.enter();
+            return JSFunction.call(getNativeWrite(), target, new Object[]{str, destOffset, bytes});
+        }
+        int maxLength = Math.min(bufferLen - destOffset, bytes);
+        if (maxLength == 0) {
+            return 0;
+        }
+        DynamicObject arrayBuffer = getArrayBuffer(target);
+        ByteBuffer buffer = sliceBuffer(getDirectByteBuffer(arrayBuffer), getOffset(target));
+        return encode(str, buffer, destOffset, maxLength, encoding);
+    }
+
+    @TruffleBoundary
+    private static int encode(String str, ByteBuffer buffer, int destOffset, int maxLength, Encoding encoding) {
+        byte[] bytes;
+        int written;
+        switch (encoding) {
+            case LATIN1:
+            case ASCII:
+                // Node writes both encodings as one byte per UTF-16 code unit, truncating
+                written = Math.min(maxLength, str.length());
+                bytes = new byte[written];
+                for (int i = 0; i < written; i++) {
+                    bytes[i] = (byte) str.charAt(i);
+                }
+                break;
+            case HEX:
+                bytes = new byte[Math.min(maxLength, str.length() / 2)];
+                written = decodeHex(str, bytes);
+                break;
+            case BASE64:
+                bytes = new byte[Math.min(maxLength, base64DecodedSize(str))];
+                written = decodeBase64(str, bytes);
+                break;
+            default:
+                throw Errors.shouldNotReachHere();
+        }
+        buffer.position(destOffset);
+        buffer.put(bytes, 0, written);
+        return written;
+    }
+
+    /**
+     * Decodes pairs of hex digits until the first invalid pair.
+     */
+    private static int decodeHex(String str, byte[] dst) {
+        for (int i = 0; i < dst.length; i++) {
+            int hi = hexValue(str.charAt(2 * i));
+            int lo = hexValue(str.charAt(2 * i + 1));
+            if (hi < 0 || lo < 0) {
+                return i;
+            }
+            dst[i] = (byte) ((hi << 4) | lo);
+        }
+        return dst.length;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static int base64DecodedSize(String str) {
+        int size = str.length();
+        if (size < 2) {
+            return 0;
+        }
+        if (str.charAt(size - 1) == '=') {
+            size--;
+            if (str.charAt(size - 1) == '=') {
+                size--;
+            }
+        }
+        int remainder = size % 4;
+        int decodedSize = (size / 4) * 3;
+        if (remainder != 0) {
+            if (decodedSize == 0 && remainder == 1) {
+                decodedSize = 0;
+            } else {
+                decodedSize += 1 + (remainder == 3 ? 1 : 0);
+            }
+        }
+        return decodedSize;
+    }
+
+    /**
+     * Lenient base64 decoding as done by Node: both the standard and the URL-safe alphabet are
+     * accepted, unknown characters are skipped and decoding stops at the first '='.
+     */
+    private static int decodeBase64(String str, byte[] dst) {
+        int written = 0;
+        int bits = 0;
+        int accumulator = 0;
+        for (int i = 0; i < str.length() && written < dst.length; i++) {
+            char c = str.charAt(i);
+            int value = c < BASE64_VALUES.length ? BASE64_VALUES[c] : -1;
+            if (value < 0) {
+                if (c == '=') {
+                    break;
+                }
+                continue;
+            }
+            accumulator = (accumulator << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                dst[written++] = (byte) (accumulator >> bits);
+                accumulator &= (1 << bits) - 1;
+            }
+        }
+        return written;
+    }
+}
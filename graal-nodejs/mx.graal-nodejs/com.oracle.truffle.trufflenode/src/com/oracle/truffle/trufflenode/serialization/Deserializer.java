@@ -252,13 +252,7 @@ public class Deserializer {
     }
 
     private String readOneByteString() {
-        int charCount = readVarInt();
-        char[] chars = new char[charCount];
-        for (int i = 0; i < charCount; i++) {
-            byte b = buffer.get();
-            chars[i] = (char) (b & 0xff);
-        }
-        return new String(chars);
+        return readString("ISO-8859-1");
     }
 
     private String readTwoByteString() {
@@ -309,10 +303,11 @@ public class Deserializer {
     private DynamicObject readJSArrayBuffer(JSContext context) {
         int byteLength = readVarInt();
         DynamicObject arrayBuffer = JSArrayBuffer.createDirectArrayBuffer(context, byteLength);
-        ByteBuffer byteBuffer = JSArrayBuffer.getDirectByteBuffer(arrayBuffer);
-        for (int i = 0; i < byteLength; i++) {
-            byteBuffer.put(i, buffer.get());
-        }
+        ByteBuffer byteBuffer = JSArrayBuffer.getDirectByteBuffer(arrayBuffer).duplicate();
+        ByteBuffer contents = buffer.duplicate();
+        contents.limit(contents.position() + byteLength);
+        byteBuffer.put(contents);
+        buffer.position(buffer.position() + byteLength);
         assignId(arrayBuffer);
         return (peekTag() == SerializationTag.ARRAY_BUFFER_VIEW) ? readJSArrayBufferView(context, arrayBuffer) : arrayBuffer;
     }
@@ -379,9 +374,72 @@ public class Deserializer {
 
     private DynamicObject readDenseArray(JSContext context) {
         int length = readVarInt();
+        int id = nextId++;
+        DynamicObject array = readPackedArray(context, length);
+        if (array != null) {
+            objectMap.put(id, array);
+        } else {
+            array = readDenseArrayElements(context, length, id);
+        }
+        int read = readJSObjectProperties(context, array, SerializationTag.END_DENSE_JS_ARRAY);
+        int expected = readVarInt();
+        if (read != expected) {
+            throw Errors.createError("unexpected number of properties");
+        }
+        int length2 = readVarInt();
+        if (length != length2) {
+            throw Errors.createError("length ambiguity");
+        }
+        return array;
+    }
+
+    /**
+     * Reads the elements of a dense array that consists of numbers only into unboxed int or
+     * double storage. Returns {@code null} (with the buffer position unchanged) if the array
+     * contains any other element.
+     */
+    private DynamicObject readPackedArray(JSContext context, int length) {
+        if (length == 0) {
+            return null;
+        }
+        int start = buffer.position();
+        byte int32Tag = SerializationTag.INT32.getTag();
+        byte doubleTag = SerializationTag.DOUBLE.getTag();
+        int[] ints = new int[length];
+        double[] doubles = null;
+        for (int i = 0; i < length; i++) {
+            byte tag = buffer.hasRemaining() ? buffer.get() : 0;
+            if (tag == int32Tag) {
+                int value = readInt();
+                if (doubles == null) {
+                    ints[i] = value;
+                } else {
+                    doubles[i] = value;
+                }
+            } else if (tag == doubleTag) {
+                if (doubles == null) {
+                    doubles = new double[length];
+                    for (int j = 0; j < i; j++) {
+                        doubles[j] = ints[j];
+                    }
+                }
+                doubles[i] = readDouble();
+            } else {
+                buffer.position(start);
+                return null;
+            }
+        }
+        if (doubles == null) {
+            return JSArray.createZeroBasedIntArray(context, ints);
+        } else {
+            return JSArray.createZeroBasedDoubleArray(context, doubles);
+        }
+    }
+
+    private DynamicObject readDenseArrayElements(JSContext context, int length, int id) {
         Object[] elements = new Object[length];
         DynamicObject array = JSArray.createConstantObjectArray(context, elements);
-        assignId(array);
+        objectMap.put(id, array);
         List<Integer> holes = new ArrayList<>();
         for (int i = 0; i < length; i++) {
             SerializationTag tag = readTag();
@@ -394,15 +452,6 @@ public class Deserializer {
         for (int hole : holes) {
             JSObject.delete(array, hole);
         }
-        int read = readJSObjectProperties(context, array, SerializationTag.END_DENSE_JS_ARRAY);
-        int expected = readVarInt();
-        if (read != expected) {
-            throw Errors.createError("unexpected number of properties");
-        }
-        int length2 = readVarInt();
-        if (length != length2) {
-            throw Errors.createError("length ambiguity");
-        }
         return array;
     }
 
@@ -41,10 +41,15 @@
 package com.oracle.truffle.trufflenode.serialization;
 
 import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Shape;
 import com.oracle.truffle.js.runtime.BigInt;
 import com.oracle.truffle.js.runtime.Errors;
 import com.oracle.truffle.js.runtime.JSRuntime;
+import com.oracle.truffle.js.runtime.JSTruffleOptions;
+import com.oracle.truffle.js.runtime.array.ScriptArray;
 import com.oracle.truffle.js.runtime.array.TypedArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractDoubleArray;
+import com.oracle.truffle.js.runtime.array.dyn.AbstractIntArray;
 import com.oracle.truffle.js.runtime.builtins.JSAbstractArray;
 import com.oracle.truffle.js.runtime.builtins.JSArray;
 import com.oracle.truffle.js.runtime.builtins.JSArrayBuffer;
@@ -61,7 +66,9 @@ import com.oracle.truffle.js.runtime.builtins.JSRegExp;
 import com.oracle.truffle.js.runtime.builtins.JSSet;
 import com.oracle.truffle.js.runtime.builtins.JSSharedArrayBuffer;
 import com.oracle.truffle.js.runtime.builtins.JSString;
+import com.oracle.truffle.js.runtime.builtins.JSUserObject;
 import com.oracle.truffle.js.runtime.objects.JSObject;
+import com.oracle.truffle.js.runtime.objects.JSShape;
 import com.oracle.truffle.js.runtime.objects.Null;
 import com.oracle.truffle.js.runtime.objects.Undefined;
 import com.oracle.truffle.js.runtime.util.JSHashMap;
@@ -95,6 +102,8 @@ public class Serializer {
     private final Map<Object, Integer> transferMap = new IdentityHashMap<>();
     /** Determines whether {@code ArrayBuffer}s should be serialized as host objects. */
     private boolean treatArrayBufferViewsAsHostObjects;
+    /** Encoded property keys of the plain objects serialized so far, by shape. */
+    private final Map<Shape, ObjectKeys> objectKeysCache = new IdentityHashMap<>();
 
     public Serializer(long delegate) {
         this.delegate = delegate;
@@ -234,18 +243,13 @@ public class Serializer {
     }
 
     public void writeVarInt(long value) {
+        ensureFreeSpace(10);
         long rest = value;
-        byte[] bytes = new byte[10];
-        int idx = 0;
-        do {
-            byte b = (byte) rest;
-            b |= 0x80;
-            bytes[idx] = b;
-            idx++;
+        while ((rest & ~0x7FL) != 0) {
+            buffer.put((byte) (rest | 0x80));
             rest >>>= 7;
-        } while (rest != 0);
-        bytes[idx - 1] &= 0x7f;
-        writeBytes(bytes, idx);
+        }
+        buffer.put((byte) rest);
     }
 
     private void writeBytes(byte[] bytes, int length) {
@@ -294,8 +298,8 @@ public class Serializer {
     }
 
     private static boolean isOneByteString(String string) {
-        for (char c : string.toCharArray()) {
-            if (c >= 256) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) >= 256) {
                 return false;
             }
         }
@@ -343,10 +347,9 @@ public class Serializer {
             ByteBuffer byteBuffer = JSArrayBuffer.getDirectByteBuffer(arrayBuffer);
             writeTag(SerializationTag.ARRAY_BUFFER);
             writeVarInt(byteLength);
-            ensureFreeSpace(byteLength);
-            for (int i = 0; i < byteLength; i++) {
-                buffer.put(byteBuffer.get(i));
-            }
+            ByteBuffer contents = byteBuffer.duplicate();
+            contents.position(0).limit(byteLength);
+            writeBytes(contents);
         } else {
             writeTag(SerializationTag.ARRAY_BUFFER_TRANSFER);
             writeVarInt(Integer.toUnsignedLong(id));
@@ -362,20 +365,67 @@ public class Serializer {
     private void writeJSObject(DynamicObject object) {
         assert JSObject.isJSObject(object);
         writeTag(SerializationTag.BEGIN_JS_OBJECT);
-        List<String> names = JSObject.enumerableOwnNames(object);
-        writeJSObjectProperties(object, names);
+        int count;
+        if (JSTruffleOptions.FastOwnKeys && JSUserObject.isJSUserObject(object)) {
+            count = writeJSUserObjectProperties(object);
+        } else {
+            List<String> names = JSObject.enumerableOwnNames(object);
+            writeJSObjectProperties(object, names);
+            count = names.size();
+        }
         writeTag(SerializationTag.END_JS_OBJECT);
-        writeVarInt(names.size());
+        writeVarInt(count);
+    }
+
+    /**
+     * Writes the properties of a plain object. The keys of an ordinary object are determined by
+     * its shape, so their encoding is computed once per shape and copied for subsequent objects.
+     */
+    private int writeJSUserObjectProperties(DynamicObject object) {
+        Shape shape = object.getShape();
+        ObjectKeys keys = objectKeysCache.get(shape);
+        if (keys == null) {
+            List<String> names = JSObject.enumerableOwnNames(object);
+            byte[][] encodedKeys = new byte[names.size()][];
+            for (int i = 0; i < encodedKeys.length; i++) {
+                String key = names.get(i);
+                int start = buffer.position();
+                writeKey(key);
+                encodedKeys[i] = copyWrittenBytes(start);
+                writeValue(JSObject.get(object, key));
+            }
+            objectKeysCache.put(shape, new ObjectKeys(names, encodedKeys));
+            return encodedKeys.length;
+        }
+        List<String> names = keys.names;
+        for (int i = 0; i < keys.encodedKeys.length; i++) {
+            byte[] encodedKey = keys.encodedKeys[i];
+            writeBytes(encodedKey, encodedKey.length);
+            writeValue(JSObject.get(object, names.get(i)));
+        }
+        return keys.encodedKeys.length;
+    }
+
+    private byte[] copyWrittenBytes(int start) {
+        ByteBuffer written = buffer.duplicate();
+        written.flip().position(start);
+        byte[] bytes = new byte[written.remaining()];
+        written.get(bytes);
+        return bytes;
+    }
+
+    private void writeKey(String key) {
+        if (JSRuntime.isArrayIndex(key)) {
+            writeIntOrDouble(Double.parseDouble(key));
+        } else {
+            writeString(key);
+        }
     }
 
     private void writeJSObjectProperties(DynamicObject object, List<String> keys) {
         assert JSObject.isJSObject(object);
         for (String key : keys) {
-            if (JSRuntime.isArrayIndex(key)) {
-                writeIntOrDouble(Double.parseDouble(key));
-            } else {
-                writeString(key);
-            }
+            writeKey(key);
             Object value = JSObject.get(object, key);
             writeValue(value);
         }
@@ -413,6 +463,9 @@ public class Serializer {
     private void writeJSArray(DynamicObject object) {
         assert JSArray.isJSArray(object);
         long length = JSAbstractArray.arrayGetLength(object);
+        if (writePackedJSArray(object, length)) {
+            return;
+        }
         List<String> names = JSObject.enumerableOwnNames(object);
         boolean dense = names.size() >= length;
         if (dense) {
@@ -442,6 +495,43 @@ public class Serializer {
         writeVarInt(length);
     }
 
+    /**
+     * Writes a dense array of unboxed ints or doubles directly from its backing storage. Only
+     * handles arrays without holes and without enumerable named properties.
+     */
+    private boolean writePackedJSArray(DynamicObject object, long length) {
+        ScriptArray arrayType = JSAbstractArray.arrayGetArrayType(object);
+        boolean intArray = arrayType instanceof AbstractIntArray;
+        if (!intArray && !(arrayType instanceof AbstractDoubleArray)) {
+            return false;
+        }
+        if (length == 0 || length > Integer.MAX_VALUE || arrayType.isHolesType() || arrayType.firstElementIndex(object) != 0 || arrayType.lastElementIndex(object) != length - 1) {
+            return false;
+        }
+        if (!JSTruffleOptions.FastOwnKeys || !JSShape.getEnumerablePropertyNames(object.getShape()).isEmpty()) {
+            return false;
+        }
+        int len = (int) length;
+        writeTag(SerializationTag.BEGIN_DENSE_JS_ARRAY);
+        writeVarInt(len);
+        if (intArray) {
+            AbstractIntArray ints = (AbstractIntArray) arrayType;
+            for (int i = 0; i < len; i++) {
+                writeInt(ints.getInBoundsFastInt(object, i, false));
+            }
+        } else {
+            AbstractDoubleArray doubles = (AbstractDoubleArray) arrayType;
+            for (int i = 0; i < len; i++) {
+                // same encoding as writeValue, int-representable values are written as INT32
+                writeIntOrDouble(doubles.getInBoundsFastDouble(object, i, false));
+            }
+        }
+        writeTag(SerializationTag.END_DENSE_JS_ARRAY);
+        writeVarInt(0);
+        writeVarInt(len);
+        return true;
+    }
+
     private void writeJSArrayBufferView(DynamicObject view) {
         if (treatArrayBufferViewsAsHostObjects) {
             writeHostObject(view);
@@ -521,4 +611,14 @@ public class Serializer {
         objectMap.put(object, nextId++);
     }
 
+    private static final class ObjectKeys {
+        final List<String> names;
+        final byte[][] encodedKeys;
+
+        ObjectKeys(List<String> names, byte[][] encodedKeys) {
+            this.names = names;
+            this.encodedKeys = encodedKeys;
+        }
+    }
+
 }
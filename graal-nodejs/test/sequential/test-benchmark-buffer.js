@@ -17,6 +17,7 @@ runBenchmark('buffers',
                'linesCount=1',
                'method=',
                'n=1',
+               'op=toString',
                'pieces=1',
                'pieceSize=1',
                'search=@',